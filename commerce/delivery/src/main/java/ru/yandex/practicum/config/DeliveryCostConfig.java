@@ -5,6 +5,7 @@ import org.springframework.boot.context.properties.ConfigurationProperties;
 import org.springframework.context.annotation.Configuration;
 
 import java.math.BigDecimal;
+import java.time.Duration;
 import java.util.HashMap;
 import java.util.Map;
 
@@ -18,4 +19,9 @@ public class DeliveryCostConfig {
     private BigDecimal volumeMultiplier = BigDecimal.valueOf(0.2);
     private BigDecimal addressMultiplier = BigDecimal.valueOf(0.2);
     private Map<String, BigDecimal> warehouseMultipliers = new HashMap<>();
+
+    /**
+     * Как часто адрес склада перечитывается в фоне; до ответа склада используется прежний.
+     */
+    private Duration warehouseAddressRefresh = Duration.ofMinutes(5);
 }
\ No newline at end of file
@@ -12,6 +12,8 @@ import ru.yandex.practicum.order.dto.OrderDto;
 import ru.yandex.practicum.service.DeliveryService;
 
 import java.math.BigDecimal;
+import java.util.List;
+import java.util.Map;
 import java.util.UUID;
 
 @RestController
@@ -40,8 +42,13 @@ public class DeliveryController {
         deliveryService.deliverySuccessful(orderId);
     }
 
-    @PostMapping
+    @PostMapping("/cost")
     BigDecimal deliveryCost(@RequestBody OrderDto orderDto) {
         return deliveryService.deliveryCost(orderDto);
     }
+
+    @PostMapping("/costs")
+    Map<UUID, BigDecimal> deliveryCosts(@RequestBody List<OrderDto> orders) {
+        return deliveryService.deliveryCosts(orders);
+    }
 }
\ No newline at end of file
@@ -1,11 +1,27 @@
 package ru.yandex.practicum.repository;
 
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import ru.yandex.practicum.entity.Delivery;
 
+import java.util.Collection;
+import java.util.List;
 import java.util.Optional;
 import java.util.UUID;
 
 public interface DeliveryRepository extends JpaRepository<Delivery, UUID> {
     Optional<Delivery> findByOrderId(UUID orderId);
-}
\ No newline at end of file
+
+    /**
+     * Улица назначения для расчёта стоимости, без загрузки доставок и адресов целиком.
+     */
+    @Query("select d.deliveryId as deliveryId, a.street as toStreet from Delivery d join d.toAddress a where d.deliveryId in :ids")
+    List<DeliveryRoute> findRoutes(@Param("ids") Collection<UUID> deliveryIds);
+
+    interface DeliveryRoute {
+        UUID getDeliveryId();
+
+        String getToStreet();
+    }
+}
@@ -0,0 +1,78 @@
+package ru.yandex.practicum.service;
+
+import ru.yandex.practicum.config.DeliveryCostConfig;
+import ru.yandex.practicum.delivery.dto.AddressDto;
+
+import java.math.BigDecimal;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Objects;
+import java.util.UUID;
+
+/**
+ * Чистый расчёт стоимости доставки без обращений к БД и другим сервисам. Множители из конфигурации
+ * сводятся в коэффициенты один раз, а надбавка склада — один раз на адрес склада в {@link Route}:
+ * <pre>
+ * cost = (rate(склад, хрупкость) + вес * weightMultiplier + объём * volumeMultiplier) * (1 + addressMultiplier, если адрес другой)
+ * </pre>
+ */
+public final class DeliveryCostCalculator {
+    private final BigDecimal baseRate;
+    private final BigDecimal fragileFactor;
+    private final BigDecimal weightMultiplier;
+    private final BigDecimal volumeMultiplier;
+    private final BigDecimal addressFactor;
+    private final Map<String, BigDecimal> warehouseMultipliers;
+
+    public DeliveryCostCalculator(DeliveryCostConfig config) {
+        this.baseRate = config.getBaseRate();
+        this.fragileFactor = BigDecimal.ONE.add(config.getFragileMultiplier());
+        this.weightMultiplier = config.getWeightMultiplier();
+        this.volumeMultiplier = config.getVolumeMultiplier();
+        this.addressFactor = BigDecimal.ONE.add(config.getAddressMultiplier());
+        this.warehouseMultipliers = Map.copyOf(config.getWarehouseMultipliers());
+    }
+
+    /**
+     * Базовые ставки маршрута от склада: надбавки всех ключей warehouse-multipliers, входящих в адрес.
+     */
+    public Route route(AddressDto warehouseAddress) {
+        String address = String.valueOf(warehouseAddress);
+        BigDecimal multiplier = BigDecimal.ZERO;
+        for (Map.Entry<String, BigDecimal> entry : warehouseMultipliers.entrySet()) {
+            if (address.contains(entry.getKey())) {
+                multiplier = multiplier.add(entry.getValue());
+            }
+        }
+        BigDecimal rate = baseRate.multiply(multiplier).add(baseRate);
+        return new Route(address, rate, rate.multiply(fragileFactor));
+    }
+
+    public BigDecimal cost(Route route, Parcel parcel) {
+        BigDecimal cost = (parcel.fragile() ? route.fragileRate() : route.rate())
+                .add(BigDecimal.valueOf(parcel.weight()).multiply(weightMultiplier))
+                .add(BigDecimal.valueOf(parcel.volume()).multiply(volumeMultiplier));
+        return route.isLocal(parcel.toStreet()) ? cost : cost.multiply(addressFactor);
+    }
+
+    /**
+     * Стоимость для многих доставок за один вызов.
+     */
+    public Map<UUID, BigDecimal> costs(Route route, Map<UUID, Parcel> parcels) {
+        Map<UUID, BigDecimal> costs = new HashMap<>(parcels.size() * 2);
+        parcels.forEach((id, parcel) -> costs.put(id, cost(route, parcel)));
+        return costs;
+    }
+
+    /**
+     * @param address адрес склада целиком, как его сравнивал прежний расчёт с улицей доставки
+     */
+    public record Route(String address, BigDecimal rate, BigDecimal fragileRate) {
+        boolean isLocal(String toStreet) {
+            return Objects.equals(address, toStreet);
+        }
+    }
+
+    public record Parcel(double weight, double volume, boolean fragile, String toStreet) {
+    }
+}
@@ -0,0 +1,61 @@
+package ru.yandex.practicum.service;
+
+import com.github.benmanes.caffeine.cache.AsyncLoadingCache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import org.springframework.stereotype.Component;
+import ru.yandex.practicum.config.DeliveryCostConfig;
+import ru.yandex.practicum.service.DeliveryCostCalculator.Parcel;
+import ru.yandex.practicum.service.DeliveryCostCalculator.Route;
+import ru.yandex.practicum.warehouse.feign.WarehouseClient;
+
+import java.math.BigDecimal;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.Executors;
+
+/**
+ * Стоимость доставки по маршруту от текущего склада. Адрес склада и рассчитанные для него ставки кэшируются
+ * и обновляются в фоне, поэтому на горячем пути нет удалённых вызовов, а параллельные запросы при пустом
+ * кэше ждут одну загрузку.
+ */
+@Component
+public class DeliveryCostEngine {
+    private static final String WAREHOUSE = "warehouse";
+
+    private final DeliveryCostCalculator calculator;
+    private final AsyncLoadingCache<String, Route> routes;
+
+    public DeliveryCostEngine(DeliveryCostConfig config, WarehouseClient warehouseClient, MeterRegistry meterRegistry) {
+        this.calculator = new DeliveryCostCalculator(config);
+        this.routes = Caffeine.newBuilder()
+                .executor(Executors.newVirtualThreadPerTaskExecutor())
+                .refreshAfterWrite(config.getWarehouseAddressRefresh())
+                .recordStats()
+                .buildAsync(key -> calculator.route(warehouseClient.getWarehouseAddress()));
+        CaffeineCacheMetrics.monitor(meterRegistry, routes, "delivery-routes");
+    }
+
+    public BigDecimal cost(Parcel parcel) {
+        return calculator.cost(route(), parcel);
+    }
+
+    public Map<UUID, BigDecimal> costs(Map<UUID, Parcel> parcels) {
+        return calculator.costs(route(), parcels);
+    }
+
+    private Route route() {
+        CompletableFuture<Route> route = routes.get(WAREHOUSE);
+        try {
+            return route.join();
+        } catch (CompletionException e) {
+            if (e.getCause() instanceof RuntimeException cause) {
+                throw cause;
+            }
+            throw e;
+        }
+    }
+}
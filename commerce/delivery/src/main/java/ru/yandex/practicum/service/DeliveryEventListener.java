@@ -0,0 +1,41 @@
+package ru.yandex.practicum.service;
+
+import lombok.RequiredArgsConstructor;
+import org.apache.kafka.clients.consumer.ConsumerRecord;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.kafka.annotation.KafkaListener;
+import org.springframework.stereotype.Component;
+import ru.yandex.practicum.order.enums.OrderState;
+import ru.yandex.practicum.saga.dto.OrderEvent;
+import ru.yandex.practicum.saga.enums.OrderEventType;
+import ru.yandex.practicum.saga.inbox.SagaInbox;
+
+import java.util.EnumSet;
+import java.util.Set;
+
+/**
+ * Компенсация доставки в саге заказа: если заказ не будет отгружен или вовсе не был создан,
+ * ещё не начатая доставка отменяется.
+ */
+@Component
+@ConditionalOnProperty(prefix = "saga", name = "enabled", havingValue = "true")
+@RequiredArgsConstructor
+public class DeliveryEventListener {
+    private static final Set<OrderState> NOT_SHIPPED = EnumSet.of(
+            OrderState.CANCELED, OrderState.ASSEMBLY_FAILED, OrderState.PAYMENT_FAILED);
+
+    private final DeliveryService deliveryService;
+    private final SagaInbox sagaInbox;
+
+    @KafkaListener(topics = "${saga.topic}", groupId = "delivery-saga")
+    public void onMessage(ConsumerRecord<String, String> record) {
+        sagaInbox.parse(record.value())
+                .filter(event -> event.getType() == OrderEventType.ORDER_ABORTED
+                        || event.getType() == OrderEventType.ORDER_STATE_CHANGED && NOT_SHIPPED.contains(event.getState()))
+                .ifPresent(event -> sagaInbox.handleOnce(event, this::handle));
+    }
+
+    private void handle(OrderEvent event) {
+        deliveryService.cancelDelivery(event.getOrderId());
+    }
+}
@@ -4,6 +4,8 @@ import ru.yandex.practicum.delivery.dto.DeliveryDto;
 import ru.yandex.practicum.order.dto.OrderDto;
 
 import java.math.BigDecimal;
+import java.util.Collection;
+import java.util.Map;
 import java.util.UUID;
 
 public interface DeliveryService {
@@ -12,10 +14,17 @@ public interface DeliveryService {
 
     BigDecimal deliveryCost(OrderDto orderDto);
 
+    Map<UUID, BigDecimal> deliveryCosts(Collection<OrderDto> orders);
+
     void deliverySuccessful(UUID orderId);
 
     void deliveryFailed(UUID orderId);
 
     void deliveryPicked(UUID deliveryId);
 
+    /**
+     * Отменяет доставку заказа, если она ещё не начата.
+     */
+    void cancelDelivery(UUID orderId);
+
 }
\ No newline at end of file
@@ -4,7 +4,6 @@ import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
-import ru.yandex.practicum.config.DeliveryCostConfig;
 import ru.yandex.practicum.delivery.dto.DeliveryDto;
 import ru.yandex.practicum.delivery.enums.DeliveryState;
 import ru.yandex.practicum.exception.NoDeliveryFoundException;
@@ -12,13 +11,20 @@ import ru.yandex.practicum.exception.NoOrderFoundException;
 import ru.yandex.practicum.mapper.DeliveryMapper;
 import ru.yandex.practicum.entity.Delivery;
 import ru.yandex.practicum.order.dto.OrderDto;
-import ru.yandex.practicum.order.feign.OrderClient;
 import ru.yandex.practicum.repository.DeliveryRepository;
+import ru.yandex.practicum.saga.enums.OrderEventType;
+import ru.yandex.practicum.saga.outbox.OutboxPublisher;
+import ru.yandex.practicum.service.DeliveryCostCalculator.Parcel;
 import ru.yandex.practicum.warehouse.dto.ShippedToDeliveryRequest;
 import ru.yandex.practicum.warehouse.feign.WarehouseClient;
 
 import java.math.BigDecimal;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
 import java.util.Map;
+import java.util.Set;
 import java.util.UUID;
 
 @Service
@@ -28,9 +34,9 @@ public class DeliveryServiceImpl implements DeliveryService {
 
     private final DeliveryRepository deliveryRepository;
     private final DeliveryMapper deliveryMapper;
-    private final OrderClient orderClient;
+    private final OutboxPublisher outboxPublisher;
     private final WarehouseClient warehouseClient;
-    private final DeliveryCostConfig costConfig;
+    private final DeliveryCostEngine deliveryCostEngine;
 
 
     @Override
@@ -48,7 +54,7 @@ public class DeliveryServiceImpl implements DeliveryService {
     }
 
     @Override
-    @Transactional(readOnly = true)
+    @Transactional
     public void deliverySuccessful(UUID orderId) {
         Delivery delivery = deliveryRepository.findByOrderId(orderId)
                 .orElseThrow(() -> new NoOrderFoundException("Не найден заказ: " + orderId));
@@ -56,11 +62,11 @@ public class DeliveryServiceImpl implements DeliveryService {
         delivery.setState(DeliveryState.DELIVERED);
         deliveryRepository.save(delivery);
 
-        orderClient.delivery(delivery.getOrderId());
+        outboxPublisher.publish(delivery.getOrderId(), OrderEventType.DELIVERY_SUCCEEDED);
     }
 
     @Override
-    @Transactional(readOnly = true)
+    @Transactional
     public void deliveryPicked(UUID deliveryId) {
         log.info("Получение товара для доставки: {}", deliveryId);
 
@@ -79,7 +85,7 @@ public class DeliveryServiceImpl implements DeliveryService {
     }
 
     @Override
-    @Transactional(readOnly = true)
+    @Transactional
     public void deliveryFailed(UUID orderId) {
         log.info("delivery failed for orderId: {}", orderId);
 
@@ -88,59 +94,65 @@ public class DeliveryServiceImpl implements DeliveryService {
         delivery.setState(DeliveryState.FAILED);
         deliveryRepository.save(delivery);
 
-        orderClient.deliveryFailed(orderId);
+        outboxPublisher.publish(orderId, OrderEventType.DELIVERY_FAILED);
     }
 
     @Override
-    public BigDecimal deliveryCost(OrderDto orderDto) {
-
-        Delivery delivery = deliveryRepository.findById(orderDto.getDeliveryId())
-                .orElseThrow(() -> new NoDeliveryFoundException("no delivery found: " + orderDto.getDeliveryId()));
-
-        delivery.setDeliveryWeight(orderDto.getDeliveryWeight());
-        delivery.setDeliveryVolume(orderDto.getDeliveryVolume());
-        delivery.setFragile(orderDto.isFragile());
-
-        deliveryRepository.save(delivery);
-
-        String warehouseAddress = String.valueOf(warehouseClient.getWarehouseAddress());
-
-        BigDecimal baseCost = costByAddress(warehouseAddress);
-
-        BigDecimal fragileAddition = orderDto.isFragile()
-                ? baseCost.multiply(costConfig.getFragileMultiplier())
-                : BigDecimal.ZERO;
-
-        BigDecimal weightAddition = BigDecimal.valueOf(orderDto.getDeliveryWeight())
-                .multiply(costConfig.getWeightMultiplier());
-
-        BigDecimal volumeAddition = BigDecimal.valueOf(orderDto.getDeliveryVolume())
-                .multiply(costConfig.getVolumeMultiplier());
-
-        BigDecimal stepCost = baseCost
-                .add(fragileAddition)
-                .add(weightAddition)
-                .add(volumeAddition);
-
-        String deliveryStreet = delivery.getToAddress().getStreet();
-        BigDecimal addressAddition = warehouseAddress.equals(deliveryStreet)
-                ? BigDecimal.ZERO
-                : stepCost.multiply(costConfig.getAddressMultiplier());
+    @Transactional
+    public void cancelDelivery(UUID orderId) {
+        deliveryRepository.findByOrderId(orderId)
+                .filter(delivery -> delivery.getState() == DeliveryState.CREATED)
+                .ifPresent(delivery -> {
+                    delivery.setState(DeliveryState.CANCELLED);
+                    deliveryRepository.save(delivery);
+                    log.info("delivery {} cancelled for orderId: {}", delivery.getDeliveryId(), orderId);
+                });
+    }
 
-        BigDecimal totalCost = stepCost.add(addressAddition);
+    @Override
+    @Transactional(readOnly = true)
+    public BigDecimal deliveryCost(OrderDto orderDto) {
+        Map<UUID, String> streets = toStreets(List.of(orderDto));
+        BigDecimal totalCost = deliveryCostEngine.cost(parcel(orderDto, streets));
 
         log.info("delivery cost for order {}: {}", orderDto.getOrderId(), totalCost);
         return totalCost;
     }
 
-    private BigDecimal costByAddress(String warehouseAddress) {
-        BigDecimal warehouseMultiplier = costConfig.getWarehouseMultipliers().entrySet().stream()
-                .filter(entry -> warehouseAddress.contains(entry.getKey()))
-                .map(Map.Entry::getValue)
-                .reduce(BigDecimal.ZERO, BigDecimal::add);
+    @Override
+    @Transactional(readOnly = true)
+    public Map<UUID, BigDecimal> deliveryCosts(Collection<OrderDto> orders) {
+        Map<UUID, String> streets = toStreets(orders);
+
+        Map<UUID, Parcel> parcels = new HashMap<>();
+        for (OrderDto order : orders) {
+            parcels.put(order.getOrderId(), parcel(order, streets));
+        }
+        return deliveryCostEngine.costs(parcels);
+    }
+
+    private Map<UUID, String> toStreets(Collection<OrderDto> orders) {
+        Set<UUID> deliveryIds = new HashSet<>();
+        for (OrderDto order : orders) {
+            if (order.getDeliveryId() == null) {
+                throw new NoDeliveryFoundException("no delivery for order: " + order.getOrderId());
+            }
+            deliveryIds.add(order.getDeliveryId());
+        }
+
+        Map<UUID, String> streets = new HashMap<>();
+        for (DeliveryRepository.DeliveryRoute route : deliveryRepository.findRoutes(deliveryIds)) {
+            streets.put(route.getDeliveryId(), route.getToStreet());
+        }
+        deliveryIds.removeAll(streets.keySet());
+        if (!deliveryIds.isEmpty()) {
+            throw new NoDeliveryFoundException("no delivery found: " + deliveryIds);
+        }
+        return streets;
+    }
 
-        return costConfig.getBaseRate()
-                .multiply(warehouseMultiplier)
-                .add(costConfig.getBaseRate());
+    private static Parcel parcel(OrderDto order, Map<UUID, String> streets) {
+        return new Parcel(order.getDeliveryWeight(), order.getDeliveryVolume(), order.isFragile(),
+                streets.get(order.getDeliveryId()));
     }
-}
\ No newline at end of file
+}
@@ -1,4 +1,4 @@
-CREATE TABLE addresses (
+CREATE TABLE IF NOT EXISTS addresses (
    address_id UUID PRIMARY KEY DEFAULT gen_random_uuid(),
    country VARCHAR(100) NOT NULL,
    city VARCHAR(100) NOT NULL,
@@ -7,15 +7,39 @@ CREATE TABLE addresses (
    flat VARCHAR(5)
 );
 
-CREATE TABLE deliveries (
+CREATE TABLE IF NOT EXISTS deliveries (
     delivery_id UUID PRIMARY KEY,
     from_address_id UUID NOT NULL,
     to_address_id UUID NOT NULL,
     order_id UUID NOT NULL,
     delivery_state VARCHAR(20) NOT NULL,
-    delivery_weight DOUBLE NOT NULL,
-    delivery_volume DOUBLE NOT NULL,
+    delivery_weight DOUBLE PRECISION NOT NULL,
+    delivery_volume DOUBLE PRECISION NOT NULL,
     fragile BOOLEAN NOT NULL,
     FOREIGN KEY (from_address_id) REFERENCES addresses (address_id),
     FOREIGN KEY (to_address_id) REFERENCES addresses (address_id)
-);
\ No newline at end of file
+);
+
+CREATE TABLE IF NOT EXISTS outbox_events (
+    event_id UUID PRIMARY KEY,
+    aggregate_id UUID NOT NULL,
+    event_type VARCHAR(50) NOT NULL,
+    payload TEXT NOT NULL,
+    created_at TIMESTAMP WITH TIME ZONE NOT NULL,
+    published_at TIMESTAMP WITH TIME ZONE,
+    claimed_until TIMESTAMP WITH TIME ZONE
+);
+
+ALTER TABLE outbox_events ADD COLUMN IF NOT EXISTS claimed_until TIMESTAMP WITH TIME ZONE;
+
+CREATE INDEX IF NOT EXISTS outbox_events_unpublished_idx ON outbox_events (created_at) WHERE published_at IS NULL;
+
+CREATE INDEX IF NOT EXISTS outbox_events_aggregate_unpublished_idx
+    ON outbox_events (aggregate_id, created_at, event_id) WHERE published_at IS NULL;
+
+CREATE TABLE IF NOT EXISTS processed_events (
+    event_id UUID PRIMARY KEY,
+    processed_at TIMESTAMP WITH TIME ZONE NOT NULL
+);
+
+CREATE INDEX IF NOT EXISTS processed_events_processed_idx ON processed_events (processed_at);
@@ -0,0 +1,107 @@
+package ru.yandex.practicum.cache;
+
+import com.github.benmanes.caffeine.cache.AsyncCache;
+
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.function.Function;
+
+/**
+ * Загрузка в Caffeine-кэш в потоке вызывающего. Загрузчик работает вне блокировок кэша: ожидание JDBC
+ * или HTTP внутри compute у ConcurrentHashMap закрепило бы виртуальный поток за несущим. Параллельные
+ * промахи по одному ключу ждут первый загрузчик, а не грузят то же самое ещё раз.
+ */
+public final class LoadingFutures {
+    private LoadingFutures() {
+    }
+
+    /**
+     * @return значение из кэша или загруженное; null от загрузчика не кэшируется
+     */
+    public static <K, V> V get(AsyncCache<K, V> cache, K key, Function<? super K, ? extends V> loader) {
+        CompletableFuture<V> cached = cache.getIfPresent(key);
+        if (cached != null) {
+            return join(cached);
+        }
+
+        CompletableFuture<V> mine = new CompletableFuture<>();
+        CompletableFuture<V> running = cache.asMap().putIfAbsent(key, mine);
+        if (running != null) {
+            return join(running);
+        }
+        try {
+            V value = loader.apply(key);
+            mine.complete(value);
+            return value;
+        } catch (RuntimeException e) {
+            mine.completeExceptionally(e);
+            throw e;
+        }
+    }
+
+    /**
+     * Пакетный вариант {@link #get}: все промахи, которые не грузит кто-то другой, загружаются одним вызовом.
+     *
+     * @return найденные значения; ключей, которых загрузчик не вернул, в результате нет
+     */
+    public static <K, V> Map<K, V> getAll(AsyncCache<K, V> cache, Collection<? extends K> keys,
+                                          Function<? super Set<K>, ? extends Map<K, V>> loader) {
+        Map<K, CompletableFuture<V>> waiting = new HashMap<>();
+        Map<K, CompletableFuture<V>> mine = new HashMap<>();
+        for (K key : new LinkedHashSet<>(keys)) {
+            CompletableFuture<V> cached = cache.getIfPresent(key);
+            if (cached == null) {
+                CompletableFuture<V> own = new CompletableFuture<>();
+                cached = cache.asMap().putIfAbsent(key, own);
+                if (cached == null) {
+                    mine.put(key, own);
+                    continue;
+                }
+            }
+            waiting.put(key, cached);
+        }
+
+        Map<K, V> found = new HashMap<>();
+        if (!mine.isEmpty()) {
+            try {
+                Map<K, V> loaded = loader.apply(Set.copyOf(mine.keySet()));
+                mine.forEach((key, own) -> {
+                    V value = loaded.get(key);
+                    own.complete(value);
+                    if (value != null) {
+                        found.put(key, value);
+                    }
+                });
+            } catch (RuntimeException e) {
+                mine.values().forEach(own -> own.completeExceptionally(e));
+                throw e;
+            }
+        }
+        waiting.forEach((key, future) -> {
+            V value = join(future);
+            if (value != null) {
+                found.put(key, value);
+            }
+        });
+        return found;
+    }
+
+    /**
+     * Ждёт результат, пробрасывая исключение загрузчика как есть, без обёртки CompletionException.
+     */
+    public static <V> V join(CompletableFuture<V> future) {
+        try {
+            return future.join();
+        } catch (CompletionException e) {
+            if (e.getCause() instanceof RuntimeException cause) {
+                throw cause;
+            }
+            throw e;
+        }
+    }
+}
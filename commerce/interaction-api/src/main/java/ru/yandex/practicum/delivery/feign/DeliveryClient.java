@@ -8,6 +8,9 @@ import ru.yandex.practicum.delivery.dto.DeliveryDto;
 import ru.yandex.practicum.order.dto.OrderDto;
 
 import java.math.BigDecimal;
+import java.util.Collection;
+import java.util.Map;
+import java.util.UUID;
 
 @FeignClient(name = "delivery-service", path = "/api/v1/delivery")
 public interface DeliveryClient {
@@ -17,4 +20,10 @@ public interface DeliveryClient {
 
     @PostMapping("/cost")
     BigDecimal deliveryCost(@RequestBody OrderDto orderDto);
+
+    /**
+     * @return стоимость доставки по orderId
+     */
+    @PostMapping("/costs")
+    Map<UUID, BigDecimal> deliveryCosts(@RequestBody Collection<OrderDto> orders);
 }
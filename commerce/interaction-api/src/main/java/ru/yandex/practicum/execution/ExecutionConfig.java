@@ -0,0 +1,44 @@
+package ru.yandex.practicum.execution;
+
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnThreading;
+import org.springframework.boot.autoconfigure.thread.Threading;
+import org.springframework.cloud.openfeign.support.FeignHttpClientProperties;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.scheduling.annotation.EnableAsync;
+
+import java.net.http.HttpClient;
+import java.time.Duration;
+import java.util.concurrent.Executors;
+
+/**
+ * Режим виртуальных потоков включается свойством spring.threads.virtual.enabled. Spring Boot сам переводит
+ * на них Tomcat, applicationTaskExecutor (а значит и @Async), планировщик @Scheduled и Kafka-листенеры;
+ * Feign-вызовы выполняются в потоке запроса. Здесь остаётся HTTP/2-клиент Feign: его внутренние задачи
+ * по умолчанию идут в пул платформенных потоков. @Async включается только в этом режиме, где каждая
+ * задача получает свой виртуальный поток.
+ */
+@Configuration
+public class ExecutionConfig {
+
+    @Configuration
+    @EnableAsync
+    @ConditionalOnThreading(Threading.VIRTUAL)
+    static class VirtualThreadAsyncConfig {
+    }
+
+    @Bean
+    @ConditionalOnThreading(Threading.VIRTUAL)
+    @ConditionalOnProperty(prefix = "spring.cloud.openfeign.http2client", name = "enabled", havingValue = "true")
+    public HttpClient feignHttpClient(FeignHttpClientProperties properties) {
+        return HttpClient.newBuilder()
+                .version(HttpClient.Version.valueOf(properties.getHttp2().getVersion()))
+                .connectTimeout(Duration.ofMillis(properties.getConnectionTimeout()))
+                .followRedirects(properties.isFollowRedirects()
+                        ? HttpClient.Redirect.ALWAYS
+                        : HttpClient.Redirect.NEVER)
+                .executor(Executors.newVirtualThreadPerTaskExecutor())
+                .build();
+    }
+}
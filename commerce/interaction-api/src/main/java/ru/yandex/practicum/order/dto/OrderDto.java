@@ -7,13 +7,14 @@ import lombok.NoArgsConstructor;
 import ru.yandex.practicum.order.enums.OrderState;
 
 import java.math.BigDecimal;
+import java.time.Instant;
 import java.util.Map;
 import java.util.UUID;
 
 @Data
 @NoArgsConstructor
 @AllArgsConstructor
-@Builder
+@Builder(toBuilder = true)
 public class OrderDto {
     private UUID orderId;
     private UUID shoppingCartId;
@@ -27,4 +28,5 @@ public class OrderDto {
     private BigDecimal totalPrice;
     private BigDecimal deliveryPrice;
     private BigDecimal productPrice;
+    private Instant createdAt;
 }
@@ -0,0 +1,21 @@
+package ru.yandex.practicum.order.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class OrderHistoryPageDto {
+    private List<OrderDto> content;
+
+    /**
+     * Курсор следующей (более старой) страницы или null, если заказов больше нет.
+     */
+    private String nextCursor;
+}
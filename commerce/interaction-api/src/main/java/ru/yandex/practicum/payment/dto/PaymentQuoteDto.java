@@ -0,0 +1,25 @@
+package ru.yandex.practicum.payment.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.math.BigDecimal;
+import java.util.UUID;
+
+/**
+ * Расчёт стоимости заказа по одному снимку цен. deliveryTotal и total пусты, если стоимость доставки
+ * в заказе ещё не известна.
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class PaymentQuoteDto {
+    private UUID orderId;
+    private BigDecimal productTotal;
+    private BigDecimal vat;
+    private BigDecimal deliveryTotal;
+    private BigDecimal total;
+}
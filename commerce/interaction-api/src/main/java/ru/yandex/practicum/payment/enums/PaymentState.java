@@ -3,5 +3,6 @@ package ru.yandex.practicum.payment.enums;
 public enum PaymentState {
     PENDING,
     SUCCESS,
-    FAILED
+    FAILED,
+    CANCELLED
 }
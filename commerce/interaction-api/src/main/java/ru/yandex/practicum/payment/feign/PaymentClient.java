@@ -5,8 +5,11 @@ import org.springframework.web.bind.annotation.PostMapping;
 import org.springframework.web.bind.annotation.RequestBody;
 import ru.yandex.practicum.order.dto.OrderDto;
 import ru.yandex.practicum.payment.dto.PaymentDto;
+import ru.yandex.practicum.payment.dto.PaymentQuoteDto;
 
 import java.math.BigDecimal;
+import java.util.Collection;
+import java.util.List;
 
 @FeignClient(name = "payment-service", path = "/api/v1/payment")
 public interface PaymentClient {
@@ -19,4 +22,13 @@ public interface PaymentClient {
 
     @PostMapping
     PaymentDto payment(@RequestBody OrderDto orderDto);
+
+    /**
+     * Стоимость товаров, НДС и итог по одному снимку цен.
+     */
+    @PostMapping("/quote")
+    PaymentQuoteDto quote(@RequestBody OrderDto orderDto);
+
+    @PostMapping("/quotes")
+    List<PaymentQuoteDto> quotes(@RequestBody Collection<OrderDto> orders);
 }
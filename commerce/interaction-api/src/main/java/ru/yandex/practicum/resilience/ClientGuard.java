@@ -0,0 +1,65 @@
+package ru.yandex.practicum.resilience;
+
+import feign.Request;
+import io.github.resilience4j.bulkhead.Bulkhead;
+import io.github.resilience4j.circuitbreaker.CircuitBreaker;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Защитные механизмы одного удалённого сервиса.
+ */
+final class ClientGuard {
+    final String name;
+    final CircuitBreaker circuitBreaker;
+    final Bulkhead bulkhead;
+    final LatencyWindow latency;
+    final Timer calls;
+    final Counter hedgesFired;
+    final Counter hedgesWon;
+
+    private final ResilienceConfig.Timeout timeout;
+
+    ClientGuard(String name,
+                CircuitBreaker circuitBreaker,
+                Bulkhead bulkhead,
+                ResilienceConfig.Timeout timeout,
+                MeterRegistry meterRegistry) {
+        this.name = name;
+        this.circuitBreaker = circuitBreaker;
+        this.bulkhead = bulkhead;
+        this.timeout = timeout;
+        this.latency = new LatencyWindow(timeout.getWindow(), timeout.getMinSamples());
+        this.calls = Timer.builder("feign.client.calls")
+                .tag("client", name)
+                .publishPercentiles(0.5, 0.99)
+                .register(meterRegistry);
+        this.hedgesFired = meterRegistry.counter("feign.client.hedges", "client", name, "outcome", "fired");
+        this.hedgesWon = meterRegistry.counter("feign.client.hedges", "client", name, "outcome", "won");
+        Gauge.builder("feign.client.timeout", this, ClientGuard::readTimeoutMillis)
+                .tag("client", name)
+                .baseUnit("milliseconds")
+                .register(meterRegistry);
+    }
+
+    /**
+     * Таймаут чтения: перцентиль наблюдаемой задержки с запасом, в пределах [min, max].
+     */
+    long readTimeoutMillis() {
+        long observed = latency.percentile(timeout.getPercentile());
+        if (observed < 0) {
+            return timeout.getMax().toMillis();
+        }
+        long adaptive = (long) (TimeUnit.NANOSECONDS.toMillis(observed) * timeout.getMultiplier());
+        return Math.clamp(adaptive, timeout.getMin().toMillis(), timeout.getMax().toMillis());
+    }
+
+    Request.Options options(Request.Options original) {
+        return new Request.Options(original.connectTimeout(), original.connectTimeoutUnit(),
+                readTimeoutMillis(), TimeUnit.MILLISECONDS, original.isFollowRedirects());
+    }
+}
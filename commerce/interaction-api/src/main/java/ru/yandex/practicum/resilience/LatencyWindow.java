@@ -0,0 +1,54 @@
+package ru.yandex.practicum.resilience;
+
+import java.util.Arrays;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Последние N задержек успешных вызовов. Перцентили читаются из отсортированного снимка,
+ * который пересобирается раз в несколько записей, а не на каждый вызов.
+ */
+final class LatencyWindow {
+    private static final int REBUILD_EVERY = 16;
+
+    private final long[] samples;
+    private final int minSamples;
+    private final ReentrantLock lock = new ReentrantLock();
+    private int next;
+    private int count;
+    private int sinceRebuild;
+    private volatile long[] sorted = new long[0];
+
+    LatencyWindow(int size, int minSamples) {
+        this.samples = new long[Math.max(size, 1)];
+        this.minSamples = minSamples;
+    }
+
+    void record(long nanos) {
+        lock.lock();
+        try {
+            samples[next] = nanos;
+            next = (next + 1) % samples.length;
+            count = Math.min(count + 1, samples.length);
+            if (++sinceRebuild >= REBUILD_EVERY || sorted.length < minSamples) {
+                long[] snapshot = Arrays.copyOf(samples, count);
+                Arrays.sort(snapshot);
+                sorted = snapshot;
+                sinceRebuild = 0;
+            }
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * @return перцентиль в наносекундах или -1, если данных пока мало
+     */
+    long percentile(double quantile) {
+        long[] snapshot = sorted;
+        if (snapshot.length < minSamples) {
+            return -1;
+        }
+        int index = (int) Math.ceil(quantile * snapshot.length) - 1;
+        return snapshot[Math.clamp(index, 0, snapshot.length - 1)];
+    }
+}
@@ -0,0 +1,14 @@
+package ru.yandex.practicum.resilience;
+
+import org.springframework.http.HttpStatus;
+import org.springframework.web.bind.annotation.ResponseStatus;
+
+/**
+ * Вызов не выполнялся: открыт circuit breaker или исчерпан bulkhead клиента.
+ */
+@ResponseStatus(HttpStatus.SERVICE_UNAVAILABLE)
+public class RemoteServiceUnavailableException extends RuntimeException {
+    public RemoteServiceUnavailableException(String message) {
+        super(message);
+    }
+}
@@ -0,0 +1,62 @@
+package ru.yandex.practicum.resilience;
+
+import feign.Capability;
+import feign.Client;
+import io.github.resilience4j.bulkhead.BulkheadConfig;
+import io.github.resilience4j.bulkhead.BulkheadRegistry;
+import io.github.resilience4j.circuitbreaker.CircuitBreakerConfig;
+import io.github.resilience4j.circuitbreaker.CircuitBreakerRegistry;
+import io.github.resilience4j.micrometer.tagged.TaggedBulkheadMetrics;
+import io.github.resilience4j.micrometer.tagged.TaggedCircuitBreakerMetrics;
+import io.micrometer.core.instrument.MeterRegistry;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Оборачивает HTTP-клиент каждого @FeignClient в {@link ResilientClient}. Состояние (circuit breaker,
+ * bulkhead, окно задержек) заводится на имя клиента и общее для всех его методов.
+ */
+public class ResilienceCapability implements Capability {
+    private final ResilienceConfig config;
+    private final MeterRegistry meterRegistry;
+    private final CircuitBreakerRegistry circuitBreakers;
+    private final BulkheadRegistry bulkheads;
+    private final Map<String, ClientGuard> guards = new ConcurrentHashMap<>();
+
+    public ResilienceCapability(ResilienceConfig config, MeterRegistry meterRegistry) {
+        this.config = config;
+        this.meterRegistry = meterRegistry;
+
+        ResilienceConfig.CircuitBreaker breaker = config.getCircuitBreaker();
+        this.circuitBreakers = CircuitBreakerRegistry.of(CircuitBreakerConfig.custom()
+                .failureRateThreshold(breaker.getFailureRateThreshold())
+                .slidingWindowSize(breaker.getSlidingWindowSize())
+                .minimumNumberOfCalls(breaker.getMinimumNumberOfCalls())
+                .waitDurationInOpenState(breaker.getWaitInOpenState())
+                .build());
+        this.bulkheads = BulkheadRegistry.of(BulkheadConfig.custom()
+                .maxConcurrentCalls(config.getBulkhead().getMaxConcurrentCalls())
+                .maxWaitDuration(config.getBulkhead().getMaxWait())
+                .build());
+
+        TaggedCircuitBreakerMetrics.ofCircuitBreakerRegistry(circuitBreakers).bindTo(meterRegistry);
+        TaggedBulkheadMetrics.ofBulkheadRegistry(bulkheads).bindTo(meterRegistry);
+    }
+
+    @Override
+    public Client enrich(Client client) {
+        return new ResilientClient(client, this::guard, config);
+    }
+
+    ClientGuard guard(String clientName) {
+        return guards.computeIfAbsent(clientName, name -> new ClientGuard(name,
+                circuitBreakers.circuitBreaker(name),
+                bulkheads.bulkhead(name, BulkheadConfig.from(bulkheads.getDefaultConfig())
+                        .maxConcurrentCalls(config.getBulkhead().getClients()
+                                .getOrDefault(name, config.getBulkhead().getMaxConcurrentCalls()))
+                        .build()),
+                config.getTimeout(),
+                meterRegistry));
+    }
+}
@@ -0,0 +1,94 @@
+package ru.yandex.practicum.resilience;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.Data;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+import java.time.Duration;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Set;
+
+@Data
+@Configuration
+@ConditionalOnProperty(prefix = "commerce.resilience", name = "enabled", havingValue = "true")
+@ConfigurationProperties("commerce.resilience")
+public class ResilienceConfig {
+    private boolean enabled;
+
+    private Bulkhead bulkhead = new Bulkhead();
+
+    private Timeout timeout = new Timeout();
+
+    private CircuitBreaker circuitBreaker = new CircuitBreaker();
+
+    private Hedging hedging = new Hedging();
+
+    @Bean
+    public ResilienceCapability resilienceCapability(MeterRegistry meterRegistry) {
+        return new ResilienceCapability(this, meterRegistry);
+    }
+
+    @Data
+    public static class Bulkhead {
+        private int maxConcurrentCalls = 64;
+
+        /**
+         * Сколько вызов ждёт свободного места, прежде чем получить отказ.
+         */
+        private Duration maxWait = Duration.ZERO;
+
+        /**
+         * Лимиты для отдельных клиентов по имени @FeignClient.
+         */
+        private Map<String, Integer> clients = new HashMap<>();
+    }
+
+    @Data
+    public static class Timeout {
+        private Duration min = Duration.ofMillis(200);
+
+        /**
+         * Используется, пока не набралось minSamples успешных вызовов.
+         */
+        private Duration max = Duration.ofSeconds(10);
+
+        private double percentile = 0.99;
+
+        private double multiplier = 3.0;
+
+        private int window = 256;
+
+        private int minSamples = 32;
+    }
+
+    @Data
+    public static class CircuitBreaker {
+        private float failureRateThreshold = 50;
+
+        private int slidingWindowSize = 50;
+
+        private int minimumNumberOfCalls = 20;
+
+        private Duration waitInOpenState = Duration.ofSeconds(10);
+    }
+
+    @Data
+    public static class Hedging {
+        /**
+         * Идемпотентные GET-методы в формате Feign configKey, например ShoppingStoreClient#getProduct(UUID).
+         */
+        private Set<String> methods = new HashSet<>();
+
+        /**
+         * Повторный запрос уходит, если первый не ответил за этот перцентиль задержки клиента.
+         */
+        private double percentile = 0.95;
+
+        private Duration minDelay = Duration.ofMillis(20);
+    }
+}
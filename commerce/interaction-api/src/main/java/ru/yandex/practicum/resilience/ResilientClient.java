@@ -0,0 +1,156 @@
+package ru.yandex.practicum.resilience;
+
+import feign.Client;
+import feign.Request;
+import feign.Response;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Function;
+
+/**
+ * HTTP-вызов Feign под circuit breaker и bulkhead клиента, с адаптивным таймаутом чтения.
+ * Для перечисленных в конфигурации идемпотентных GET, если ответ задерживается дольше обычного,
+ * отправляется второй запрос (через балансировщик, обычно на другой экземпляр) и берётся первый успешный.
+ */
+class ResilientClient implements Client {
+    private static final ExecutorService HEDGE_EXECUTOR = Executors.newVirtualThreadPerTaskExecutor();
+
+    private final Client delegate;
+    private final Function<String, ClientGuard> guards;
+    private final ResilienceConfig config;
+
+    ResilientClient(Client delegate, Function<String, ClientGuard> guards, ResilienceConfig config) {
+        this.delegate = delegate;
+        this.guards = guards;
+        this.config = config;
+    }
+
+    @Override
+    public Response execute(Request request, Request.Options options) throws IOException {
+        ClientGuard guard = guards.apply(request.requestTemplate().feignTarget().name());
+
+        if (!guard.circuitBreaker.tryAcquirePermission()) {
+            throw new RemoteServiceUnavailableException(guard.name + ": circuit breaker is open");
+        }
+        if (!guard.bulkhead.tryAcquirePermission()) {
+            guard.circuitBreaker.releasePermission();
+            throw new RemoteServiceUnavailableException(guard.name + ": too many concurrent calls");
+        }
+
+        long start = System.nanoTime();
+        try {
+            Request.Options adaptive = guard.options(options);
+            Response response = isHedged(request)
+                    ? executeHedged(guard, request, adaptive)
+                    : delegate.execute(request, adaptive);
+
+            long elapsed = System.nanoTime() - start;
+            guard.calls.record(elapsed, TimeUnit.NANOSECONDS);
+            if (response.status() >= 500) {
+                guard.circuitBreaker.onError(elapsed, TimeUnit.NANOSECONDS,
+                        new IOException(guard.name + " responded " + response.status()));
+            } else {
+                guard.circuitBreaker.onSuccess(elapsed, TimeUnit.NANOSECONDS);
+                guard.latency.record(elapsed);
+            }
+            return response;
+        } catch (IOException | RuntimeException e) {
+            guard.circuitBreaker.onError(System.nanoTime() - start, TimeUnit.NANOSECONDS, e);
+            throw e;
+        } finally {
+            guard.bulkhead.onComplete();
+        }
+    }
+
+    private boolean isHedged(Request request) {
+        return request.httpMethod() == Request.HttpMethod.GET
+                && request.requestTemplate().methodMetadata() != null
+                && config.getHedging().getMethods().contains(request.requestTemplate().methodMetadata().configKey());
+    }
+
+    private Response executeHedged(ClientGuard guard, Request request, Request.Options options) throws IOException {
+        long observed = guard.latency.percentile(config.getHedging().getPercentile());
+        if (observed < 0) {
+            return delegate.execute(request, options);
+        }
+        long delayNanos = Math.max(observed, config.getHedging().getMinDelay().toNanos());
+
+        CompletableFuture<Response> primary = submit(request, options);
+        try {
+            return primary.get(delayNanos, TimeUnit.NANOSECONDS);
+        } catch (TimeoutException e) {
+            guard.hedgesFired.increment();
+        } catch (ExecutionException e) {
+            throw unwrap(e);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            primary.cancel(true);
+            throw new IOException("interrupted", e);
+        }
+
+        CompletableFuture<Response> backup = submit(request, options);
+        CompletableFuture<Response> winner = new CompletableFuture<>();
+        AtomicInteger failures = new AtomicInteger();
+        for (CompletableFuture<Response> attempt : List.of(primary, backup)) {
+            attempt.whenComplete((response, error) -> {
+                if (error == null) {
+                    if (!winner.complete(response)) {
+                        response.close();
+                    }
+                } else if (failures.incrementAndGet() == 2) {
+                    winner.completeExceptionally(error);
+                }
+            });
+        }
+
+        try {
+            Response response = winner.get();
+            if (backup.isDone() && !backup.isCompletedExceptionally() && backup.getNow(null) == response) {
+                guard.hedgesWon.increment();
+            }
+            return response;
+        } catch (ExecutionException e) {
+            throw unwrap(e);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IOException("interrupted", e);
+        }
+    }
+
+    private CompletableFuture<Response> submit(Request request, Request.Options options) {
+        return CompletableFuture.supplyAsync(() -> {
+            try {
+                return delegate.execute(request, options);
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        }, HEDGE_EXECUTOR);
+    }
+
+    private static IOException unwrap(ExecutionException e) {
+        Throwable cause = e.getCause();
+        while (cause instanceof CompletionException && cause.getCause() != null) {
+            cause = cause.getCause();
+        }
+        if (cause instanceof UncheckedIOException unchecked) {
+            return unchecked.getCause();
+        }
+        if (cause instanceof IOException io) {
+            return io;
+        }
+        if (cause instanceof RuntimeException runtime) {
+            throw runtime;
+        }
+        return new IOException(cause);
+    }
+}
@@ -0,0 +1,26 @@
+package ru.yandex.practicum.saga.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import ru.yandex.practicum.order.enums.OrderState;
+import ru.yandex.practicum.saga.enums.OrderEventType;
+
+import java.time.Instant;
+import java.util.UUID;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class OrderEvent {
+    private UUID eventId;
+    private UUID orderId;
+    private OrderEventType type;
+    /**
+     * Новое состояние заказа, заполняется только для {@link OrderEventType#ORDER_STATE_CHANGED}.
+     */
+    private OrderState state;
+    private Instant occurredAt;
+}
@@ -0,0 +1,13 @@
+package ru.yandex.practicum.saga.enums;
+
+public enum OrderEventType {
+    ORDER_STATE_CHANGED,
+    PAYMENT_SUCCEEDED,
+    PAYMENT_FAILED,
+    DELIVERY_SUCCEEDED,
+    DELIVERY_FAILED,
+    /**
+     * Заказ не был создан; участники отменяют то, что успели сделать для него.
+     */
+    ORDER_ABORTED
+}
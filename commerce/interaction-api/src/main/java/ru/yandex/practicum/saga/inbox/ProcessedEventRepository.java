@@ -0,0 +1,40 @@
+package ru.yandex.practicum.saga.inbox;
+
+import lombok.RequiredArgsConstructor;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.jdbc.core.namedparam.MapSqlParameterSource;
+import org.springframework.jdbc.core.namedparam.NamedParameterJdbcTemplate;
+import org.springframework.stereotype.Repository;
+
+import java.sql.Timestamp;
+import java.time.Instant;
+import java.util.UUID;
+
+/**
+ * События саги, уже обработанные этим сервисом. Нужна потому, что outbox доставляет события at-least-once.
+ */
+@Repository
+@ConditionalOnProperty(prefix = "saga", name = "enabled", havingValue = "true")
+@RequiredArgsConstructor
+public class ProcessedEventRepository {
+    private static final String MARK_SQL = """
+            INSERT INTO processed_events (event_id, processed_at)
+            VALUES (:eventId, :now)
+            ON CONFLICT (event_id) DO NOTHING""";
+
+    private final NamedParameterJdbcTemplate jdbcTemplate;
+
+    /**
+     * @return true, если событие встречено впервые; false, если оно уже обработано
+     */
+    public boolean markProcessed(UUID eventId) {
+        return jdbcTemplate.update(MARK_SQL, new MapSqlParameterSource()
+                .addValue("eventId", eventId)
+                .addValue("now", Timestamp.from(Instant.now()))) > 0;
+    }
+
+    public int purgeOlderThan(Instant threshold) {
+        return jdbcTemplate.update("DELETE FROM processed_events WHERE processed_at < :threshold",
+                new MapSqlParameterSource("threshold", Timestamp.from(threshold)));
+    }
+}
@@ -0,0 +1,65 @@
+package ru.yandex.practicum.saga.inbox;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionTemplate;
+import ru.yandex.practicum.saga.dto.OrderEvent;
+import ru.yandex.practicum.saga.outbox.SagaConfig;
+
+import java.time.Instant;
+import java.util.Optional;
+import java.util.function.Consumer;
+
+/**
+ * Приём событий саги с отбрасыванием повторов: отметка о событии пишется в одной транзакции с его обработкой,
+ * поэтому повторно доставленное событие не применяется второй раз, а упавшая обработка будет повторена.
+ */
+@Slf4j
+@Component
+@ConditionalOnProperty(prefix = "saga", name = "enabled", havingValue = "true")
+@RequiredArgsConstructor
+public class SagaInbox {
+    private final ProcessedEventRepository processedEventRepository;
+    private final TransactionTemplate transactionTemplate;
+    private final ObjectMapper objectMapper;
+    private final SagaConfig sagaConfig;
+
+    public Optional<OrderEvent> parse(String payload) {
+        try {
+            return Optional.of(objectMapper.readValue(payload, OrderEvent.class));
+        } catch (JsonProcessingException e) {
+            log.error("Не удалось разобрать событие саги: {}", payload, e);
+            return Optional.empty();
+        }
+    }
+
+    /**
+     * Обрабатывает событие, если сервис его ещё не видел.
+     */
+    public void handleOnce(OrderEvent event, Consumer<OrderEvent> handler) {
+        transactionTemplate.executeWithoutResult(status -> {
+            if (!processedEventRepository.markProcessed(event.getEventId())) {
+                log.debug("Повтор события саги {} пропущен", event.getEventId());
+                return;
+            }
+            handler.accept(event);
+        });
+    }
+
+    @Scheduled(fixedDelayString = "${saga.processed-events-purge-interval-ms:3600000}")
+    public void purge() {
+        try {
+            int purged = processedEventRepository.purgeOlderThan(Instant.now().minus(sagaConfig.getProcessedEventsTtl()));
+            if (purged > 0) {
+                log.info("Удалено {} отметок об обработанных событиях саги", purged);
+            }
+        } catch (Exception e) {
+            log.warn("Не удалось очистить processed_events: {}", e.getMessage());
+        }
+    }
+}
@@ -0,0 +1,14 @@
+package ru.yandex.practicum.saga.outbox;
+
+import lombok.Builder;
+import ru.yandex.practicum.saga.enums.OrderEventType;
+
+import java.time.Instant;
+import java.util.UUID;
+
+/**
+ * Строка outbox_events: сериализованное событие саги, ожидающее отправки в Kafka.
+ */
+@Builder
+public record OutboxEvent(UUID eventId, UUID aggregateId, OrderEventType type, String payload, Instant createdAt) {
+}
@@ -0,0 +1,93 @@
+package ru.yandex.practicum.saga.outbox;
+
+import lombok.RequiredArgsConstructor;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.jdbc.core.RowMapper;
+import org.springframework.jdbc.core.namedparam.MapSqlParameterSource;
+import org.springframework.jdbc.core.namedparam.NamedParameterJdbcTemplate;
+import org.springframework.stereotype.Repository;
+import ru.yandex.practicum.saga.enums.OrderEventType;
+
+import java.sql.Timestamp;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.List;
+import java.util.UUID;
+
+/**
+ * Таблица outbox_events есть только у сервисов, запущенных с {@code saga.enabled}.
+ */
+@Repository
+@ConditionalOnProperty(prefix = "saga", name = "enabled", havingValue = "true")
+@RequiredArgsConstructor
+public class OutboxEventRepository {
+    private static final String INSERT_SQL = """
+            INSERT INTO outbox_events (event_id, aggregate_id, event_type, payload, created_at)
+            VALUES (:eventId, :aggregateId, :type, :payload, :createdAt)""";
+
+    private static final String CLAIM_UNPUBLISHED_SQL = """
+            UPDATE outbox_events
+            SET claimed_until = :claimedUntil
+            WHERE event_id IN (
+                SELECT event_id
+                FROM outbox_events o
+                WHERE published_at IS NULL AND (claimed_until IS NULL OR claimed_until < :now)
+                  AND NOT EXISTS (
+                      SELECT 1
+                      FROM outbox_events e
+                      WHERE e.aggregate_id = o.aggregate_id
+                        AND e.published_at IS NULL
+                        AND (e.created_at, e.event_id) < (o.created_at, o.event_id))
+                ORDER BY created_at
+                LIMIT :limit
+                FOR UPDATE SKIP LOCKED)
+            RETURNING event_id, aggregate_id, event_type, payload, created_at""";
+
+    private static final String MARK_PUBLISHED_SQL = """
+            UPDATE outbox_events SET published_at = :now WHERE event_id IN (:ids)""";
+
+    private static final RowMapper<OutboxEvent> ROW_MAPPER = (rs, rowNum) -> OutboxEvent.builder()
+            .eventId(rs.getObject("event_id", UUID.class))
+            .aggregateId(rs.getObject("aggregate_id", UUID.class))
+            .type(OrderEventType.valueOf(rs.getString("event_type")))
+            .payload(rs.getString("payload"))
+            .createdAt(rs.getTimestamp("created_at").toInstant())
+            .build();
+
+    private final NamedParameterJdbcTemplate jdbcTemplate;
+
+    public void insert(OutboxEvent event) {
+        jdbcTemplate.update(INSERT_SQL, new MapSqlParameterSource()
+                .addValue("eventId", event.eventId())
+                .addValue("aggregateId", event.aggregateId())
+                .addValue("type", event.type().name())
+                .addValue("payload", event.payload())
+                .addValue("createdAt", Timestamp.from(event.createdAt())));
+    }
+
+    /**
+     * Одним коротким запросом забирает пачку неопубликованных событий до claimedUntil. Блокировки строк
+     * снимаются сразу, а другие ретрансляторы не возьмут эти события, пока не истечёт срок захвата.
+     * Из событий одного агрегата берётся только самое раннее неопубликованное: следующее уйдёт после него,
+     * даже если его отправка не удалась, поэтому потребители видят события заказа по порядку.
+     *
+     * @return события в порядке создания
+     */
+    public List<OutboxEvent> claimUnpublished(int limit, Instant claimedUntil) {
+        List<OutboxEvent> events = new ArrayList<>(jdbcTemplate.query(CLAIM_UNPUBLISHED_SQL, new MapSqlParameterSource()
+                        .addValue("limit", limit)
+                        .addValue("now", Timestamp.from(Instant.now()))
+                        .addValue("claimedUntil", Timestamp.from(claimedUntil)),
+                ROW_MAPPER));
+        events.sort(Comparator.comparing(OutboxEvent::createdAt));
+        return events;
+    }
+
+    public void markPublished(Collection<UUID> eventIds) {
+        jdbcTemplate.update(MARK_PUBLISHED_SQL, new MapSqlParameterSource()
+                .addValue("ids", eventIds)
+                .addValue("now", Timestamp.from(Instant.now())));
+    }
+}
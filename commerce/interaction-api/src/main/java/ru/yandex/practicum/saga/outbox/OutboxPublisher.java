@@ -0,0 +1,59 @@
+package ru.yandex.practicum.saga.outbox;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import lombok.RequiredArgsConstructor;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+import ru.yandex.practicum.order.enums.OrderState;
+import ru.yandex.practicum.saga.dto.OrderEvent;
+import ru.yandex.practicum.saga.enums.OrderEventType;
+
+import java.time.Instant;
+import java.util.UUID;
+
+/**
+ * Записывает событие саги в outbox в той же транзакции, что и изменение локального состояния.
+ * В Kafka события уходят через {@link OutboxRelay}. Есть только у сервисов, запущенных с {@code saga.enabled}.
+ */
+@Component
+@ConditionalOnProperty(prefix = "saga", name = "enabled", havingValue = "true")
+@RequiredArgsConstructor
+public class OutboxPublisher {
+    private final OutboxEventRepository outboxEventRepository;
+    private final ObjectMapper objectMapper;
+
+    @Transactional(propagation = Propagation.MANDATORY)
+    public void publish(UUID orderId, OrderEventType type) {
+        publish(orderId, type, null);
+    }
+
+    @Transactional(propagation = Propagation.MANDATORY)
+    public void publish(UUID orderId, OrderEventType type, OrderState state) {
+        OrderEvent event = OrderEvent.builder()
+                .eventId(UUID.randomUUID())
+                .orderId(orderId)
+                .type(type)
+                .state(state)
+                .occurredAt(Instant.now())
+                .build();
+
+        outboxEventRepository.insert(OutboxEvent.builder()
+                .eventId(event.getEventId())
+                .aggregateId(orderId)
+                .type(type)
+                .payload(toJson(event))
+                .createdAt(event.getOccurredAt())
+                .build());
+    }
+
+    private String toJson(OrderEvent event) {
+        try {
+            return objectMapper.writeValueAsString(event);
+        } catch (JsonProcessingException e) {
+            throw new IllegalStateException("Не удалось сериализовать событие " + event.getType(), e);
+        }
+    }
+}
@@ -0,0 +1,82 @@
+package ru.yandex.practicum.saga.outbox;
+
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.kafka.core.KafkaTemplate;
+import org.springframework.kafka.support.SendResult;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+
+/**
+ * Ретранслирует outbox в Kafka. Пачка захватывается коротким запросом, отправляется вне транзакции
+ * и помечается опубликованной вторым запросом, поэтому строки не заблокированы на время ожидания брокера.
+ * Доставка at-least-once: событие, не подтверждённое брокером или не отмеченное после отправки,
+ * уйдёт снова по истечении {@code saga.claim-timeout}, поэтому потребители отбрасывают повторы по eventId.
+ */
+@Slf4j
+@Component
+@ConditionalOnProperty(prefix = "saga", name = "enabled", havingValue = "true")
+@RequiredArgsConstructor
+public class OutboxRelay {
+    private final OutboxEventRepository outboxEventRepository;
+    private final KafkaTemplate<String, String> kafkaTemplate;
+    private final SagaConfig sagaConfig;
+
+    @Scheduled(fixedDelayString = "${saga.relay-interval-ms:500}")
+    public void relay() {
+        try {
+            int claimed;
+            do {
+                claimed = relayBatch();
+            } while (claimed == sagaConfig.getRelayBatchSize());
+        } catch (Exception e) {
+            log.warn("Outbox relay failed, will retry: {}", e.getMessage());
+        }
+    }
+
+    private int relayBatch() {
+        List<OutboxEvent> batch = outboxEventRepository.claimUnpublished(sagaConfig.getRelayBatchSize(),
+                Instant.now().plus(sagaConfig.getClaimTimeout()));
+        if (batch.isEmpty()) {
+            return 0;
+        }
+
+        List<CompletableFuture<SendResult<String, String>>> sends = new ArrayList<>(batch.size());
+        for (OutboxEvent event : batch) {
+            sends.add(kafkaTemplate.send(sagaConfig.getTopic(), event.aggregateId().toString(), event.payload()));
+        }
+
+        try {
+            CompletableFuture.allOf(sends.toArray(CompletableFuture[]::new))
+                    .get(sagaConfig.getSendTimeout().toMillis(), TimeUnit.MILLISECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Outbox relay interrupted", e);
+        } catch (ExecutionException | TimeoutException e) {
+            log.warn("Kafka не подтвердила часть пачки outbox: {}", e.getMessage());
+        }
+
+        List<UUID> published = new ArrayList<>(batch.size());
+        for (int i = 0; i < batch.size(); i++) {
+            CompletableFuture<SendResult<String, String>> send = sends.get(i);
+            if (send.isDone() && !send.isCompletedExceptionally()) {
+                published.add(batch.get(i).eventId());
+            }
+        }
+        if (!published.isEmpty()) {
+            outboxEventRepository.markPublished(published);
+        }
+        log.debug("Outbox relay published {} of {} events", published.size(), batch.size());
+        return batch.size();
+    }
+}
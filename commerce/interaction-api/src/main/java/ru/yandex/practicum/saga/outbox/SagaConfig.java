@@ -0,0 +1,38 @@
+package ru.yandex.practicum.saga.outbox;
+
+import lombok.Data;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.scheduling.annotation.EnableScheduling;
+
+import java.time.Duration;
+
+@Data
+@Configuration
+@EnableScheduling
+@ConditionalOnProperty(prefix = "saga", name = "enabled", havingValue = "true")
+@ConfigurationProperties("saga")
+public class SagaConfig {
+    private boolean enabled;
+
+    private String topic = "commerce.order-events.v1";
+
+    /**
+     * Сколько событий outbox ретранслятор забирает за один проход.
+     */
+    private int relayBatchSize = 100;
+
+    private Duration sendTimeout = Duration.ofSeconds(5);
+
+    /**
+     * На сколько ретранслятор забирает пачку. Должно быть больше sendTimeout: по истечении событие,
+     * не отмеченное опубликованным, отправит следующий проход.
+     */
+    private Duration claimTimeout = Duration.ofSeconds(30);
+
+    /**
+     * Сколько хранить отметки об обработанных событиях. Должно покрывать самый долгий повтор доставки.
+     */
+    private Duration processedEventsTtl = Duration.ofDays(7);
+}
@@ -0,0 +1,24 @@
+package ru.yandex.practicum.shoppingCart.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import ru.yandex.practicum.shoppingCart.enums.CartBookingState;
+import ru.yandex.practicum.warehouse.dto.BookedProductsDto;
+
+import java.util.UUID;
+
+/**
+ * Состояние асинхронной брони корзины на складе. bookedProducts заполнен для BOOKED, error — для FAILED.
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class CartBookingDto {
+    private UUID shoppingCartId;
+    private CartBookingState state;
+    private BookedProductsDto bookedProducts;
+    private String error;
+}
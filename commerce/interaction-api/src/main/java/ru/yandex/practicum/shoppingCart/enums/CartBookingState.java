@@ -0,0 +1,7 @@
+package ru.yandex.practicum.shoppingCart.enums;
+
+public enum CartBookingState {
+    PENDING,
+    BOOKED,
+    FAILED
+}
@@ -2,11 +2,15 @@ package ru.yandex.practicum.shoppingCart.feign;
 
 import org.springframework.cloud.openfeign.FeignClient;
 import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PathVariable;
 import org.springframework.web.bind.annotation.PostMapping;
 import org.springframework.web.bind.annotation.RequestParam;
+import ru.yandex.practicum.shoppingCart.dto.CartBookingDto;
 import ru.yandex.practicum.shoppingCart.dto.ShoppingCartDto;
 import ru.yandex.practicum.warehouse.dto.BookedProductsDto;
 
+import java.util.UUID;
+
 
 @FeignClient(name = "shopping-cart-service", path = "/api/v1/shopping-cart")
 public interface ShoppingCartClient {
@@ -16,4 +20,10 @@ public interface ShoppingCartClient {
 
     @PostMapping("/booking")
     BookedProductsDto bookProducts(@RequestParam String username);
+
+    @PostMapping("/booking/async")
+    CartBookingDto submitBooking(@RequestParam String username);
+
+    @GetMapping("/booking/{shoppingCartId}")
+    CartBookingDto getBooking(@RequestParam String username, @PathVariable UUID shoppingCartId);
 }
@@ -0,0 +1,89 @@
+package ru.yandex.practicum.shoppingStore.cache;
+
+import com.github.benmanes.caffeine.cache.AsyncCache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import ru.yandex.practicum.cache.LoadingFutures;
+import ru.yandex.practicum.shoppingStore.dto.ProductDto;
+import ru.yandex.practicum.shoppingStore.dto.SetProductQuantityStateRequest;
+import ru.yandex.practicum.shoppingStore.feign.ShoppingStoreClient;
+
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+/**
+ * Near-cache карточек товаров поверх Feign-клиента. Параллельные запросы одного id ждут один и тот же
+ * незавершённый вызов, а пакетный запрос идёт в shopping-store только за отсутствующими id.
+ * Записи сбрасываются по событиям из топика изменений товаров и после собственных изменений.
+ */
+public class CachingShoppingStoreClient implements ShoppingStoreClient {
+    private final ShoppingStoreClient delegate;
+    private final ExecutorService loader = Executors.newVirtualThreadPerTaskExecutor();
+    private final AsyncCache<UUID, ProductDto> cache;
+
+    public CachingShoppingStoreClient(ShoppingStoreClient delegate, NearCacheConfig config, MeterRegistry meterRegistry) {
+        this.delegate = delegate;
+        this.cache = Caffeine.newBuilder()
+                .maximumSize(config.getMaximumSize())
+                .expireAfterWrite(config.getExpireAfterWrite())
+                .executor(loader)
+                .recordStats()
+                .buildAsync();
+        CaffeineCacheMetrics.monitor(meterRegistry, cache.synchronous(), "products-near");
+    }
+
+    @Override
+    public ProductDto getProduct(UUID productId) {
+        return LoadingFutures.join(cache.get(productId, (id, executor) ->
+                CompletableFuture.supplyAsync(() -> delegate.getProduct(id), executor)));
+    }
+
+    @Override
+    public List<ProductDto> getProductsByIds(Collection<UUID> productIds) {
+        Map<UUID, ProductDto> found = LoadingFutures.join(cache.getAll(productIds, (missing, executor) ->
+                CompletableFuture.supplyAsync(() -> delegate.getProductsByIds(List.copyOf(missing)).stream()
+                        .collect(Collectors.toMap(ProductDto::getProductId, Function.identity())), executor)));
+        return productIds.stream()
+                .distinct()
+                .map(found::get)
+                .filter(Objects::nonNull)
+                .toList();
+    }
+
+    @Override
+    public boolean setProductQuantityState(SetProductQuantityStateRequest request) {
+        try {
+            return delegate.setProductQuantityState(request);
+        } finally {
+            invalidate(request.getProductId());
+        }
+    }
+
+    @Override
+    public boolean setProductQuantityStates(List<SetProductQuantityStateRequest> requests) {
+        try {
+            return delegate.setProductQuantityStates(requests);
+        } finally {
+            cache.synchronous().invalidateAll(requests.stream()
+                    .map(SetProductQuantityStateRequest::getProductId)
+                    .toList());
+        }
+    }
+
+    public void invalidate(UUID productId) {
+        cache.synchronous().invalidate(productId);
+    }
+
+    public void invalidateAll() {
+        cache.synchronous().invalidateAll();
+    }
+}
@@ -0,0 +1,38 @@
+package ru.yandex.practicum.shoppingStore.cache;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.Data;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Primary;
+import ru.yandex.practicum.shoppingStore.feign.ShoppingStoreClient;
+
+import java.time.Duration;
+
+@Data
+@Configuration
+@ConditionalOnProperty(prefix = "shopping-store.near-cache", name = "enabled", havingValue = "true")
+@ConfigurationProperties("shopping-store.near-cache")
+public class NearCacheConfig {
+    private boolean enabled;
+
+    private long maximumSize = 10_000;
+
+    /**
+     * Страховка на случай потерянного события об изменении товара.
+     */
+    private Duration expireAfterWrite = Duration.ofMinutes(1);
+
+    private String topic = ShoppingStoreClient.PRODUCT_CHANGES_TOPIC;
+
+    @Bean
+    @Primary
+    public CachingShoppingStoreClient cachingShoppingStoreClient(
+            @Qualifier(ShoppingStoreClient.FEIGN_QUALIFIER) ShoppingStoreClient delegate,
+            MeterRegistry meterRegistry) {
+        return new CachingShoppingStoreClient(delegate, this, meterRegistry);
+    }
+}
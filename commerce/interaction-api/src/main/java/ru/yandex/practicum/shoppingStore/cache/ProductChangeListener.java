@@ -0,0 +1,38 @@
+package ru.yandex.practicum.shoppingStore.cache;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.apache.kafka.clients.consumer.ConsumerRecord;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.kafka.annotation.KafkaListener;
+import org.springframework.stereotype.Component;
+import ru.yandex.practicum.shoppingStore.dto.ProductChangedEvent;
+import ru.yandex.practicum.shoppingStore.feign.ShoppingStoreClient;
+
+/**
+ * Каждый экземпляр читает топик своей группой с позиции latest: сбросить нужно все локальные копии,
+ * а события до старта не важны, так как кэш тогда был пуст.
+ */
+@Slf4j
+@Component
+@ConditionalOnProperty(prefix = "shopping-store.near-cache", name = "enabled", havingValue = "true")
+@RequiredArgsConstructor
+public class ProductChangeListener {
+    private final CachingShoppingStoreClient cachingShoppingStoreClient;
+    private final ObjectMapper objectMapper;
+
+    @KafkaListener(topics = "${shopping-store.near-cache.topic:" + ShoppingStoreClient.PRODUCT_CHANGES_TOPIC + "}",
+            groupId = "${spring.application.name}-near-cache-${random.uuid}",
+            properties = "auto.offset.reset=latest")
+    public void onMessage(ConsumerRecord<String, String> record) {
+        try {
+            ProductChangedEvent event = objectMapper.readValue(record.value(), ProductChangedEvent.class);
+            cachingShoppingStoreClient.invalidate(event.getProductId());
+        } catch (JsonProcessingException e) {
+            log.warn("Не удалось разобрать событие изменения товара, сбрасываем near-cache целиком: {}", record.value());
+            cachingShoppingStoreClient.invalidateAll();
+        }
+    }
+}
@@ -0,0 +1,21 @@
+package ru.yandex.practicum.shoppingStore.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.Instant;
+import java.util.UUID;
+
+/**
+ * Карточка товара изменилась или удалена; потребители сбрасывают её из локальных кэшей.
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class ProductChangedEvent {
+    private UUID productId;
+    private Instant occurredAt;
+}
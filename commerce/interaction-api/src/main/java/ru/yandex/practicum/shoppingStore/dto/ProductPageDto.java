@@ -0,0 +1,21 @@
+package ru.yandex.practicum.shoppingStore.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+@Data
+@AllArgsConstructor
+@NoArgsConstructor
+@Builder
+public class ProductPageDto {
+    private List<ProductSummaryDto> content;
+
+    /**
+     * Курсор следующей страницы или null, если страница последняя.
+     */
+    private String nextCursor;
+}
@@ -0,0 +1,46 @@
+package ru.yandex.practicum.shoppingStore.dto;
+
+import jakarta.validation.constraints.DecimalMax;
+import jakarta.validation.constraints.DecimalMin;
+import jakarta.validation.constraints.Positive;
+import jakarta.validation.constraints.PositiveOrZero;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import ru.yandex.practicum.shoppingStore.enums.ProductCategory;
+import ru.yandex.practicum.shoppingStore.enums.QuantityState;
+
+import java.math.BigDecimal;
+
+@Data
+@AllArgsConstructor
+@NoArgsConstructor
+@Builder
+public class ProductSearchRequest {
+    /**
+     * Текст в синтаксисе websearch: слова, "фразы", -исключения, or.
+     */
+    private String query;
+
+    private ProductCategory category;
+
+    private QuantityState quantityState;
+
+    @PositiveOrZero
+    private BigDecimal minPrice;
+
+    @PositiveOrZero
+    private BigDecimal maxPrice;
+
+    @DecimalMin("0.0")
+    @DecimalMax("5.0")
+    private Double minRating;
+
+    @PositiveOrZero
+    private int page;
+
+    @Positive
+    @Builder.Default
+    private int size = 20;
+}
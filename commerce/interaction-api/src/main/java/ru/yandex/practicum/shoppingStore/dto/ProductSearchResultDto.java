@@ -0,0 +1,28 @@
+package ru.yandex.practicum.shoppingStore.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import ru.yandex.practicum.shoppingStore.enums.ProductCategory;
+import ru.yandex.practicum.shoppingStore.enums.QuantityState;
+
+import java.util.List;
+import java.util.Map;
+
+@Data
+@AllArgsConstructor
+@NoArgsConstructor
+@Builder
+public class ProductSearchResultDto {
+    private List<ProductSummaryDto> content;
+
+    /**
+     * Всего товаров под запрос и фильтры.
+     */
+    private long total;
+
+    private Map<ProductCategory, Long> categoryFacets;
+
+    private Map<QuantityState, Long> quantityStateFacets;
+}
@@ -0,0 +1,26 @@
+package ru.yandex.practicum.shoppingStore.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import ru.yandex.practicum.shoppingStore.enums.QuantityState;
+
+import java.math.BigDecimal;
+import java.util.UUID;
+
+/**
+ * Карточка товара в списке каталога, без описания.
+ */
+@Data
+@AllArgsConstructor
+@NoArgsConstructor
+@Builder
+public class ProductSummaryDto {
+    private UUID productId;
+    private String productName;
+    private String imageSrc;
+    private BigDecimal price;
+    private double rating;
+    private QuantityState quantityState;
+}
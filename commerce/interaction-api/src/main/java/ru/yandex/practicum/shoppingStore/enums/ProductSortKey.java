@@ -0,0 +1,10 @@
+package ru.yandex.practicum.shoppingStore.enums;
+
+/**
+ * Допустимые ключи сортировки каталога; под каждый есть индекс (product_category, ключ, product_id).
+ */
+public enum ProductSortKey {
+    NAME,
+    PRICE,
+    RATING
+}
@@ -12,8 +12,15 @@ import java.util.Collection;
 import java.util.List;
 import java.util.UUID;
 
-@FeignClient(name = "shopping-store", path = "/api/v1/shopping-store")
+/**
+ * Feign-бин не основной: при включённом shopping-store.near-cache его оборачивает
+ * {@link ru.yandex.practicum.shoppingStore.cache.CachingShoppingStoreClient}.
+ */
+@FeignClient(name = "shopping-store", path = "/api/v1/shopping-store",
+        qualifiers = ShoppingStoreClient.FEIGN_QUALIFIER, primary = false)
 public interface ShoppingStoreClient {
+    String FEIGN_QUALIFIER = "shoppingStoreFeignClient";
+    String PRODUCT_CHANGES_TOPIC = "commerce.product-changes.v1";
 
     @GetMapping("/{productId}")
     ProductDto getProduct(@PathVariable("productId") UUID productId);
@@ -21,6 +28,9 @@ public interface ShoppingStoreClient {
     @PostMapping("/quantityState")
     boolean setProductQuantityState(@RequestBody SetProductQuantityStateRequest request);
 
+    @PostMapping("/quantityState/bulk")
+    boolean setProductQuantityStates(@RequestBody List<SetProductQuantityStateRequest> requests);
+
     @GetMapping("/productsByIds")
     List<ProductDto> getProductsByIds(@RequestBody Collection<UUID> productIds);
 }
\ No newline at end of file
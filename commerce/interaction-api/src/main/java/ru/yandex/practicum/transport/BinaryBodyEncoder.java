@@ -0,0 +1,30 @@
+package ru.yandex.practicum.transport;
+
+import feign.RequestTemplate;
+import feign.codec.EncodeException;
+import feign.codec.Encoder;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
+
+import java.lang.reflect.Type;
+
+/**
+ * Проставляет телу запроса тип application/cbor, по которому SpringEncoder выбирает CBOR-конвертер.
+ * Строки и массивы байт уходят как есть, явно заданный Content-Type не трогается.
+ */
+class BinaryBodyEncoder implements Encoder {
+    private final Encoder delegate;
+
+    BinaryBodyEncoder(Encoder delegate) {
+        this.delegate = delegate;
+    }
+
+    @Override
+    public void encode(Object object, Type bodyType, RequestTemplate template) throws EncodeException {
+        if (bodyType != String.class && bodyType != byte[].class
+                && !template.headers().containsKey(HttpHeaders.CONTENT_TYPE)) {
+            template.header(HttpHeaders.CONTENT_TYPE, MediaType.APPLICATION_CBOR_VALUE);
+        }
+        delegate.encode(object, bodyType, template);
+    }
+}
@@ -0,0 +1,56 @@
+package ru.yandex.practicum.transport;
+
+import feign.Client;
+import feign.Request;
+import feign.Response;
+import org.springframework.http.HttpHeaders;
+
+import java.io.IOException;
+import java.util.Collection;
+import java.util.Map;
+import java.util.function.Function;
+
+/**
+ * Считает запросы по протоколу, запросы в полёте и размер тел по типу содержимого.
+ */
+class MeteredClient implements Client {
+    private final Client delegate;
+    private final Function<String, TransportMeters> meters;
+
+    MeteredClient(Client delegate, Function<String, TransportMeters> meters) {
+        this.delegate = delegate;
+        this.meters = meters;
+    }
+
+    @Override
+    public Response execute(Request request, Request.Options options) throws IOException {
+        TransportMeters clientMeters = meters.apply(request.requestTemplate().feignTarget().name());
+
+        if (request.body() != null) {
+            clientMeters.payload("request", mediaType(request.headers()), request.body().length);
+        }
+
+        clientMeters.inFlight.incrementAndGet();
+        try {
+            Response response = delegate.execute(request, options);
+            clientMeters.request(response.protocolVersion());
+            if (response.body() != null && response.body().length() != null) {
+                clientMeters.payload("response", mediaType(response.headers()), response.body().length());
+            }
+            return response;
+        } finally {
+            clientMeters.inFlight.decrementAndGet();
+        }
+    }
+
+    private static String mediaType(Map<String, Collection<String>> headers) {
+        for (Map.Entry<String, Collection<String>> header : headers.entrySet()) {
+            if (HttpHeaders.CONTENT_TYPE.equalsIgnoreCase(header.getKey()) && !header.getValue().isEmpty()) {
+                String value = header.getValue().iterator().next();
+                int parameters = value.indexOf(';');
+                return (parameters < 0 ? value : value.substring(0, parameters)).trim();
+            }
+        }
+        return "none";
+    }
+}
@@ -0,0 +1,29 @@
+package ru.yandex.practicum.transport;
+
+import feign.Capability;
+import feign.Client;
+import io.micrometer.core.instrument.MeterRegistry;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Оборачивает HTTP-клиент каждого @FeignClient в {@link MeteredClient}.
+ */
+public class TransportCapability implements Capability {
+    private final MeterRegistry meterRegistry;
+    private final Map<String, TransportMeters> meters = new ConcurrentHashMap<>();
+
+    public TransportCapability(MeterRegistry meterRegistry) {
+        this.meterRegistry = meterRegistry;
+    }
+
+    @Override
+    public Client enrich(Client client) {
+        return new MeteredClient(client, this::meters);
+    }
+
+    TransportMeters meters(String clientName) {
+        return meters.computeIfAbsent(clientName, name -> new TransportMeters(name, meterRegistry));
+    }
+}
@@ -0,0 +1,64 @@
+package ru.yandex.practicum.transport;
+
+import com.fasterxml.jackson.dataformat.cbor.CBORFactory;
+import feign.RequestInterceptor;
+import feign.codec.Encoder;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.Data;
+import org.springframework.beans.factory.ObjectFactory;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.autoconfigure.http.HttpMessageConverters;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.cloud.openfeign.support.SpringEncoder;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.converter.cbor.MappingJackson2CborHttpMessageConverter;
+import org.springframework.http.converter.json.Jackson2ObjectMapperBuilder;
+
+/**
+ * Транспорт межсервисных вызовов. Сам HTTP/2-клиент включается штатным свойством
+ * spring.cloud.openfeign.http2client.enabled; здесь — бинарный кодек и метрики поверх любого клиента.
+ * CBOR-конвертер регистрируется и на сервере, поэтому формат ответа согласуется по Accept,
+ * а внешние клиенты по-прежнему получают JSON.
+ */
+@Data
+@Configuration
+@ConditionalOnProperty(prefix = "commerce.transport", name = "enabled", havingValue = "true")
+@ConfigurationProperties("commerce.transport")
+public class TransportConfig {
+    static final String ACCEPT_BINARY = "application/cbor, application/json;q=0.9";
+
+    private boolean enabled;
+
+    /**
+     * Отправлять тела запросов в CBOR и просить CBOR в ответ.
+     */
+    private boolean binaryCodec = true;
+
+    @Bean
+    public MappingJackson2CborHttpMessageConverter cborHttpMessageConverter(Jackson2ObjectMapperBuilder builder) {
+        return new MappingJackson2CborHttpMessageConverter(builder.factory(new CBORFactory()).build());
+    }
+
+    @Bean
+    public TransportCapability transportCapability(MeterRegistry meterRegistry) {
+        return new TransportCapability(meterRegistry);
+    }
+
+    @Bean
+    @ConditionalOnProperty(prefix = "commerce.transport", name = "binary-codec", havingValue = "true", matchIfMissing = true)
+    public Encoder feignEncoder(ObjectFactory<HttpMessageConverters> messageConverters) {
+        return new BinaryBodyEncoder(new SpringEncoder(messageConverters));
+    }
+
+    @Bean
+    @ConditionalOnProperty(prefix = "commerce.transport", name = "binary-codec", havingValue = "true", matchIfMissing = true)
+    public RequestInterceptor binaryAcceptInterceptor() {
+        return template -> {
+            if (!template.headers().containsKey(HttpHeaders.ACCEPT)) {
+                template.header(HttpHeaders.ACCEPT, ACCEPT_BINARY);
+            }
+        };
+    }
+}
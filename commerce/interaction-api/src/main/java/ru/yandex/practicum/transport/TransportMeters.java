@@ -0,0 +1,51 @@
+package ru.yandex.practicum.transport;
+
+import feign.Request;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Метрики транспорта одного удалённого сервиса. Пул JDK HttpClient не публикует статистику, поэтому
+ * загрузка соединений видна как число запросов в полёте (при HTTP/2 — одновременных потоков),
+ * а фактически согласованный протокол — в теге счётчика запросов.
+ */
+final class TransportMeters {
+    final AtomicInteger inFlight = new AtomicInteger();
+
+    private final String name;
+    private final MeterRegistry meterRegistry;
+    private final Map<String, Counter> requests = new ConcurrentHashMap<>();
+    private final Map<String, DistributionSummary> payloads = new ConcurrentHashMap<>();
+
+    TransportMeters(String name, MeterRegistry meterRegistry) {
+        this.name = name;
+        this.meterRegistry = meterRegistry;
+        Gauge.builder("feign.transport.in-flight", inFlight, AtomicInteger::get)
+                .tag("client", name)
+                .register(meterRegistry);
+    }
+
+    void request(Request.ProtocolVersion protocol) {
+        String version = protocol == null ? "unknown" : protocol.toString();
+        requests.computeIfAbsent(version, tag -> meterRegistry.counter("feign.transport.requests",
+                        "client", name, "protocol", tag))
+                .increment();
+    }
+
+    void payload(String direction, String mediaType, long bytes) {
+        payloads.computeIfAbsent(direction + ' ' + mediaType, key -> DistributionSummary.builder("feign.codec.payload")
+                        .tag("client", name)
+                        .tag("direction", direction)
+                        .tag("media", mediaType)
+                        .baseUnit("bytes")
+                        .publishPercentiles(0.5, 0.99)
+                        .register(meterRegistry))
+                .record(bytes);
+    }
+}
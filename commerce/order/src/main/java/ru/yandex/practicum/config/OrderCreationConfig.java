@@ -0,0 +1,25 @@
+package ru.yandex.practicum.config;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+import java.time.Duration;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+@Configuration
+@ConfigurationProperties(prefix = "order.creation")
+@Data
+public class OrderCreationConfig {
+    /**
+     * Общий предел ожидания удалённых шагов создания заказа.
+     */
+    private Duration timeout = Duration.ofSeconds(10);
+
+    @Bean(destroyMethod = "close")
+    public ExecutorService orderCreationExecutor() {
+        return Executors.newVirtualThreadPerTaskExecutor();
+    }
+}
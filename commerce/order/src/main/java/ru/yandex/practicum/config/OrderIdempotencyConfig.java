@@ -0,0 +1,27 @@
+package ru.yandex.practicum.config;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.context.annotation.Configuration;
+
+import java.time.Duration;
+
+@Configuration
+@ConfigurationProperties(prefix = "order.idempotency")
+@Data
+public class OrderIdempotencyConfig {
+    /**
+     * Сколько хранится ключ запроса в order_requests.
+     */
+    private Duration ttl = Duration.ofHours(24);
+
+    /**
+     * Сколько ключ закреплён за создающим заказ экземпляром. Если за это время заказ не появился,
+     * экземпляр считается упавшим и ключ может занять повтор. Должно быть больше order.creation.timeout.
+     */
+    private Duration lease = Duration.ofSeconds(30);
+
+    private long cacheSize = 10_000;
+
+    private Duration cacheTtl = Duration.ofMinutes(10);
+}
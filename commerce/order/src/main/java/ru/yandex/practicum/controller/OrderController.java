@@ -2,14 +2,17 @@ package ru.yandex.practicum.controller;
 import jakarta.validation.Valid;
 import lombok.RequiredArgsConstructor;
 import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PathVariable;
 import org.springframework.web.bind.annotation.PostMapping;
 import org.springframework.web.bind.annotation.PutMapping;
 import org.springframework.web.bind.annotation.RequestBody;
+import org.springframework.web.bind.annotation.RequestHeader;
 import org.springframework.web.bind.annotation.RequestMapping;
 import org.springframework.web.bind.annotation.RequestParam;
 import org.springframework.web.bind.annotation.RestController;
 import ru.yandex.practicum.order.dto.CreateNewOrderRequest;
 import ru.yandex.practicum.order.dto.OrderDto;
+import ru.yandex.practicum.order.dto.OrderHistoryPageDto;
 import ru.yandex.practicum.order.dto.ProductReturnRequest;
 import ru.yandex.practicum.service.OrderService;
 
@@ -27,9 +30,22 @@ public class OrderController {
         return orderService.getClientOrders(username);
     }
 
+    @GetMapping("/history")
+    OrderHistoryPageDto getOrderHistory(@RequestParam String username,
+                                        @RequestParam(defaultValue = "20") int size,
+                                        @RequestParam(required = false) String cursor) {
+        return orderService.getOrderHistory(username, size, cursor);
+    }
+
+    @GetMapping("/{orderId}")
+    OrderDto getOrder(@PathVariable UUID orderId) {
+        return orderService.getOrder(orderId);
+    }
+
     @PutMapping
-    OrderDto createNewOrder(@Valid @RequestBody CreateNewOrderRequest createNewOrderRequest) {
-        return orderService.createNewOrder(createNewOrderRequest);
+    OrderDto createNewOrder(@Valid @RequestBody CreateNewOrderRequest createNewOrderRequest,
+                            @RequestHeader(value = "Idempotency-Key", required = false) String idempotencyKey) {
+        return orderService.createNewOrder(createNewOrderRequest, idempotencyKey);
     }
 
     @PostMapping("/return")
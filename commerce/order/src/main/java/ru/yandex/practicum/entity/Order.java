@@ -8,21 +8,22 @@ import jakarta.persistence.Entity;
 import jakarta.persistence.EnumType;
 import jakarta.persistence.Enumerated;
 import jakarta.persistence.FetchType;
-import jakarta.persistence.GeneratedValue;
-import jakarta.persistence.GenerationType;
 import jakarta.persistence.Id;
 import jakarta.persistence.JoinColumn;
 import jakarta.persistence.ManyToOne;
 import jakarta.persistence.MapKeyColumn;
 import jakarta.persistence.Table;
+import jakarta.persistence.Version;
 import lombok.AllArgsConstructor;
 import lombok.Builder;
 import lombok.Getter;
 import lombok.NoArgsConstructor;
 import lombok.Setter;
+import org.hibernate.annotations.CreationTimestamp;
 import ru.yandex.practicum.order.enums.OrderState;
 
 import java.math.BigDecimal;
+import java.time.Instant;
 import java.util.Map;
 import java.util.UUID;
 
@@ -35,8 +36,10 @@ import java.util.UUID;
 @NoArgsConstructor
 public class Order {
 
+    /**
+     * Назначается сервисом до обращения к складу, чтобы сборка не ждала вставки заказа.
+     */
     @Id
-    @GeneratedValue(strategy = GenerationType.UUID)
     private UUID orderId;
 
     @Column(nullable = false)
@@ -79,6 +82,17 @@ public class Order {
     @Column(name = "product_price", precision = 15, scale = 2)
     private BigDecimal productPrice;
 
+    /**
+     * Общая с order_view версия строки: её проверяют и JPA, и одиночные UPDATE смены состояния.
+     */
+    @Version
+    @Column(name = "version", nullable = false)
+    private Long version;
+
+    @CreationTimestamp
+    @Column(name = "created_at", nullable = false, updatable = false)
+    private Instant createdAt;
+
     @ManyToOne(fetch = FetchType.LAZY, cascade = CascadeType.ALL)
     @JoinColumn(name = "from_address_id", nullable = false)
     private Address fromAddress;
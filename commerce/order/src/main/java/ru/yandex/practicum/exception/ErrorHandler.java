@@ -30,6 +30,36 @@ public class ErrorHandler {
         return errorResponse(HttpStatus.BAD_REQUEST, "ProductInShoppingCartLowQuantityInWarehouse", ex);
     }
 
+    @ExceptionHandler(OrderCreationTimeoutException.class)
+    @ResponseStatus(HttpStatus.GATEWAY_TIMEOUT)
+    public ErrorResponse handleOrderCreationTimeoutException(OrderCreationTimeoutException ex) {
+        return errorResponse(HttpStatus.GATEWAY_TIMEOUT, "OrderCreationTimeoutException", ex);
+    }
+
+    @ExceptionHandler(OrderRequestInProgressException.class)
+    @ResponseStatus(HttpStatus.CONFLICT)
+    public ErrorResponse handleOrderRequestInProgressException(OrderRequestInProgressException ex) {
+        return errorResponse(HttpStatus.CONFLICT, "OrderRequestInProgressException", ex);
+    }
+
+    @ExceptionHandler(IdempotencyKeyMismatchException.class)
+    @ResponseStatus(HttpStatus.UNPROCESSABLE_ENTITY)
+    public ErrorResponse handleIdempotencyKeyMismatchException(IdempotencyKeyMismatchException ex) {
+        return errorResponse(HttpStatus.UNPROCESSABLE_ENTITY, "IdempotencyKeyMismatchException", ex);
+    }
+
+    @ExceptionHandler(InvalidCursorException.class)
+    @ResponseStatus(HttpStatus.BAD_REQUEST)
+    public ErrorResponse handleInvalidCursorException(InvalidCursorException ex) {
+        return errorResponse(HttpStatus.BAD_REQUEST, "InvalidCursorException", ex);
+    }
+
+    @ExceptionHandler(OrderConcurrentModificationException.class)
+    @ResponseStatus(HttpStatus.CONFLICT)
+    public ErrorResponse handleOrderConcurrentModificationException(OrderConcurrentModificationException ex) {
+        return errorResponse(HttpStatus.CONFLICT, "OrderConcurrentModificationException", ex);
+    }
+
     private ErrorResponse errorResponse(HttpStatus status, String userMessage, Throwable ex) {
 
         return new ErrorResponse(
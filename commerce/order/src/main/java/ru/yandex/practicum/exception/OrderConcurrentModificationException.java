@@ -0,0 +1,11 @@
+package ru.yandex.practicum.exception;
+
+import org.springframework.http.HttpStatus;
+import org.springframework.web.bind.annotation.ResponseStatus;
+
+@ResponseStatus(HttpStatus.CONFLICT)
+public class OrderConcurrentModificationException extends RuntimeException {
+    public OrderConcurrentModificationException(String message) {
+        super(message);
+    }
+}
@@ -0,0 +1,11 @@
+package ru.yandex.practicum.exception;
+
+import org.springframework.http.HttpStatus;
+import org.springframework.web.bind.annotation.ResponseStatus;
+
+@ResponseStatus(HttpStatus.GATEWAY_TIMEOUT)
+public class OrderCreationTimeoutException extends RuntimeException {
+    public OrderCreationTimeoutException(String message) {
+        super(message);
+    }
+}
@@ -1,11 +1,20 @@
 package ru.yandex.practicum.repository;
 
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import ru.yandex.practicum.entity.Order;
 
+import java.util.Collection;
 import java.util.List;
 import java.util.UUID;
 
 public interface OrderRepository extends JpaRepository<Order, UUID> {
-    List<Order> findByUsername(String username);
+    @Query("""
+            SELECT DISTINCT o FROM Order o
+            LEFT JOIN FETCH o.products
+            LEFT JOIN FETCH o.fromAddress
+            LEFT JOIN FETCH o.toAddress
+            WHERE o.orderId IN :orderIds""")
+    List<Order> findAllWithDetails(@Param("orderIds") Collection<UUID> orderIds);
 }
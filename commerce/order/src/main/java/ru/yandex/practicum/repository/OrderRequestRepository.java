@@ -0,0 +1,66 @@
+package ru.yandex.practicum.repository;
+
+import lombok.RequiredArgsConstructor;
+import org.springframework.jdbc.core.namedparam.MapSqlParameterSource;
+import org.springframework.jdbc.core.namedparam.NamedParameterJdbcTemplate;
+import org.springframework.stereotype.Repository;
+
+import java.sql.Timestamp;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.Optional;
+import java.util.UUID;
+
+/**
+ * Ключи идемпотентности создания заказа: ключ -> id заказа, который под ним создаётся или создан.
+ */
+@Repository
+@RequiredArgsConstructor
+public class OrderRequestRepository {
+    private static final String CLAIM_SQL = """
+            INSERT INTO order_requests (idempotency_key, order_id, claimed_at)
+            VALUES (:key, :orderId, :now)
+            ON CONFLICT (idempotency_key) DO UPDATE
+            SET order_id = EXCLUDED.order_id, claimed_at = EXCLUDED.claimed_at
+            WHERE order_requests.claimed_at < :leaseExpired
+              AND NOT EXISTS (SELECT 1 FROM orders o WHERE o.order_id = order_requests.order_id)""";
+
+    private final NamedParameterJdbcTemplate jdbcTemplate;
+
+    /**
+     * Занимает ключ. Ключ, чей заказ так и не появился за lease, перезанимается: создававший его экземпляр упал,
+     * не успев освободить ключ.
+     *
+     * @return true, если ключ занят этим вызовом; false, если заказ по нему создан или ещё создаётся
+     */
+    public boolean claim(String key, UUID orderId, Duration lease) {
+        Instant now = Instant.now();
+        return jdbcTemplate.update(CLAIM_SQL, new MapSqlParameterSource()
+                .addValue("key", key)
+                .addValue("orderId", orderId)
+                .addValue("now", Timestamp.from(now))
+                .addValue("leaseExpired", Timestamp.from(now.minus(lease)))) > 0;
+    }
+
+    public Optional<UUID> findOrderId(String key) {
+        return jdbcTemplate.queryForList("SELECT order_id FROM order_requests WHERE idempotency_key = :key",
+                        new MapSqlParameterSource("key", key), UUID.class)
+                .stream()
+                .findFirst();
+    }
+
+    /**
+     * Освобождает ключ после неудачного создания, чтобы клиент мог повторить запрос.
+     */
+    public void release(String key, UUID orderId) {
+        jdbcTemplate.update("DELETE FROM order_requests WHERE idempotency_key = :key AND order_id = :orderId",
+                new MapSqlParameterSource()
+                        .addValue("key", key)
+                        .addValue("orderId", orderId));
+    }
+
+    public int purgeOlderThan(Instant threshold) {
+        return jdbcTemplate.update("DELETE FROM order_requests WHERE created_at < :threshold",
+                new MapSqlParameterSource("threshold", Timestamp.from(threshold)));
+    }
+}
@@ -0,0 +1,33 @@
+package ru.yandex.practicum.repository;
+
+import lombok.RequiredArgsConstructor;
+import org.springframework.jdbc.core.namedparam.MapSqlParameterSource;
+import org.springframework.jdbc.core.namedparam.NamedParameterJdbcTemplate;
+import org.springframework.stereotype.Repository;
+import ru.yandex.practicum.order.enums.OrderState;
+
+import java.util.UUID;
+
+/**
+ * Смена состояния заказа одним UPDATE по первичному ключу, без загрузки сущности.
+ */
+@Repository
+@RequiredArgsConstructor
+public class OrderStateRepository {
+    private static final String TRANSITION_SQL = """
+            UPDATE orders
+            SET order_state = :state, version = version + 1
+            WHERE order_id = :orderId AND version = :version""";
+
+    private final NamedParameterJdbcTemplate jdbcTemplate;
+
+    /**
+     * @return false, если заказ успели изменить после чтения версии
+     */
+    public boolean transition(UUID orderId, long expectedVersion, OrderState state) {
+        return jdbcTemplate.update(TRANSITION_SQL, new MapSqlParameterSource()
+                .addValue("orderId", orderId)
+                .addValue("version", expectedVersion)
+                .addValue("state", state.name())) > 0;
+    }
+}
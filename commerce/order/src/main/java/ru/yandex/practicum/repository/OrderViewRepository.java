@@ -0,0 +1,184 @@
+package ru.yandex.practicum.repository;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import lombok.RequiredArgsConstructor;
+import org.springframework.jdbc.core.RowMapper;
+import org.springframework.jdbc.core.namedparam.MapSqlParameterSource;
+import org.springframework.jdbc.core.namedparam.NamedParameterJdbcTemplate;
+import org.springframework.stereotype.Repository;
+import ru.yandex.practicum.order.dto.OrderDto;
+import ru.yandex.practicum.order.enums.OrderState;
+
+import java.sql.Timestamp;
+import java.time.Instant;
+import java.time.OffsetDateTime;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.UUID;
+
+/**
+ * Денормализованная проекция заказа для чтения: одна строка order_view содержит всё, что отдаётся в OrderDto,
+ * включая товары в jsonb. Строка обновляется в той же транзакции, что и orders, и несёт ту же версию;
+ * запись с меньшей версией не перетирает более новую.
+ */
+@Repository
+@RequiredArgsConstructor
+public class OrderViewRepository {
+    private static final String COLUMNS = """
+            order_id, username, shopping_cart_id, payment_id, delivery_id, order_state,
+            delivery_weight, delivery_volume, fragile, total_price, delivery_price, product_price,
+            products, created_at, version""";
+
+    private static final String UPSERT_SQL = """
+            INSERT INTO order_view (%s)
+            VALUES (:orderId, :username, :shoppingCartId, :paymentId, :deliveryId, :state,
+                    :deliveryWeight, :deliveryVolume, :fragile, :totalPrice, :deliveryPrice, :productPrice,
+                    CAST(:products AS jsonb), :createdAt, :version)
+            ON CONFLICT (order_id) DO UPDATE SET
+                payment_id = EXCLUDED.payment_id,
+                delivery_id = EXCLUDED.delivery_id,
+                order_state = EXCLUDED.order_state,
+                delivery_weight = EXCLUDED.delivery_weight,
+                delivery_volume = EXCLUDED.delivery_volume,
+                fragile = EXCLUDED.fragile,
+                total_price = EXCLUDED.total_price,
+                delivery_price = EXCLUDED.delivery_price,
+                product_price = EXCLUDED.product_price,
+                products = EXCLUDED.products,
+                version = EXCLUDED.version
+            WHERE order_view.version <= EXCLUDED.version""".formatted(COLUMNS);
+
+    private static final String APPLY_STATE_SQL = """
+            UPDATE order_view
+            SET order_state = :state, version = :version
+            WHERE order_id = :orderId AND version < :version""";
+
+    private static final String FIND_BY_ID_SQL = "SELECT " + COLUMNS + " FROM order_view WHERE order_id = :orderId";
+
+    private static final String FIND_BY_USERNAME_SQL = """
+            SELECT %s FROM order_view
+            WHERE username = :username
+            ORDER BY created_at DESC, order_id DESC""".formatted(COLUMNS);
+
+    private static final String HISTORY_SQL = """
+            SELECT %s FROM order_view
+            WHERE username = :username
+            ORDER BY created_at DESC, order_id DESC
+            LIMIT :limit""".formatted(COLUMNS);
+
+    private static final String HISTORY_BEFORE_SQL = """
+            SELECT %s FROM order_view
+            WHERE username = :username AND (created_at, order_id) < (:createdAt, :orderId)
+            ORDER BY created_at DESC, order_id DESC
+            LIMIT :limit""".formatted(COLUMNS);
+
+    private static final TypeReference<Map<UUID, Integer>> PRODUCTS_TYPE = new TypeReference<>() {
+    };
+
+    private final NamedParameterJdbcTemplate jdbcTemplate;
+    private final ObjectMapper objectMapper;
+
+    public void upsert(OrderDto order, String username, long version) {
+        jdbcTemplate.update(UPSERT_SQL, new MapSqlParameterSource()
+                .addValue("orderId", order.getOrderId())
+                .addValue("username", username)
+                .addValue("shoppingCartId", order.getShoppingCartId())
+                .addValue("paymentId", order.getPaymentId())
+                .addValue("deliveryId", order.getDeliveryId())
+                .addValue("state", order.getState().name())
+                .addValue("deliveryWeight", order.getDeliveryWeight())
+                .addValue("deliveryVolume", order.getDeliveryVolume())
+                .addValue("fragile", order.isFragile())
+                .addValue("totalPrice", order.getTotalPrice())
+                .addValue("deliveryPrice", order.getDeliveryPrice())
+                .addValue("productPrice", order.getProductPrice())
+                .addValue("products", toJson(order.getProducts()))
+                .addValue("createdAt", Timestamp.from(order.getCreatedAt()))
+                .addValue("version", version));
+    }
+
+    /**
+     * Переносит в проекцию смену состояния, уже применённую к orders с этой версией.
+     */
+    public void applyState(UUID orderId, OrderState state, long version) {
+        jdbcTemplate.update(APPLY_STATE_SQL, new MapSqlParameterSource()
+                .addValue("orderId", orderId)
+                .addValue("state", state.name())
+                .addValue("version", version));
+    }
+
+    public Optional<OrderView> findById(UUID orderId) {
+        return jdbcTemplate.query(FIND_BY_ID_SQL, new MapSqlParameterSource("orderId", orderId), viewMapper())
+                .stream()
+                .findFirst();
+    }
+
+    public List<OrderDto> findByUsername(String username) {
+        return jdbcTemplate.query(FIND_BY_USERNAME_SQL, new MapSqlParameterSource("username", username), orderMapper());
+    }
+
+    public List<OrderDto> findHistory(String username, int limit) {
+        return jdbcTemplate.query(HISTORY_SQL, new MapSqlParameterSource()
+                .addValue("username", username)
+                .addValue("limit", limit), orderMapper());
+    }
+
+    /**
+     * Следующая страница истории по индексу (username, created_at, order_id) без OFFSET.
+     */
+    public List<OrderDto> findHistoryBefore(String username, Instant createdAt, UUID orderId, int limit) {
+        return jdbcTemplate.query(HISTORY_BEFORE_SQL, new MapSqlParameterSource()
+                .addValue("username", username)
+                .addValue("createdAt", Timestamp.from(createdAt))
+                .addValue("orderId", orderId)
+                .addValue("limit", limit), orderMapper());
+    }
+
+    private RowMapper<OrderView> viewMapper() {
+        RowMapper<OrderDto> orders = orderMapper();
+        return (rs, rowNum) -> new OrderView(orders.mapRow(rs, rowNum), rs.getLong("version"));
+    }
+
+    private RowMapper<OrderDto> orderMapper() {
+        return (rs, rowNum) -> OrderDto.builder()
+                .orderId(rs.getObject("order_id", UUID.class))
+                .shoppingCartId(rs.getObject("shopping_cart_id", UUID.class))
+                .paymentId(rs.getObject("payment_id", UUID.class))
+                .deliveryId(rs.getObject("delivery_id", UUID.class))
+                .state(OrderState.valueOf(rs.getString("order_state")))
+                .deliveryWeight(rs.getDouble("delivery_weight"))
+                .deliveryVolume(rs.getDouble("delivery_volume"))
+                .fragile(rs.getBoolean("fragile"))
+                .totalPrice(rs.getBigDecimal("total_price"))
+                .deliveryPrice(rs.getBigDecimal("delivery_price"))
+                .productPrice(rs.getBigDecimal("product_price"))
+                .products(fromJson(rs.getString("products")))
+                .createdAt(rs.getObject("created_at", OffsetDateTime.class).toInstant())
+                .build();
+    }
+
+    private String toJson(Map<UUID, Integer> products) {
+        try {
+            return objectMapper.writeValueAsString(products == null ? Map.of() : products);
+        } catch (JsonProcessingException e) {
+            throw new IllegalStateException("Не удалось сериализовать товары заказа", e);
+        }
+    }
+
+    private Map<UUID, Integer> fromJson(String products) {
+        try {
+            return objectMapper.readValue(products, PRODUCTS_TYPE);
+        } catch (JsonProcessingException e) {
+            throw new IllegalStateException("Не удалось разобрать товары заказа", e);
+        }
+    }
+
+    /**
+     * @param version версия строки orders, с которой совпадает проекция
+     */
+    public record OrderView(OrderDto order, long version) {
+    }
+}
@@ -0,0 +1,46 @@
+package ru.yandex.practicum.service;
+
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.apache.kafka.clients.consumer.ConsumerRecord;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.kafka.annotation.KafkaListener;
+import org.springframework.stereotype.Component;
+import ru.yandex.practicum.exception.NoOrderFoundException;
+import ru.yandex.practicum.saga.dto.OrderEvent;
+import ru.yandex.practicum.saga.inbox.SagaInbox;
+
+/**
+ * Шаги саги заказа, приходящие от оплаты и доставки вместо синхронных вызовов OrderClient.
+ * Повторно доставленные события отбрасывает {@link SagaInbox}; переходы состояний к тому же идемпотентны.
+ */
+@Slf4j
+@Component
+@ConditionalOnProperty(prefix = "saga", name = "enabled", havingValue = "true")
+@RequiredArgsConstructor
+public class OrderEventListener {
+    private final OrderService orderService;
+    private final SagaInbox sagaInbox;
+
+    @KafkaListener(topics = "${saga.topic}", groupId = "order-saga")
+    public void onMessage(ConsumerRecord<String, String> record) {
+        sagaInbox.parse(record.value()).ifPresent(event -> {
+            try {
+                sagaInbox.handleOnce(event, this::handle);
+            } catch (NoOrderFoundException e) {
+                log.warn("Событие {} для неизвестного заказа {}", event.getType(), event.getOrderId());
+            }
+        });
+    }
+
+    private void handle(OrderEvent event) {
+        switch (event.getType()) {
+            case PAYMENT_SUCCEEDED -> orderService.completed(event.getOrderId());
+            case PAYMENT_FAILED -> orderService.paymentFailed(event.getOrderId());
+            case DELIVERY_SUCCEEDED -> orderService.delivery(event.getOrderId());
+            case DELIVERY_FAILED -> orderService.deliveryFailed(event.getOrderId());
+            case ORDER_STATE_CHANGED, ORDER_ABORTED -> {
+            }
+        }
+    }
+}
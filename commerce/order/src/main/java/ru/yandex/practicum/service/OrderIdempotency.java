@@ -0,0 +1,110 @@
+package ru.yandex.practicum.service;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import ru.yandex.practicum.cache.LoadingFutures;
+import ru.yandex.practicum.config.OrderIdempotencyConfig;
+import ru.yandex.practicum.exception.IdempotencyKeyMismatchException;
+import ru.yandex.practicum.exception.OrderRequestInProgressException;
+import ru.yandex.practicum.order.dto.OrderDto;
+import ru.yandex.practicum.repository.OrderRequestRepository;
+
+import java.time.Instant;
+import java.util.Map;
+import java.util.Optional;
+import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Function;
+
+/**
+ * Дедупликация повторов создания заказа по ключу идемпотентности. Повтор внутри экземпляра берётся
+ * из кэша или ждёт уже идущий вызов; между экземплярами ключ закрепляется строкой в order_requests
+ * до обращения к складу, доставке и оплате, поэтому повтор никогда не повторяет удалённые вызовы.
+ * Ключ закрепляется на order.idempotency.lease: если экземпляр упал до создания заказа, повтор после
+ * этого срока займёт ключ заново, а не будет ждать очистки по ttl.
+ */
+@Slf4j
+@Component
+public class OrderIdempotency {
+    private final OrderRequestRepository orderRequestRepository;
+    private final OrderIdempotencyConfig config;
+    private final Cache<String, OrderDto> completed;
+    private final Map<String, CompletableFuture<OrderDto>> inFlight = new ConcurrentHashMap<>();
+
+    public OrderIdempotency(OrderRequestRepository orderRequestRepository, OrderIdempotencyConfig config) {
+        this.orderRequestRepository = orderRequestRepository;
+        this.config = config;
+        this.completed = Caffeine.newBuilder()
+                .maximumSize(config.getCacheSize())
+                .expireAfterWrite(config.getCacheTtl())
+                .build();
+    }
+
+    /**
+     * @param create создаёт заказ с заранее выданным id
+     * @param load   читает уже созданный заказ
+     */
+    public OrderDto execute(String key,
+                            UUID shoppingCartId,
+                            Function<UUID, OrderDto> create,
+                            Function<UUID, Optional<OrderDto>> load) {
+        OrderDto cached = completed.getIfPresent(key);
+        if (cached != null) {
+            return checked(key, shoppingCartId, cached);
+        }
+
+        CompletableFuture<OrderDto> mine = new CompletableFuture<>();
+        CompletableFuture<OrderDto> running = inFlight.putIfAbsent(key, mine);
+        if (running != null) {
+            return checked(key, shoppingCartId, LoadingFutures.join(running));
+        }
+
+        try {
+            OrderDto result = claimOrLoad(key, create, load);
+            completed.put(key, result);
+            mine.complete(result);
+            return checked(key, shoppingCartId, result);
+        } catch (RuntimeException e) {
+            mine.completeExceptionally(e);
+            throw e;
+        } finally {
+            inFlight.remove(key, mine);
+        }
+    }
+
+    @Scheduled(fixedDelayString = "${order.idempotency.purge-interval-ms:600000}")
+    public void purgeExpired() {
+        int purged = orderRequestRepository.purgeOlderThan(Instant.now().minus(config.getTtl()));
+        if (purged > 0) {
+            log.debug("Удалено {} просроченных ключей идемпотентности", purged);
+        }
+    }
+
+    private OrderDto claimOrLoad(String key, Function<UUID, OrderDto> create, Function<UUID, Optional<OrderDto>> load) {
+        UUID orderId = UUID.randomUUID();
+        if (orderRequestRepository.claim(key, orderId, config.getLease())) {
+            try {
+                return create.apply(orderId);
+            } catch (RuntimeException e) {
+                orderRequestRepository.release(key, orderId);
+                throw e;
+            }
+        }
+
+        UUID existing = orderRequestRepository.findOrderId(key)
+                .orElseThrow(() -> new OrderRequestInProgressException("request " + key + " is being retried"));
+        return load.apply(existing)
+                .orElseThrow(() -> new OrderRequestInProgressException("order for request " + key + " is still being created"));
+    }
+
+    private OrderDto checked(String key, UUID shoppingCartId, OrderDto order) {
+        if (shoppingCartId != null && !shoppingCartId.equals(order.getShoppingCartId())) {
+            throw new IdempotencyKeyMismatchException("key " + key + " was used for another shopping cart");
+        }
+        return order;
+    }
+}
@@ -2,6 +2,7 @@ package ru.yandex.practicum.service;
 
 import ru.yandex.practicum.order.dto.CreateNewOrderRequest;
 import ru.yandex.practicum.order.dto.OrderDto;
+import ru.yandex.practicum.order.dto.OrderHistoryPageDto;
 import ru.yandex.practicum.order.dto.ProductReturnRequest;
 
 import java.util.List;
@@ -10,8 +11,17 @@ import java.util.UUID;
 public interface OrderService {
     List<OrderDto> getClientOrders(String username);
 
+    OrderDto getOrder(UUID orderId);
+
+    OrderHistoryPageDto getOrderHistory(String username, int size, String cursor);
+
     OrderDto createNewOrder(CreateNewOrderRequest createNewOrderRequest);
 
+    /**
+     * Повтор с тем же ключом возвращает уже созданный заказ без обращений к другим сервисам.
+     */
+    OrderDto createNewOrder(CreateNewOrderRequest createNewOrderRequest, String idempotencyKey);
+
     OrderDto payment(UUID orderId);
 
     OrderDto paymentFailed(UUID orderId);
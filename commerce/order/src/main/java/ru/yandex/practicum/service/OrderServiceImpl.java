@@ -1,25 +1,39 @@
 package ru.yandex.practicum.service;
 
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.dao.OptimisticLockingFailureException;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
+import ru.yandex.practicum.config.OrderCreationConfig;
 import ru.yandex.practicum.delivery.dto.AddressDto;
 import ru.yandex.practicum.delivery.dto.DeliveryDto;
 import ru.yandex.practicum.delivery.enums.DeliveryState;
 import ru.yandex.practicum.delivery.feign.DeliveryClient;
 import ru.yandex.practicum.exception.NoOrderFoundException;
 import ru.yandex.practicum.exception.NotAuthorizedUserException;
+import ru.yandex.practicum.exception.OrderConcurrentModificationException;
+import ru.yandex.practicum.exception.OrderCreationTimeoutException;
 import ru.yandex.practicum.mapper.AddressMapper;
 import ru.yandex.practicum.mapper.OrderMapper;
 import ru.yandex.practicum.entity.Order;
 import ru.yandex.practicum.order.dto.CreateNewOrderRequest;
 import ru.yandex.practicum.order.dto.OrderDto;
+import ru.yandex.practicum.order.dto.OrderHistoryPageDto;
 import ru.yandex.practicum.order.dto.ProductReturnRequest;
 import ru.yandex.practicum.order.enums.OrderState;
 import ru.yandex.practicum.payment.dto.PaymentDto;
+import ru.yandex.practicum.payment.dto.PaymentQuoteDto;
 import ru.yandex.practicum.payment.feign.PaymentClient;
 import ru.yandex.practicum.repository.OrderRepository;
+import ru.yandex.practicum.repository.OrderStateRepository;
+import ru.yandex.practicum.repository.OrderViewRepository;
+import ru.yandex.practicum.repository.OrderViewRepository.OrderView;
+import ru.yandex.practicum.saga.enums.OrderEventType;
+import ru.yandex.practicum.saga.outbox.OutboxPublisher;
 import ru.yandex.practicum.warehouse.dto.AssemblyProductForOrderFromShoppingCartRequest;
 import ru.yandex.practicum.warehouse.dto.BookedProductsDto;
 import ru.yandex.practicum.warehouse.feign.WarehouseClient;
@@ -27,90 +41,190 @@ import ru.yandex.practicum.warehouse.feign.WarehouseClient;
 import java.math.BigDecimal;
 import java.util.List;
 import java.util.UUID;
-import java.util.stream.Collectors;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.function.Supplier;
 
 @Service
 @RequiredArgsConstructor
 @Slf4j
 public class OrderServiceImpl implements OrderService {
+    private static final int MAX_HISTORY_PAGE_SIZE = 100;
+    private static final int MAX_TRANSITION_ATTEMPTS = 3;
+
     private final OrderRepository orderRepository;
+    private final OrderViewRepository orderViewRepository;
+    private final OrderStateRepository orderStateRepository;
     private final WarehouseClient warehouseClient;
     private final DeliveryClient deliveryClient;
     private final PaymentClient paymentClient;
     private final OrderMapper orderMapper;
     private final AddressMapper addressMapper;
+    private final TransactionTemplate transactionTemplate;
+    private final ExecutorService orderCreationExecutor;
+    private final OrderCreationConfig orderCreationConfig;
+    private final MeterRegistry meterRegistry;
+    private final OutboxPublisher outboxPublisher;
+    private final OrderIdempotency orderIdempotency;
 
 
     @Override
-    @Transactional(readOnly = true)
     public List<OrderDto> getClientOrders(String username) {
         if (username == null || username.isEmpty()) {
             throw new NotAuthorizedUserException("Имя пользователя не должно быть пустым");
         }
 
-        List<Order> orders = orderRepository.findByUsername(username);
+        return orderViewRepository.findByUsername(username);
+    }
 
-        return orders.stream()
-                .map(orderMapper::toOrderDto)
-                .collect(Collectors.toList());
+    @Override
+    public OrderDto getOrder(UUID orderId) {
+        return orderViewRepository.findById(orderId)
+                .map(OrderView::order)
+                .orElseThrow(() -> new NoOrderFoundException("Заказ не найден: " + orderId));
+    }
+
+    @Override
+    public OrderHistoryPageDto getOrderHistory(String username, int size, String cursor) {
+        if (username == null || username.isEmpty()) {
+            throw new NotAuthorizedUserException("Имя пользователя не должно быть пустым");
+        }
+
+        int pageSize = Math.min(Math.max(size, 1), MAX_HISTORY_PAGE_SIZE);
+        List<OrderDto> orders;
+        if (cursor == null || cursor.isBlank()) {
+            orders = orderViewRepository.findHistory(username, pageSize + 1);
+        } else {
+            OrderHistoryCursor after = OrderHistoryCursor.decode(cursor);
+            orders = orderViewRepository.findHistoryBefore(username, after.createdAt(), after.orderId(), pageSize + 1);
+        }
+
+        boolean hasNext = orders.size() > pageSize;
+        List<OrderDto> content = hasNext ? orders.subList(0, pageSize) : orders;
+
+        String nextCursor = null;
+        if (hasNext) {
+            OrderDto last = content.get(content.size() - 1);
+            nextCursor = new OrderHistoryCursor(last.getCreatedAt(), last.getOrderId()).encode();
+        }
+        return new OrderHistoryPageDto(content, nextCursor);
     }
 
     @Override
-    @Transactional
     public OrderDto createNewOrder(CreateNewOrderRequest createNewOrderRequest) {
+        return createOrder(createNewOrderRequest, UUID.randomUUID());
+    }
+
+    @Override
+    public OrderDto createNewOrder(CreateNewOrderRequest createNewOrderRequest, String idempotencyKey) {
+        if (idempotencyKey == null || idempotencyKey.isBlank()) {
+            return createNewOrder(createNewOrderRequest);
+        }
+
+        return orderIdempotency.execute(idempotencyKey,
+                createNewOrderRequest.getShoppingCart().getShoppingCartId(),
+                orderId -> createOrder(createNewOrderRequest, orderId),
+                orderId -> orderViewRepository.findById(orderId).map(OrderView::order));
+    }
+
+    private OrderDto createOrder(CreateNewOrderRequest createNewOrderRequest, UUID orderId) {
         log.info("Создание нового заказа");
+        Timer.Sample total = Timer.start(meterRegistry);
 
         UUID shoppingCartId = createNewOrderRequest.getShoppingCart().getShoppingCartId();
+        AddressDto toAddress = createNewOrderRequest.getAddress();
 
         Order order = Order.builder()
+                .orderId(orderId)
                 .shoppingCartId(shoppingCartId)
                 .username(createNewOrderRequest.getUsername())
                 .products(createNewOrderRequest.getShoppingCart().getProducts())
                 .state(OrderState.NEW)
+                .toAddress(addressMapper.fromAddressDto(toAddress))
                 .build();
+        OrderDto draft = orderMapper.toOrderDto(order);
+
+        AtomicBoolean aborted = new AtomicBoolean();
+        CompletableFuture<Void> planSettled = new CompletableFuture<>();
+
+        CompletableFuture<BookedProductsDto> booked = step("assembly", () ->
+                warehouseClient.assemblyProductForOrderFromShoppingCart(
+                        new AssemblyProductForOrderFromShoppingCartRequest(orderId, shoppingCartId)));
+        CompletableFuture<AddressDto> fromAddress = step("warehouse-address", warehouseClient::getWarehouseAddress);
+
+        // Доставка планируется только после сборки: если склад отказал, планировать нечего и отменять тоже.
+        CompletableFuture<DeliveryDto> delivery = booked.thenCombine(fromAddress, (bookedProducts, address) -> address)
+                .whenComplete((address, e) -> {
+                    if (e != null) {
+                        planSettled.complete(null);
+                    }
+                })
+                .thenCompose(address -> {
+                    if (aborted.get()) {
+                        planSettled.complete(null);
+                        return CompletableFuture.failedFuture(new CancellationException("order creation aborted"));
+                    }
+                    CompletableFuture<DeliveryDto> plan = step("plan-delivery", () ->
+                            deliveryClient.planDelivery(DeliveryDto.builder()
+                                    .deliveryId(UUID.randomUUID())
+                                    .orderId(orderId)
+                                    .fromAddress(address)
+                                    .toAddress(toAddress)
+                                    .state(DeliveryState.CREATED)
+                                    .build()));
+                    plan.whenComplete((planned, e) -> planSettled.complete(null));
+                    return plan;
+                });
+
+        CompletableFuture<OrderDto> priced = booked.thenCombine(delivery, (bookedProducts, createdDelivery) ->
+                pricingDraft(draft, bookedProducts, createdDelivery.getDeliveryId()));
+        CompletableFuture<BigDecimal> deliveryPrice = priced.thenCompose(dto ->
+                step("delivery-cost", () -> deliveryClient.deliveryCost(dto)));
+        CompletableFuture<PaymentQuoteDto> quote = priced.thenCombine(deliveryPrice, this::withDeliveryPrice)
+                .thenCompose(dto -> step("quote", () -> paymentClient.quote(dto)));
+
+        try {
+            await(quote, orderId);
+        } catch (RuntimeException e) {
+            aborted.set(true);
+            List.of(booked, fromAddress, priced, deliveryPrice, quote).forEach(future -> future.cancel(false));
+            abortAfter(planSettled, orderId);
+            throw e;
+        }
 
-        Order savedOrder = orderRepository.save(order);
-
-        BookedProductsDto bookedProduct = warehouseClient.assemblyProductForOrderFromShoppingCart(
-                new AssemblyProductForOrderFromShoppingCartRequest(savedOrder.getOrderId(), shoppingCartId)
-        );
-
-        savedOrder.setDeliveryWeight(bookedProduct.getDeliveryWeight());
-        savedOrder.setDeliveryVolume(bookedProduct.getDeliveryVolume());
-        savedOrder.setFragile(bookedProduct.isFragile());
-        savedOrder.setFromAddress(null);
-        savedOrder.setToAddress(addressMapper.fromAddressDto(createNewOrderRequest.getAddress()));
-
-        orderRepository.save(order);
-
-        AddressDto fromAddress = warehouseClient.getWarehouseAddress();
-        order.setFromAddress(addressMapper.fromAddressDto(fromAddress));
-
-        DeliveryDto deliveryDto = DeliveryDto.builder()
-                .deliveryId(UUID.randomUUID())
-                .orderId(order.getOrderId())
-                .fromAddress(fromAddress)
-                .toAddress(addressMapper.toAddressDto(order.getToAddress()))
-                .state(DeliveryState.CREATED)
-                .build();
-
-        DeliveryDto createdDelivery = deliveryClient.planDelivery(deliveryDto);
-        order.setDeliveryId(createdDelivery.getDeliveryId());
-
-        BigDecimal productPrice = paymentClient.productCost(orderMapper.toOrderDto(order));
-        order.setProductPrice(productPrice);
-
-        BigDecimal deliveryPrice = deliveryClient.deliveryCost(orderMapper.toOrderDto(order));
-        order.setDeliveryPrice(deliveryPrice);
-
-        BigDecimal totalPrice = paymentClient.getTotalCost(orderMapper.toOrderDto(order));
-        order.setTotalPrice(totalPrice);
-
-        orderRepository.save(order);
+        BookedProductsDto bookedProducts = booked.join();
+        order.setDeliveryWeight(bookedProducts.getDeliveryWeight());
+        order.setDeliveryVolume(bookedProducts.getDeliveryVolume());
+        order.setFragile(bookedProducts.isFragile());
+        order.setFromAddress(addressMapper.fromAddressDto(fromAddress.join()));
+        order.setDeliveryId(delivery.join().getDeliveryId());
+        order.setProductPrice(quote.join().getProductTotal());
+        order.setDeliveryPrice(deliveryPrice.join());
+        order.setTotalPrice(quote.join().getTotal());
+
+        Timer.Sample persist = Timer.start(meterRegistry);
+        OrderDto created;
+        try {
+            created = transactionTemplate.execute(status -> {
+                OrderDto saved = saveWithView(order);
+                outboxPublisher.publish(orderId, OrderEventType.ORDER_STATE_CHANGED, OrderState.NEW);
+                return saved;
+            });
+        } catch (RuntimeException e) {
+            abortAfter(planSettled, orderId);
+            throw e;
+        }
+        persist.stop(stepTimer("persist"));
+        total.stop(meterRegistry.timer("order.create"));
 
-        log.info("Заказ создан: {}", order.getOrderId());
+        log.info("Заказ создан: {}", orderId);
 
-        return orderMapper.toOrderDto(order);
+        return created;
     }
 
     @Override
@@ -121,59 +235,46 @@ public class OrderServiceImpl implements OrderService {
 
         PaymentDto paymentDto = paymentClient.payment(orderMapper.toOrderDto(order));
         order.setPaymentId(paymentDto.getPaymentId());
+        boolean changed = order.getState() != OrderState.PAID;
         order.setState(OrderState.PAID);
 
-        orderRepository.save(order);
-
-        return orderMapper.toOrderDto(order);
+        OrderDto paid = saveWithView(order);
+        if (changed) {
+            outboxPublisher.publish(orderId, OrderEventType.ORDER_STATE_CHANGED, OrderState.PAID);
+        }
+        return paid;
     }
 
     @Override
     @Transactional
     public OrderDto paymentFailed(UUID orderId) {
         log.info("Обработка неудачной оплаты для заказа: {}", orderId);
-        Order order = getOrderById(orderId);
 
-        order.setState(OrderState.PAYMENT_FAILED);
-        orderRepository.save(order);
-
-        return orderMapper.toOrderDto(order);
+        return transition(orderId, OrderState.PAYMENT_FAILED);
     }
 
     @Override
     @Transactional
     public OrderDto delivery(UUID orderId) {
         log.info("Инициация доставки для заказа: {}", orderId);
-        Order order = getOrderById(orderId);
 
-        order.setState(OrderState.DELIVERED);
-        orderRepository.save(order);
-
-        return orderMapper.toOrderDto(order);
+        return transition(orderId, OrderState.DELIVERED);
     }
 
     @Override
     @Transactional
     public OrderDto deliveryFailed(UUID orderId) {
         log.info("Обработка неудачной доставки для заказа: {}", orderId);
-        Order order = getOrderById(orderId);
-
-        order.setState(OrderState.DELIVERY_FAILED);
-        orderRepository.save(order);
 
-        return orderMapper.toOrderDto(order);
+        return transition(orderId, OrderState.DELIVERY_FAILED);
     }
 
     @Override
     @Transactional
     public OrderDto completed(UUID orderId) {
         log.info("Завершение заказа: {}", orderId);
-        Order order = getOrderById(orderId);
-
-        order.setState(OrderState.COMPLETED);
-        orderRepository.save(order);
 
-        return orderMapper.toOrderDto(order);
+        return transition(orderId, OrderState.COMPLETED);
     }
 
     @Override
@@ -185,9 +286,7 @@ public class OrderServiceImpl implements OrderService {
         BigDecimal totalPrice = paymentClient.getTotalCost(orderMapper.toOrderDto(order));
         order.setTotalPrice(totalPrice);
 
-        orderRepository.save(order);
-
-        return orderMapper.toOrderDto(order);
+        return saveWithView(order);
     }
 
     @Override
@@ -199,45 +298,137 @@ public class OrderServiceImpl implements OrderService {
         BigDecimal deliveryPrice = deliveryClient.deliveryCost(orderMapper.toOrderDto(order));
         order.setDeliveryPrice(deliveryPrice);
 
-        orderRepository.save(order);
-
-        return orderMapper.toOrderDto(order);
+        return saveWithView(order);
     }
 
     @Override
     @Transactional
     public OrderDto assembly(UUID orderId) {
         log.info("Обработка успешной сборки для заказа: {}", orderId);
-        Order order = getOrderById(orderId);
 
-        order.setState(OrderState.ASSEMBLED);
-        orderRepository.save(order);
-
-        return orderMapper.toOrderDto(order);
+        return transition(orderId, OrderState.ASSEMBLED);
     }
 
     @Override
     @Transactional
     public OrderDto assemblyFailed(UUID orderId) {
         log.info("Обработка неудачной сборки для заказа: {}", orderId);
-        Order order = getOrderById(orderId);
 
-        order.setState(OrderState.ASSEMBLY_FAILED);
-        orderRepository.save(order);
-
-        return orderMapper.toOrderDto(order);
+        return transition(orderId, OrderState.ASSEMBLY_FAILED);
     }
 
     @Override
     @Transactional
     public OrderDto productReturn(ProductReturnRequest productReturnRequest) {
         log.info("Обработка возврата для заказа: {}", productReturnRequest.getOrderId());
-        Order order = getOrderById(productReturnRequest.getOrderId());
 
-        order.setState(OrderState.PRODUCT_RETURNED);
-        orderRepository.save(order);
+        return transition(productReturnRequest.getOrderId(), OrderState.PRODUCT_RETURNED);
+    }
 
-        return orderMapper.toOrderDto(order);
+    private <T> CompletableFuture<T> step(String name, Supplier<T> call) {
+        Timer timer = stepTimer(name);
+        return CompletableFuture.supplyAsync(() -> timer.record(call), orderCreationExecutor);
+    }
+
+    private Timer stepTimer(String name) {
+        return Timer.builder("order.create.step")
+                .tag("step", name)
+                .publishPercentiles(0.5, 0.99)
+                .register(meterRegistry);
+    }
+
+    private OrderDto pricingDraft(OrderDto draft, BookedProductsDto bookedProducts, UUID deliveryId) {
+        return draft.toBuilder()
+                .deliveryId(deliveryId)
+                .deliveryWeight(bookedProducts.getDeliveryWeight())
+                .deliveryVolume(bookedProducts.getDeliveryVolume())
+                .fragile(bookedProducts.isFragile())
+                .build();
+    }
+
+    private OrderDto withDeliveryPrice(OrderDto draft, BigDecimal deliveryPrice) {
+        return draft.toBuilder()
+                .deliveryPrice(deliveryPrice)
+                .build();
+    }
+
+    /**
+     * Компенсирует шаги несозданного заказа. Событие публикуется, только когда вызов планирования доставки
+     * завершился, иначе отмена могла бы прийти в доставку раньше самой доставки. Повтор запроса получает
+     * новый id заказа, поэтому отмена не заденет его доставку.
+     */
+    private void abortAfter(CompletableFuture<Void> planSettled, UUID orderId) {
+        planSettled.thenRunAsync(() -> {
+            try {
+                transactionTemplate.executeWithoutResult(status ->
+                        outboxPublisher.publish(orderId, OrderEventType.ORDER_ABORTED));
+                log.info("Создание заказа {} прервано, шаги будут отменены", orderId);
+            } catch (RuntimeException e) {
+                log.error("Не удалось записать отмену заказа {}", orderId, e);
+            }
+        }, orderCreationExecutor);
+    }
+
+    private void await(CompletableFuture<?> pipeline, UUID orderId) {
+        try {
+            pipeline.get(orderCreationConfig.getTimeout().toMillis(), TimeUnit.MILLISECONDS);
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof RuntimeException cause) {
+                throw cause;
+            }
+            throw new IllegalStateException(e.getCause());
+        } catch (TimeoutException e) {
+            throw new OrderCreationTimeoutException("Превышено время создания заказа: " + orderId);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException(e);
+        }
+    }
+
+    /**
+     * Смена состояния без загрузки сущности: текущая версия читается из order_view, а orders меняется
+     * одним UPDATE с проверкой этой версии. Если проекция отстала или заказ изменили параллельно,
+     * она пересобирается из orders и попытка повторяется.
+     */
+    private OrderDto transition(UUID orderId, OrderState state) {
+        OrderView current = orderViewRepository.findById(orderId).orElseGet(() -> rebuildView(orderId));
+        for (int attempt = 1; ; attempt++) {
+            if (current.order().getState() == state) {
+                return current.order();
+            }
+
+            if (orderStateRepository.transition(orderId, current.version(), state)) {
+                orderViewRepository.applyState(orderId, state, current.version() + 1);
+                outboxPublisher.publish(orderId, OrderEventType.ORDER_STATE_CHANGED, state);
+                return current.order().toBuilder().state(state).build();
+            }
+
+            if (attempt == MAX_TRANSITION_ATTEMPTS) {
+                throw new OrderConcurrentModificationException("Заказ " + orderId + " изменяется параллельно");
+            }
+            current = rebuildView(orderId);
+        }
+    }
+
+    private OrderView rebuildView(UUID orderId) {
+        Order order = orderRepository.findAllWithDetails(List.of(orderId)).stream()
+                .findFirst()
+                .orElseThrow(() -> new NoOrderFoundException("Заказ не найден: " + orderId));
+        OrderDto dto = orderMapper.toOrderDto(order);
+        orderViewRepository.upsert(dto, order.getUsername(), order.getVersion());
+        return new OrderView(dto, order.getVersion());
+    }
+
+    private OrderDto saveWithView(Order order) {
+        Order saved;
+        try {
+            saved = orderRepository.saveAndFlush(order);
+        } catch (OptimisticLockingFailureException e) {
+            throw new OrderConcurrentModificationException("Заказ " + order.getOrderId() + " изменяется параллельно");
+        }
+        OrderDto dto = orderMapper.toOrderDto(saved);
+        orderViewRepository.upsert(dto, saved.getUsername(), saved.getVersion());
+        return dto;
     }
 
     private Order getOrderById(UUID orderId) {
@@ -10,6 +10,7 @@ CREATE TABLE IF NOT EXISTS addresses (
 CREATE TABLE IF NOT EXISTS orders (
     order_id UUID PRIMARY KEY,
     shopping_cart_id UUID,
+    username VARCHAR(255) NOT NULL,
     payment_id UUID,
     delivery_id UUID,
     order_state VARCHAR(50) NOT NULL,
@@ -21,14 +22,91 @@ CREATE TABLE IF NOT EXISTS orders (
     product_price NUMERIC(15, 2) NOT NULL,
     from_address_id UUID NOT NULL,
     to_address_id UUID NOT NULL,
+    created_at TIMESTAMP WITH TIME ZONE NOT NULL DEFAULT now(),
+    version BIGINT NOT NULL DEFAULT 0,
     FOREIGN KEY (from_address_id) REFERENCES addresses(address_id),
     FOREIGN KEY (to_address_id) REFERENCES addresses(address_id)
 );
 
+ALTER TABLE orders ADD COLUMN IF NOT EXISTS username VARCHAR(255);
+ALTER TABLE orders ADD COLUMN IF NOT EXISTS created_at TIMESTAMP WITH TIME ZONE NOT NULL DEFAULT now();
+ALTER TABLE orders ADD COLUMN IF NOT EXISTS version BIGINT NOT NULL DEFAULT 0;
+
 CREATE TABLE IF NOT EXISTS order_products (
     order_id UUID NOT NULL,
     product_id UUID NOT NULL,
     quantity INTEGER NOT NULL,
     PRIMARY KEY (order_id, product_id),
     FOREIGN KEY (order_id) REFERENCES orders(order_id)
-);
\ No newline at end of file
+);
+
+CREATE TABLE IF NOT EXISTS order_view (
+    order_id UUID PRIMARY KEY,
+    username VARCHAR(255) NOT NULL,
+    shopping_cart_id UUID,
+    payment_id UUID,
+    delivery_id UUID,
+    order_state VARCHAR(50) NOT NULL,
+    delivery_weight DOUBLE PRECISION NOT NULL,
+    delivery_volume DOUBLE PRECISION NOT NULL,
+    fragile BOOLEAN NOT NULL,
+    total_price NUMERIC(15, 2),
+    delivery_price NUMERIC(15, 2),
+    product_price NUMERIC(15, 2),
+    products JSONB NOT NULL,
+    created_at TIMESTAMP WITH TIME ZONE NOT NULL,
+    version BIGINT NOT NULL
+);
+
+-- Список заказов клиента и курсорная история (created_at, order_id) без OFFSET.
+CREATE INDEX IF NOT EXISTS order_view_username_created_idx ON order_view (username, created_at DESC, order_id DESC);
+
+-- Разовое заполнение из orders: пока order_view пуста. Дальше её ведёт сервис, и запуск не сканирует orders.
+INSERT INTO order_view (order_id, username, shopping_cart_id, payment_id, delivery_id, order_state,
+                        delivery_weight, delivery_volume, fragile, total_price, delivery_price, product_price,
+                        products, created_at, version)
+SELECT o.order_id, o.username, o.shopping_cart_id, o.payment_id, o.delivery_id, o.order_state,
+       o.delivery_weight, o.delivery_volume, o.fragile, o.total_price, o.delivery_price, o.product_price,
+       COALESCE((SELECT jsonb_object_agg(p.product_id, p.quantity)
+                 FROM order_products p
+                 WHERE p.order_id = o.order_id), '{}'::jsonb),
+       o.created_at, o.version
+FROM orders o
+WHERE o.username IS NOT NULL
+  AND NOT EXISTS (SELECT 1 FROM order_view)
+ON CONFLICT (order_id) DO NOTHING;
+
+CREATE TABLE IF NOT EXISTS order_requests (
+    idempotency_key VARCHAR(128) PRIMARY KEY,
+    order_id UUID NOT NULL,
+    created_at TIMESTAMP WITH TIME ZONE NOT NULL DEFAULT now(),
+    claimed_at TIMESTAMP WITH TIME ZONE NOT NULL DEFAULT now()
+);
+
+ALTER TABLE order_requests ADD COLUMN IF NOT EXISTS claimed_at TIMESTAMP WITH TIME ZONE NOT NULL DEFAULT now();
+
+CREATE INDEX IF NOT EXISTS order_requests_created_idx ON order_requests (created_at);
+
+CREATE TABLE IF NOT EXISTS outbox_events (
+    event_id UUID PRIMARY KEY,
+    aggregate_id UUID NOT NULL,
+    event_type VARCHAR(50) NOT NULL,
+    payload TEXT NOT NULL,
+    created_at TIMESTAMP WITH TIME ZONE NOT NULL,
+    published_at TIMESTAMP WITH TIME ZONE,
+    claimed_until TIMESTAMP WITH TIME ZONE
+);
+
+ALTER TABLE outbox_events ADD COLUMN IF NOT EXISTS claimed_until TIMESTAMP WITH TIME ZONE;
+
+CREATE INDEX IF NOT EXISTS outbox_events_unpublished_idx ON outbox_events (created_at) WHERE published_at IS NULL;
+
+CREATE INDEX IF NOT EXISTS outbox_events_aggregate_unpublished_idx
+    ON outbox_events (aggregate_id, created_at, event_id) WHERE published_at IS NULL;
+
+CREATE TABLE IF NOT EXISTS processed_events (
+    event_id UUID PRIMARY KEY,
+    processed_at TIMESTAMP WITH TIME ZONE NOT NULL
+);
+
+CREATE INDEX IF NOT EXISTS processed_events_processed_idx ON processed_events (processed_at);
@@ -0,0 +1,23 @@
+package ru.yandex.practicum.config;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.context.annotation.Configuration;
+
+import java.math.BigDecimal;
+import java.time.Duration;
+
+@Data
+@Configuration
+@ConfigurationProperties(prefix = "payment.quote")
+public class PaymentQuoteConfig {
+    private BigDecimal vatRate = BigDecimal.valueOf(0.1);
+
+    /**
+     * Сколько живёт снимок цены товара. Покрывает расчёт при создании заказа и последующую оплату,
+     * но не дольше, чем допустимо списывать по устаревшей цене.
+     */
+    private Duration priceSnapshotTtl = Duration.ofSeconds(5);
+
+    private long priceSnapshotSize = 10_000;
+}
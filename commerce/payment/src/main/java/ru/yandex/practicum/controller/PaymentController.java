@@ -8,9 +8,11 @@ import org.springframework.web.bind.annotation.RequestParam;
 import org.springframework.web.bind.annotation.RestController;
 import ru.yandex.practicum.order.dto.OrderDto;
 import ru.yandex.practicum.payment.dto.PaymentDto;
+import ru.yandex.practicum.payment.dto.PaymentQuoteDto;
 import ru.yandex.practicum.service.PaymentService;
 
 import java.math.BigDecimal;
+import java.util.List;
 import java.util.UUID;
 
 @RestController
@@ -29,6 +31,16 @@ public class PaymentController {
         return paymentService.getTotalCost(orderDto);
     }
 
+    @PostMapping("/quote")
+    PaymentQuoteDto quote(@RequestBody OrderDto orderDto) {
+        return paymentService.quote(orderDto);
+    }
+
+    @PostMapping("/quotes")
+    List<PaymentQuoteDto> quotes(@RequestBody List<OrderDto> orders) {
+        return paymentService.quotes(orders);
+    }
+
     @PostMapping("/success")
     void paymentSuccess(@RequestParam UUID paymentId) {
         paymentService.paymentSuccess(paymentId);
@@ -2,8 +2,11 @@ package ru.yandex.practicum.repository;
 
 import org.springframework.data.jpa.repository.JpaRepository;
 import ru.yandex.practicum.entity.Payment;
+import ru.yandex.practicum.payment.enums.PaymentState;
 
+import java.util.List;
 import java.util.UUID;
 
 public interface PaymentRepository extends JpaRepository<Payment, UUID> {
+    List<Payment> findByOrderIdAndState(UUID orderId, PaymentState state);
 }
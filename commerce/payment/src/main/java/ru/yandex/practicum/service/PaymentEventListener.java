@@ -0,0 +1,40 @@
+package ru.yandex.practicum.service;
+
+import lombok.RequiredArgsConstructor;
+import org.apache.kafka.clients.consumer.ConsumerRecord;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.kafka.annotation.KafkaListener;
+import org.springframework.stereotype.Component;
+import ru.yandex.practicum.order.enums.OrderState;
+import ru.yandex.practicum.saga.dto.OrderEvent;
+import ru.yandex.practicum.saga.enums.OrderEventType;
+import ru.yandex.practicum.saga.inbox.SagaInbox;
+
+import java.util.EnumSet;
+import java.util.Set;
+
+/**
+ * Компенсация оплаты в саге заказа: если заказ уже не будет выполнен, ожидающая оплата отменяется.
+ */
+@Component
+@ConditionalOnProperty(prefix = "saga", name = "enabled", havingValue = "true")
+@RequiredArgsConstructor
+public class PaymentEventListener {
+    private static final Set<OrderState> NOT_FULFILLED = EnumSet.of(
+            OrderState.CANCELED, OrderState.ASSEMBLY_FAILED, OrderState.DELIVERY_FAILED);
+
+    private final PaymentService paymentService;
+    private final SagaInbox sagaInbox;
+
+    @KafkaListener(topics = "${saga.topic}", groupId = "payment-saga")
+    public void onMessage(ConsumerRecord<String, String> record) {
+        sagaInbox.parse(record.value())
+                .filter(event -> event.getType() == OrderEventType.ORDER_STATE_CHANGED
+                        && NOT_FULFILLED.contains(event.getState()))
+                .ifPresent(event -> sagaInbox.handleOnce(event, this::handle));
+    }
+
+    private void handle(OrderEvent event) {
+        paymentService.cancelPayments(event.getOrderId());
+    }
+}
@@ -0,0 +1,68 @@
+package ru.yandex.practicum.service;
+
+import lombok.RequiredArgsConstructor;
+import org.springframework.stereotype.Component;
+import ru.yandex.practicum.config.PaymentQuoteConfig;
+import ru.yandex.practicum.exception.NotEnoughInfoInOrderToCalculateException;
+import ru.yandex.practicum.order.dto.OrderDto;
+import ru.yandex.practicum.payment.dto.PaymentQuoteDto;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.UUID;
+
+/**
+ * Стоимость товаров, НДС и итог заказа за один проход по одному снимку цен.
+ */
+@Component
+@RequiredArgsConstructor
+public class PaymentQuoter {
+    private final PriceSnapshotCache priceSnapshotCache;
+    private final PaymentQuoteConfig config;
+
+    public PaymentQuoteDto quote(OrderDto order) {
+        return quote(order, priceSnapshotCache.prices(order.getProducts().keySet()));
+    }
+
+    /**
+     * Цены всех заказов загружаются одним запросом; порядок результата соответствует порядку заказов.
+     */
+    public List<PaymentQuoteDto> quote(Collection<OrderDto> orders) {
+        Set<UUID> productIds = new HashSet<>();
+        orders.forEach(order -> productIds.addAll(order.getProducts().keySet()));
+        Map<UUID, BigDecimal> prices = priceSnapshotCache.prices(productIds);
+
+        List<PaymentQuoteDto> quotes = new ArrayList<>(orders.size());
+        for (OrderDto order : orders) {
+            quotes.add(quote(order, prices));
+        }
+        return quotes;
+    }
+
+    private PaymentQuoteDto quote(OrderDto order, Map<UUID, BigDecimal> prices) {
+        BigDecimal productTotal = BigDecimal.ZERO;
+        for (Map.Entry<UUID, Integer> entry : order.getProducts().entrySet()) {
+            BigDecimal price = prices.get(entry.getKey());
+            if (price == null) {
+                throw new NotEnoughInfoInOrderToCalculateException("Недостаточно информации в заказе для расчёта");
+            }
+            productTotal = productTotal.add(price.multiply(BigDecimal.valueOf(entry.getValue())));
+        }
+
+        BigDecimal vat = productTotal.multiply(config.getVatRate());
+        BigDecimal deliveryTotal = order.getDeliveryPrice();
+
+        return PaymentQuoteDto.builder()
+                .orderId(order.getOrderId())
+                .productTotal(productTotal)
+                .vat(vat)
+                .deliveryTotal(deliveryTotal)
+                .total(deliveryTotal == null ? null : productTotal.add(vat).add(deliveryTotal))
+                .build();
+    }
+}
@@ -2,8 +2,11 @@ package ru.yandex.practicum.service;
 
 import ru.yandex.practicum.order.dto.OrderDto;
 import ru.yandex.practicum.payment.dto.PaymentDto;
+import ru.yandex.practicum.payment.dto.PaymentQuoteDto;
 
 import java.math.BigDecimal;
+import java.util.Collection;
+import java.util.List;
 import java.util.UUID;
 
 public interface PaymentService {
@@ -13,7 +16,16 @@ public interface PaymentService {
 
     BigDecimal getTotalCost(OrderDto orderDto);
 
+    PaymentQuoteDto quote(OrderDto orderDto);
+
+    List<PaymentQuoteDto> quotes(Collection<OrderDto> orders);
+
     void paymentSuccess(UUID paymentId);
 
     void paymentFailed(UUID paymentId);
+
+    /**
+     * Отменяет ожидающие оплаты заказа, который уже не будет выполнен.
+     */
+    void cancelPayments(UUID orderId);
 }
@@ -9,18 +9,17 @@ import ru.yandex.practicum.exception.PaymentNotFoundException;
 import ru.yandex.practicum.mapper.PaymentMapper;
 import ru.yandex.practicum.entity.Payment;
 import ru.yandex.practicum.order.dto.OrderDto;
-import ru.yandex.practicum.order.feign.OrderClient;
 import ru.yandex.practicum.payment.dto.PaymentDto;
+import ru.yandex.practicum.payment.dto.PaymentQuoteDto;
 import ru.yandex.practicum.payment.enums.PaymentState;
 import ru.yandex.practicum.repository.PaymentRepository;
-import ru.yandex.practicum.shoppingStore.dto.ProductDto;
-import ru.yandex.practicum.shoppingStore.feign.ShoppingStoreClient;
+import ru.yandex.practicum.saga.enums.OrderEventType;
+import ru.yandex.practicum.saga.outbox.OutboxPublisher;
 
 import java.math.BigDecimal;
-import java.util.Map;
+import java.util.Collection;
+import java.util.List;
 import java.util.UUID;
-import java.util.function.Function;
-import java.util.stream.Collectors;
 
 @Service
 @RequiredArgsConstructor
@@ -29,63 +28,45 @@ public class PaymentServiceImpl implements PaymentService {
 
     private final PaymentRepository paymentRepository;
     private final PaymentMapper paymentMapper;
-    private final ShoppingStoreClient shoppingStoreClient;
-    private final OrderClient orderClient;
+    private final PaymentQuoter paymentQuoter;
+    private final OutboxPublisher outboxPublisher;
 
     @Override
-    @Transactional(readOnly = true)
     public BigDecimal productCost(OrderDto orderDto) {
-
-        BigDecimal total = BigDecimal.ZERO;
-
-        Map<UUID, ProductDto> products = shoppingStoreClient.getProductsByIds(orderDto.getProducts().keySet())
-                .stream()
-                .collect(Collectors.toMap(ProductDto::getProductId, Function.identity()));
-
-        for (Map.Entry<UUID, Integer> entry : orderDto.getProducts().entrySet()) {
-            Integer quantity = entry.getValue();
-
-            if (!products.containsKey(entry.getKey())) {
-                throw new NotEnoughInfoInOrderToCalculateException("Недостаточно информации в заказе для расчёта");
-            }
-
-            BigDecimal productPrice = products.get(entry.getKey()).getPrice();
-            BigDecimal lineTotal = productPrice.multiply(BigDecimal.valueOf(quantity));
-            total = total.add(lineTotal);
-        }
+        BigDecimal total = paymentQuoter.quote(orderDto).getProductTotal();
 
         log.info("total cost {}: for order {}", orderDto.getOrderId(), total);
         return total;
     }
 
     @Override
-    @Transactional(readOnly = true)
     public BigDecimal getTotalCost(OrderDto orderDto) {
-        BigDecimal productTotal = productCost(orderDto);
-        BigDecimal deliveryPrice = orderDto.getDeliveryPrice();
-
-        BigDecimal vat = productTotal.multiply(BigDecimal.valueOf(0.1));
-
-        BigDecimal total = productTotal.add(vat).add(deliveryPrice);
+        BigDecimal total = totalOf(paymentQuoter.quote(orderDto));
 
         log.info("total cost {}:  for order {}", orderDto.getOrderId(), total);
         return total;
     }
 
     @Override
-    @Transactional
-    public PaymentDto payment(OrderDto orderDto) {
-        BigDecimal productTotal = productCost(orderDto);
+    public PaymentQuoteDto quote(OrderDto orderDto) {
+        return paymentQuoter.quote(orderDto);
+    }
 
-        BigDecimal deliveryTotal = orderDto.getDeliveryPrice();
+    @Override
+    public List<PaymentQuoteDto> quotes(Collection<OrderDto> orders) {
+        return paymentQuoter.quote(orders);
+    }
 
-        BigDecimal totalPayment = getTotalCost(orderDto);
+    @Override
+    @Transactional
+    public PaymentDto payment(OrderDto orderDto) {
+        PaymentQuoteDto quote = paymentQuoter.quote(orderDto);
 
         Payment payment = Payment.builder()
                 .orderId(orderDto.getOrderId())
-                .productTotal(productTotal)
-                .deliveryTotal(deliveryTotal)
-                .totalPayment(totalPayment)
+                .productTotal(quote.getProductTotal())
+                .deliveryTotal(quote.getDeliveryTotal())
+                .totalPayment(totalOf(quote))
                 .state(PaymentState.PENDING)
                 .build();
 
@@ -102,11 +83,15 @@ public class PaymentServiceImpl implements PaymentService {
 
         Payment payment = paymentRepository.findById(paymentId)
                 .orElseThrow(() -> new PaymentNotFoundException("No payment " + paymentId));
+        if (payment.getState() == PaymentState.CANCELLED) {
+            log.warn("payment id {} is cancelled, success ignored", paymentId);
+            return;
+        }
 
         payment.setState(PaymentState.SUCCESS);
         paymentRepository.save(payment);
 
-        orderClient.completed(payment.getOrderId());
+        outboxPublisher.publish(payment.getOrderId(), OrderEventType.PAYMENT_SUCCEEDED);
     }
 
     @Override
@@ -119,6 +104,22 @@ public class PaymentServiceImpl implements PaymentService {
         payment.setState(PaymentState.FAILED);
         paymentRepository.save(payment);
 
-        orderClient.paymentFailed(payment.getOrderId());
+        outboxPublisher.publish(payment.getOrderId(), OrderEventType.PAYMENT_FAILED);
+    }
+
+    @Override
+    @Transactional
+    public void cancelPayments(UUID orderId) {
+        for (Payment payment : paymentRepository.findByOrderIdAndState(orderId, PaymentState.PENDING)) {
+            payment.setState(PaymentState.CANCELLED);
+            log.info("payment id {} cancelled for order {}", payment.getPaymentId(), orderId);
+        }
+    }
+
+    private static BigDecimal totalOf(PaymentQuoteDto quote) {
+        if (quote.getTotal() == null) {
+            throw new NotEnoughInfoInOrderToCalculateException("Не указана стоимость доставки заказа " + quote.getOrderId());
+        }
+        return quote.getTotal();
     }
 }
@@ -0,0 +1,56 @@
+package ru.yandex.practicum.service;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.stereotype.Component;
+import ru.yandex.practicum.config.PaymentQuoteConfig;
+import ru.yandex.practicum.shoppingStore.dto.ProductDto;
+import ru.yandex.practicum.shoppingStore.feign.ShoppingStoreClient;
+
+import java.math.BigDecimal;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Set;
+import java.util.UUID;
+
+/**
+ * Короткоживущий снимок цен товаров. Все промахи одного расчёта загружаются одним запросом к shopping-store;
+ * товары, которых там нет, не кэшируются. Загрузка идёт мимо near-cache shopping-store: иначе снимок
+ * складывался бы с его сроком, и цена могла бы отставать на оба срока сразу.
+ */
+@Component
+public class PriceSnapshotCache {
+    private final ShoppingStoreClient shoppingStoreClient;
+    private final Cache<UUID, BigDecimal> prices;
+
+    public PriceSnapshotCache(@Qualifier(ShoppingStoreClient.FEIGN_QUALIFIER) ShoppingStoreClient shoppingStoreClient,
+                              PaymentQuoteConfig config,
+                              MeterRegistry meterRegistry) {
+        this.shoppingStoreClient = shoppingStoreClient;
+        this.prices = Caffeine.newBuilder()
+                .maximumSize(config.getPriceSnapshotSize())
+                .expireAfterWrite(config.getPriceSnapshotTtl())
+                .recordStats()
+                .build();
+        CaffeineCacheMetrics.monitor(meterRegistry, prices, "price-snapshots");
+    }
+
+    /**
+     * @return цены найденных товаров
+     */
+    public Map<UUID, BigDecimal> prices(Collection<UUID> productIds) {
+        return prices.getAll(productIds, this::load);
+    }
+
+    private Map<UUID, BigDecimal> load(Collection<? extends UUID> productIds) {
+        Map<UUID, BigDecimal> loaded = new HashMap<>();
+        for (ProductDto product : shoppingStoreClient.getProductsByIds(Set.copyOf(productIds))) {
+            loaded.put(product.getProductId(), product.getPrice());
+        }
+        return loaded;
+    }
+}
@@ -1,8 +1,34 @@
 CREATE TABLE IF NOT EXISTS payments (
     payment_id UUID PRIMARY KEY DEFAULT gen_random_uuid(),
     order_id UUID NOT NULL,
-    total_payment NUMERIC(15, 2) NOT NULL,
+    product_total NUMERIC(15, 2) NOT NULL,
     delivery_total NUMERIC(15, 2) NOT NULL,
-    fee_total NUMERIC(15, 2) NOT NULL,
+    total_payment NUMERIC(15, 2) NOT NULL,
     payment_state VARCHAR(50) NOT NULL
-);
\ No newline at end of file
+);
+
+ALTER TABLE payments ADD COLUMN IF NOT EXISTS product_total NUMERIC(15, 2);
+
+CREATE TABLE IF NOT EXISTS outbox_events (
+    event_id UUID PRIMARY KEY,
+    aggregate_id UUID NOT NULL,
+    event_type VARCHAR(50) NOT NULL,
+    payload TEXT NOT NULL,
+    created_at TIMESTAMP WITH TIME ZONE NOT NULL,
+    published_at TIMESTAMP WITH TIME ZONE,
+    claimed_until TIMESTAMP WITH TIME ZONE
+);
+
+ALTER TABLE outbox_events ADD COLUMN IF NOT EXISTS claimed_until TIMESTAMP WITH TIME ZONE;
+
+CREATE INDEX IF NOT EXISTS outbox_events_unpublished_idx ON outbox_events (created_at) WHERE published_at IS NULL;
+
+CREATE INDEX IF NOT EXISTS outbox_events_aggregate_unpublished_idx
+    ON outbox_events (aggregate_id, created_at, event_id) WHERE published_at IS NULL;
+
+CREATE TABLE IF NOT EXISTS processed_events (
+    event_id UUID PRIMARY KEY,
+    processed_at TIMESTAMP WITH TIME ZONE NOT NULL
+);
+
+CREATE INDEX IF NOT EXISTS processed_events_processed_idx ON processed_events (processed_at);
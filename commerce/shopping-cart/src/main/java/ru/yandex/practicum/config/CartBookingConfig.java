@@ -0,0 +1,33 @@
+package ru.yandex.practicum.config;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+import java.time.Duration;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+@Configuration
+@ConfigurationProperties(prefix = "shopping-cart.booking")
+@Data
+public class CartBookingConfig {
+    /**
+     * Через сколько бронь без ответа склада отправляется повторно.
+     */
+    private Duration retryAfter = Duration.ofSeconds(30);
+
+    /**
+     * После стольких попыток бронь считается неудавшейся и корзина снова доступна для изменений.
+     * Если склад всё же принял бронь, она снимется по своему сроку.
+     */
+    private int maxAttempts = 5;
+
+    private int retryBatchSize = 100;
+
+    @Bean(destroyMethod = "close")
+    public ExecutorService cartBookingExecutor() {
+        return Executors.newVirtualThreadPerTaskExecutor();
+    }
+}
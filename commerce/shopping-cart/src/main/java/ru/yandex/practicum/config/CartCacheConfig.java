@@ -0,0 +1,23 @@
+package ru.yandex.practicum.config;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.context.annotation.Configuration;
+
+import java.time.Duration;
+
+@Configuration
+@ConfigurationProperties(prefix = "shopping-cart.cart-cache")
+@Data
+public class CartCacheConfig {
+    public static final String EVICTION_TOPIC = "commerce.cart-evictions.v1";
+
+    private long maximumSize = 100_000;
+
+    /**
+     * Ограничивает устаревание корзины на экземпляре, переставшем быть её владельцем после смены состава кольца.
+     */
+    private Duration expireAfterWrite = Duration.ofMinutes(2);
+
+    private String evictionTopic = EVICTION_TOPIC;
+}
@@ -2,8 +2,10 @@ package ru.yandex.practicum.controller;
 
 import jakarta.validation.Valid;
 import lombok.RequiredArgsConstructor;
+import org.springframework.http.HttpStatus;
 import org.springframework.web.bind.annotation.*;
 import ru.yandex.practicum.service.ShoppingCartService;
+import ru.yandex.practicum.shoppingCart.dto.CartBookingDto;
 import ru.yandex.practicum.shoppingCart.dto.ChangeProductQuantityRequest;
 import ru.yandex.practicum.shoppingCart.dto.ShoppingCartDto;
 import ru.yandex.practicum.warehouse.dto.BookedProductsDto;
@@ -49,4 +51,15 @@ public class ShoppingCartController {
     public BookedProductsDto bookProducts(@RequestParam String username) {
         return shoppingCartService.bookProducts(username);
     }
+
+    @PostMapping("/booking/async")
+    @ResponseStatus(HttpStatus.ACCEPTED)
+    public CartBookingDto submitBooking(@RequestParam String username) {
+        return shoppingCartService.submitBooking(username);
+    }
+
+    @GetMapping("/booking/{shoppingCartId}")
+    public CartBookingDto getBooking(@RequestParam String username, @PathVariable UUID shoppingCartId) {
+        return shoppingCartService.getBooking(username, shoppingCartId);
+    }
 }
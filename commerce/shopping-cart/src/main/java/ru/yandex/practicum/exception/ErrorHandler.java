@@ -41,6 +41,13 @@ public class ErrorHandler {
         return errorResponse(HttpStatus.NOT_FOUND, "Корзина не найдена", ex);
     }
 
+    @ExceptionHandler(CartBookingInProgressException.class)
+    @ResponseStatus(HttpStatus.CONFLICT)
+    public ErrorResponse handleCartBookingInProgressException(CartBookingInProgressException ex) {
+        log.error("Корзина бронируется", ex);
+        return errorResponse(HttpStatus.CONFLICT, "Корзина бронируется", ex);
+    }
+
     @ExceptionHandler(InternalServerErrorException.class)
     @ResponseStatus(HttpStatus.INTERNAL_SERVER_ERROR)
     public ErrorResponse handleInternalServerErrorException(InternalServerErrorException ex) {
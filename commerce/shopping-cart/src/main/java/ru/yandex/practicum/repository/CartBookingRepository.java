@@ -0,0 +1,172 @@
+package ru.yandex.practicum.repository;
+
+import lombok.RequiredArgsConstructor;
+import org.springframework.jdbc.core.namedparam.MapSqlParameterSource;
+import org.springframework.jdbc.core.namedparam.NamedParameterJdbcTemplate;
+import org.springframework.stereotype.Repository;
+import ru.yandex.practicum.shoppingCart.dto.CartBookingDto;
+import ru.yandex.practicum.shoppingCart.enums.CartBookingState;
+import ru.yandex.practicum.warehouse.dto.BookedProductsDto;
+
+import java.sql.Timestamp;
+import java.time.Instant;
+import java.util.List;
+import java.util.Optional;
+import java.util.UUID;
+
+/**
+ * Состояние брони корзины на складе. Пока бронь в PENDING, корзина не меняется: изменения и отправка брони
+ * блокируют строку корзины, поэтому на склад уходит ровно тот состав, который останется в корзине.
+ */
+@Repository
+@RequiredArgsConstructor
+public class CartBookingRepository {
+    private static final String LOCK_ACTIVE_SQL = """
+            SELECT c.shopping_cart_id, b.state
+            FROM shopping_carts c
+            LEFT JOIN cart_bookings b ON b.shopping_cart_id = c.shopping_cart_id
+            WHERE c.username = :username AND c.active
+            LIMIT 1
+            FOR UPDATE OF c""";
+
+    private static final String START_SQL = """
+            INSERT INTO cart_bookings (shopping_cart_id, username, state, attempts, updated_at)
+            VALUES (:shoppingCartId, :username, 'PENDING', 1, :now)
+            ON CONFLICT (shopping_cart_id) DO UPDATE
+            SET state = 'PENDING', attempts = 1, error = NULL, updated_at = EXCLUDED.updated_at
+            WHERE cart_bookings.state = 'FAILED'""";
+
+    private static final String COMPLETE_SQL = """
+            UPDATE cart_bookings
+            SET state = 'BOOKED', delivery_weight = :deliveryWeight, delivery_volume = :deliveryVolume,
+                fragile = :fragile, error = NULL, updated_at = :now
+            WHERE shopping_cart_id = :shoppingCartId AND state = 'PENDING'""";
+
+    private static final String DEACTIVATE_CART_SQL = """
+            UPDATE shopping_carts SET active = false WHERE shopping_cart_id = :shoppingCartId""";
+
+    private static final String FAIL_SQL = """
+            UPDATE cart_bookings
+            SET state = 'FAILED', error = :error, updated_at = :now
+            WHERE shopping_cart_id = :shoppingCartId AND state = 'PENDING'""";
+
+    private static final String CLAIM_STALE_SQL = """
+            UPDATE cart_bookings
+            SET attempts = attempts + 1, updated_at = :now
+            WHERE shopping_cart_id IN (
+                SELECT shopping_cart_id
+                FROM cart_bookings
+                WHERE state = 'PENDING' AND updated_at < :before
+                ORDER BY updated_at
+                LIMIT :limit
+                FOR UPDATE SKIP LOCKED)
+            RETURNING shopping_cart_id, username, attempts""";
+
+    private static final String FIND_SQL = """
+            SELECT shopping_cart_id, state, delivery_weight, delivery_volume, fragile, error
+            FROM cart_bookings
+            WHERE shopping_cart_id = :shoppingCartId AND username = :username""";
+
+    private static final int MAX_ERROR_LENGTH = 1024;
+
+    private final NamedParameterJdbcTemplate jdbcTemplate;
+
+    /**
+     * Блокирует активную корзину пользователя до конца транзакции.
+     */
+    public Optional<ActiveCart> lockActiveCart(String username) {
+        return jdbcTemplate.query(LOCK_ACTIVE_SQL, new MapSqlParameterSource("username", username),
+                        (rs, rowNum) -> {
+                            String state = rs.getString("state");
+                            return new ActiveCart(
+                                    rs.getObject("shopping_cart_id", UUID.class),
+                                    state == null ? null : CartBookingState.valueOf(state));
+                        })
+                .stream()
+                .findFirst();
+    }
+
+    /**
+     * @return false, если у корзины уже есть бронь не в FAILED
+     */
+    public boolean start(UUID shoppingCartId, String username) {
+        return jdbcTemplate.update(START_SQL, new MapSqlParameterSource()
+                .addValue("shoppingCartId", shoppingCartId)
+                .addValue("username", username)
+                .addValue("now", Timestamp.from(Instant.now()))) > 0;
+    }
+
+    /**
+     * Фиксирует бронь и закрывает корзину.
+     *
+     * @return false, если бронь уже не в PENDING: её признали неудавшейся, и корзина остаётся открытой
+     */
+    public boolean complete(UUID shoppingCartId, BookedProductsDto bookedProducts) {
+        int updated = jdbcTemplate.update(COMPLETE_SQL, new MapSqlParameterSource()
+                .addValue("shoppingCartId", shoppingCartId)
+                .addValue("deliveryWeight", bookedProducts.getDeliveryWeight())
+                .addValue("deliveryVolume", bookedProducts.getDeliveryVolume())
+                .addValue("fragile", bookedProducts.isFragile())
+                .addValue("now", Timestamp.from(Instant.now())));
+        if (updated == 0) {
+            return false;
+        }
+        jdbcTemplate.update(DEACTIVATE_CART_SQL, new MapSqlParameterSource("shoppingCartId", shoppingCartId));
+        return true;
+    }
+
+    public void fail(UUID shoppingCartId, String error) {
+        String message = error == null || error.length() <= MAX_ERROR_LENGTH
+                ? error
+                : error.substring(0, MAX_ERROR_LENGTH);
+        jdbcTemplate.update(FAIL_SQL, new MapSqlParameterSource()
+                .addValue("shoppingCartId", shoppingCartId)
+                .addValue("error", message)
+                .addValue("now", Timestamp.from(Instant.now())));
+    }
+
+    /**
+     * Забирает брони, по которым склад не ответил с before, и отмечает новую попытку.
+     */
+    public List<StaleBooking> claimStale(Instant before, int limit) {
+        return jdbcTemplate.query(CLAIM_STALE_SQL, new MapSqlParameterSource()
+                        .addValue("now", Timestamp.from(Instant.now()))
+                        .addValue("before", Timestamp.from(before))
+                        .addValue("limit", limit),
+                (rs, rowNum) -> new StaleBooking(
+                        rs.getObject("shopping_cart_id", UUID.class),
+                        rs.getString("username"),
+                        rs.getInt("attempts")));
+    }
+
+    public Optional<CartBookingDto> find(UUID shoppingCartId, String username) {
+        return jdbcTemplate.query(FIND_SQL, new MapSqlParameterSource()
+                        .addValue("shoppingCartId", shoppingCartId)
+                        .addValue("username", username),
+                (rs, rowNum) -> {
+                    CartBookingState state = CartBookingState.valueOf(rs.getString("state"));
+                    return CartBookingDto.builder()
+                            .shoppingCartId(rs.getObject("shopping_cart_id", UUID.class))
+                            .state(state)
+                            .bookedProducts(state == CartBookingState.BOOKED
+                                    ? new BookedProductsDto(
+                                            rs.getDouble("delivery_weight"),
+                                            rs.getDouble("delivery_volume"),
+                                            rs.getBoolean("fragile"))
+                                    : null)
+                            .error(rs.getString("error"))
+                            .build();
+                })
+                .stream()
+                .findFirst();
+    }
+
+    /**
+     * @param bookingState состояние последней брони корзины или null, если её не бронировали
+     */
+    public record ActiveCart(UUID shoppingCartId, CartBookingState bookingState) {
+    }
+
+    public record StaleBooking(UUID shoppingCartId, String username, int attempts) {
+    }
+}
@@ -0,0 +1,51 @@
+package ru.yandex.practicum.repository;
+
+import lombok.RequiredArgsConstructor;
+import org.springframework.jdbc.core.namedparam.MapSqlParameterSource;
+import org.springframework.jdbc.core.namedparam.NamedParameterJdbcTemplate;
+import org.springframework.stereotype.Repository;
+
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.UUID;
+
+/**
+ * Изменение позиций корзины без загрузки всей коллекции: добавление идёт одним батчем upsert-ов.
+ */
+@Repository
+@RequiredArgsConstructor
+public class ShoppingCartItemRepository {
+    private static final String ADD_SQL = """
+            INSERT INTO shopping_cart_items (shopping_cart_id, product_id, quantity)
+            VALUES (:shoppingCartId, :productId, :quantity)
+            ON CONFLICT (shopping_cart_id, product_id)
+            DO UPDATE SET quantity = shopping_cart_items.quantity + EXCLUDED.quantity""";
+
+    private static final String SET_SQL = """
+            UPDATE shopping_cart_items
+            SET quantity = :quantity
+            WHERE shopping_cart_id = :shoppingCartId AND product_id = :productId""";
+
+    private final NamedParameterJdbcTemplate jdbcTemplate;
+
+    public void addQuantities(UUID shoppingCartId, Map<UUID, Integer> quantities) {
+        MapSqlParameterSource[] batch = new TreeMap<>(quantities).entrySet().stream()
+                .map(entry -> params(shoppingCartId, entry.getKey(), entry.getValue()))
+                .toArray(MapSqlParameterSource[]::new);
+        jdbcTemplate.batchUpdate(ADD_SQL, batch);
+    }
+
+    /**
+     * @return false, если товара нет в корзине
+     */
+    public boolean setQuantity(UUID shoppingCartId, UUID productId, int quantity) {
+        return jdbcTemplate.update(SET_SQL, params(shoppingCartId, productId, quantity)) > 0;
+    }
+
+    private MapSqlParameterSource params(UUID shoppingCartId, UUID productId, int quantity) {
+        return new MapSqlParameterSource()
+                .addValue("shoppingCartId", shoppingCartId)
+                .addValue("productId", productId)
+                .addValue("quantity", quantity);
+    }
+}
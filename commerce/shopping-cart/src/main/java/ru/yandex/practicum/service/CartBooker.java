@@ -0,0 +1,153 @@
+package ru.yandex.practicum.service;
+
+import feign.FeignException;
+import jakarta.ws.rs.ClientErrorException;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionTemplate;
+import ru.yandex.practicum.config.CartBookingConfig;
+import ru.yandex.practicum.entity.ShoppingCart;
+import ru.yandex.practicum.exception.CartBookingInProgressException;
+import ru.yandex.practicum.exception.CartNotFoundException;
+import ru.yandex.practicum.exception.NoProductsInShoppingCartException;
+import ru.yandex.practicum.mapper.ShoppingCartMapper;
+import ru.yandex.practicum.repository.CartBookingRepository;
+import ru.yandex.practicum.repository.CartBookingRepository.ActiveCart;
+import ru.yandex.practicum.repository.CartBookingRepository.StaleBooking;
+import ru.yandex.practicum.repository.ShoppingCartRepository;
+import ru.yandex.practicum.shoppingCart.dto.CartBookingDto;
+import ru.yandex.practicum.shoppingCart.dto.ShoppingCartDto;
+import ru.yandex.practicum.shoppingCart.enums.CartBookingState;
+import ru.yandex.practicum.warehouse.dto.BookedProductsDto;
+import ru.yandex.practicum.warehouse.feign.WarehouseClient;
+
+import java.time.Instant;
+import java.util.UUID;
+import java.util.concurrent.ExecutorService;
+
+/**
+ * Бронирование корзины на складе без удалённого вызова внутри транзакции корзины. Отправка коротко
+ * фиксирует PENDING, после чего корзина не меняется; вызов склада идёт отдельно, а результат записывается
+ * второй короткой транзакцией. Если склад не ответил определённо, бронь остаётся PENDING и планировщик
+ * повторяет её: на повтор той же корзины склад отвечает уже сделанной бронью.
+ */
+@Slf4j
+@Component
+@RequiredArgsConstructor
+public class CartBooker {
+    private final CartBookingRepository cartBookingRepository;
+    private final ShoppingCartRepository shoppingCartRepository;
+    private final ShoppingCartMapper shoppingCartMapper;
+    private final WarehouseClient warehouseClient;
+    private final CartEvictions cartEvictions;
+    private final TransactionTemplate transactionTemplate;
+    private final CartBookingConfig config;
+    private final ExecutorService cartBookingExecutor;
+
+    /**
+     * Ставит бронь в очередь и сразу возвращает PENDING; результат читается через {@link #status}.
+     * Повторная отправка, пока бронь в PENDING, ничего не меняет.
+     */
+    public CartBookingDto submit(String username) {
+        Submission submission = start(username);
+        if (submission.started()) {
+            cartBookingExecutor.execute(() -> attemptQuietly(username, submission.cart()));
+        }
+        return CartBookingDto.builder()
+                .shoppingCartId(submission.cart().getShoppingCartId())
+                .state(CartBookingState.PENDING)
+                .build();
+    }
+
+    /**
+     * Бронирует и ждёт ответа склада в потоке запроса.
+     */
+    public BookedProductsDto book(String username) {
+        Submission submission = start(username);
+        if (!submission.started()) {
+            throw new CartBookingInProgressException("booking in progress, user " + username);
+        }
+        return attempt(username, submission.cart());
+    }
+
+    public CartBookingDto status(String username, UUID shoppingCartId) {
+        return cartBookingRepository.find(shoppingCartId, username)
+                .orElseThrow(() -> new CartNotFoundException("booking not found for cart " + shoppingCartId));
+    }
+
+    @Scheduled(fixedDelayString = "${shopping-cart.booking.retry-interval-ms:10000}")
+    public void retryStale() {
+        try {
+            for (StaleBooking stale : cartBookingRepository.claimStale(
+                    Instant.now().minus(config.getRetryAfter()), config.getRetryBatchSize())) {
+                if (stale.attempts() > config.getMaxAttempts()) {
+                    cartBookingRepository.fail(stale.shoppingCartId(), "warehouse did not respond");
+                    continue;
+                }
+                ShoppingCartDto cart = transactionTemplate.execute(status ->
+                        shoppingCartRepository.findById(stale.shoppingCartId())
+                                .map(shoppingCartMapper::toShoppingCartDto)
+                                .orElse(null));
+                if (cart != null) {
+                    cartBookingExecutor.execute(() -> attemptQuietly(stale.username(), cart));
+                }
+            }
+        } catch (Exception e) {
+            log.warn("Повтор зависших броней не удался: {}", e.getMessage());
+        }
+    }
+
+    private Submission start(String username) {
+        return transactionTemplate.execute(status -> {
+            ActiveCart active = cartBookingRepository.lockActiveCart(username)
+                    .orElseThrow(() -> new NoProductsInShoppingCartException("product cart not found for user: " + username));
+            ShoppingCartDto pending = ShoppingCartDto.builder().shoppingCartId(active.shoppingCartId()).build();
+            if (active.bookingState() == CartBookingState.PENDING) {
+                return new Submission(pending, false);
+            }
+
+            ShoppingCart shoppingCart = shoppingCartRepository.findById(active.shoppingCartId())
+                    .orElseThrow(() -> new NoProductsInShoppingCartException("product cart not found for user: " + username));
+            if (shoppingCart.getProducts().isEmpty()) {
+                throw new NoProductsInShoppingCartException("product cart is empty, user " + username);
+            }
+            if (!cartBookingRepository.start(active.shoppingCartId(), username)) {
+                return new Submission(pending, false);
+            }
+            return new Submission(shoppingCartMapper.toShoppingCartDto(shoppingCart), true);
+        });
+    }
+
+    private BookedProductsDto attempt(String username, ShoppingCartDto cart) {
+        UUID shoppingCartId = cart.getShoppingCartId();
+        BookedProductsDto booked;
+        try {
+            booked = warehouseClient.bookProducts(cart);
+        } catch (ClientErrorException | FeignException.FeignClientException e) {
+            log.warn("booking rejected, user {}, cause {}", username, e.getMessage());
+            cartBookingRepository.fail(shoppingCartId, e.getMessage());
+            throw e;
+        }
+
+        if (Boolean.TRUE.equals(transactionTemplate.execute(status ->
+                cartBookingRepository.complete(shoppingCartId, booked)))) {
+            // Повтор по расписанию идёт на любом экземпляре, поэтому сброс рассылается и владельцу корзины.
+            cartEvictions.evict(username);
+            log.info("booking completed, user {}", username);
+        }
+        return booked;
+    }
+
+    private void attemptQuietly(String username, ShoppingCartDto cart) {
+        try {
+            attempt(username, cart);
+        } catch (RuntimeException e) {
+            log.warn("booking attempt failed, user {}, cause {}", username, e.getMessage());
+        }
+    }
+
+    private record Submission(ShoppingCartDto cart, boolean started) {
+    }
+}
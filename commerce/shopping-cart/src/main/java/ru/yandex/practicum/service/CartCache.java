@@ -0,0 +1,80 @@
+package ru.yandex.practicum.service;
+
+import com.github.benmanes.caffeine.cache.AsyncCache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import ru.yandex.practicum.cache.LoadingFutures;
+import ru.yandex.practicum.config.CartCacheConfig;
+import ru.yandex.practicum.shoppingCart.dto.ShoppingCartDto;
+
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.function.Function;
+
+/**
+ * Активная корзина пользователя в памяти экземпляра. Шлюз направляет запросы одного пользователя на один
+ * экземпляр по консистентному хэшу username, поэтому кэш владельца видит все изменения корзины: запись идёт
+ * в Postgres, а после коммита новое состояние кладётся в кэш. Короткий TTL ограничивает устаревание на
+ * экземпляре, который перестал быть владельцем при смене состава кольца.
+ * <p>
+ * Промахи загружаются через {@link LoadingFutures}.
+ */
+@Component
+public class CartCache {
+    private final AsyncCache<String, ShoppingCartDto> cache;
+
+    public CartCache(CartCacheConfig config, MeterRegistry meterRegistry) {
+        this.cache = Caffeine.newBuilder()
+                .maximumSize(config.getMaximumSize())
+                .expireAfterWrite(config.getExpireAfterWrite())
+                .recordStats()
+                .buildAsync();
+        CaffeineCacheMetrics.monitor(meterRegistry, cache, "carts");
+    }
+
+    public ShoppingCartDto get(String username, Function<String, ShoppingCartDto> loader) {
+        return LoadingFutures.get(cache, username, name -> snapshot(loader.apply(name)));
+    }
+
+    /**
+     * Кладёт корзину после коммита; до него и при откате запись отсутствует, и чтение идёт в базу.
+     */
+    public void put(String username, ShoppingCartDto cart) {
+        ShoppingCartDto snapshot = snapshot(cart);
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            cache.put(username, CompletableFuture.completedFuture(snapshot));
+            return;
+        }
+        cache.synchronous().invalidate(username);
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCompletion(int status) {
+                if (status == STATUS_COMMITTED) {
+                    cache.put(username, CompletableFuture.completedFuture(snapshot));
+                } else {
+                    cache.synchronous().invalidate(username);
+                }
+            }
+        });
+    }
+
+    public void invalidate(String username) {
+        cache.synchronous().invalidate(username);
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCompletion(int status) {
+                    cache.synchronous().invalidate(username);
+                }
+            });
+        }
+    }
+
+    private static ShoppingCartDto snapshot(ShoppingCartDto cart) {
+        return new ShoppingCartDto(cart.getShoppingCartId(), Map.copyOf(cart.getProducts()));
+    }
+}
@@ -0,0 +1,40 @@
+package ru.yandex.practicum.service;
+
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.apache.kafka.clients.consumer.ConsumerRecord;
+import org.springframework.kafka.annotation.KafkaListener;
+import org.springframework.kafka.core.KafkaTemplate;
+import org.springframework.stereotype.Component;
+import ru.yandex.practicum.config.CartCacheConfig;
+
+/**
+ * Сброс корзины в кэшах всех экземпляров. Нужен, когда корзину меняет не её владелец, например повтор
+ * брони по расписанию: локальный сброс на таком экземпляре не трогает кэш владельца. Каждый экземпляр
+ * читает топик своей группой с позиции latest; отправка best-effort, потерю перекрывает TTL кэша.
+ */
+@Slf4j
+@Component
+@RequiredArgsConstructor
+public class CartEvictions {
+    private final CartCache cartCache;
+    private final KafkaTemplate<String, String> kafkaTemplate;
+    private final CartCacheConfig config;
+
+    public void evict(String username) {
+        cartCache.invalidate(username);
+        kafkaTemplate.send(config.getEvictionTopic(), username, username)
+                .whenComplete((result, e) -> {
+                    if (e != null) {
+                        log.warn("Сброс корзины {} не отправлен: {}", username, e.getMessage());
+                    }
+                });
+    }
+
+    @KafkaListener(topics = "${shopping-cart.cart-cache.eviction-topic:" + CartCacheConfig.EVICTION_TOPIC + "}",
+            groupId = "${spring.application.name}-cart-cache-${random.uuid}",
+            properties = "auto.offset.reset=latest")
+    public void onMessage(ConsumerRecord<String, String> record) {
+        cartCache.invalidate(record.value());
+    }
+}
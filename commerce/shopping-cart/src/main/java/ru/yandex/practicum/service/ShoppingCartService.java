@@ -1,5 +1,6 @@
 package ru.yandex.practicum.service;
 
+import ru.yandex.practicum.shoppingCart.dto.CartBookingDto;
 import ru.yandex.practicum.shoppingCart.dto.ChangeProductQuantityRequest;
 import ru.yandex.practicum.shoppingCart.dto.ShoppingCartDto;
 import ru.yandex.practicum.warehouse.dto.BookedProductsDto;
@@ -20,4 +21,8 @@ public interface ShoppingCartService {
     ShoppingCartDto changeProductQuantity(String username, ChangeProductQuantityRequest request);
 
     BookedProductsDto bookProducts(String username);
+
+    CartBookingDto submitBooking(String username);
+
+    CartBookingDto getBooking(String username, UUID shoppingCartId);
 }
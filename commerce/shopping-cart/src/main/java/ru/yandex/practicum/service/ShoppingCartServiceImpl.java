@@ -5,24 +5,32 @@ import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
 import ru.yandex.practicum.entity.ShoppingCart;
+import ru.yandex.practicum.exception.CartBookingInProgressException;
 import ru.yandex.practicum.exception.NoProductsInShoppingCartException;
 import ru.yandex.practicum.exception.NotAuthorizedUserException;
 import ru.yandex.practicum.exception.ProductNotAvailableException;
 import ru.yandex.practicum.mapper.ShoppingCartMapper;
+import ru.yandex.practicum.repository.CartBookingRepository;
+import ru.yandex.practicum.repository.CartBookingRepository.ActiveCart;
+import ru.yandex.practicum.repository.ShoppingCartItemRepository;
 import ru.yandex.practicum.repository.ShoppingCartRepository;
+import ru.yandex.practicum.shoppingCart.dto.CartBookingDto;
 import ru.yandex.practicum.shoppingCart.dto.ChangeProductQuantityRequest;
 import ru.yandex.practicum.shoppingCart.dto.ShoppingCartDto;
+import ru.yandex.practicum.shoppingCart.enums.CartBookingState;
 import ru.yandex.practicum.shoppingStore.dto.ProductDto;
 import ru.yandex.practicum.shoppingStore.enums.ProductState;
 import ru.yandex.practicum.shoppingStore.enums.QuantityState;
 import ru.yandex.practicum.shoppingStore.feign.ShoppingStoreClient;
 import ru.yandex.practicum.warehouse.dto.BookedProductsDto;
-import ru.yandex.practicum.warehouse.feign.WarehouseClient;
 
 import java.util.HashMap;
 import java.util.Map;
 import java.util.UUID;
+import java.util.function.Function;
+import java.util.stream.Collectors;
 
 @Service
 @RequiredArgsConstructor
@@ -33,36 +41,32 @@ public class ShoppingCartServiceImpl implements ShoppingCartService {
     private static final int ENOUGH_COUNT = 20;
     private final ShoppingCartRepository shoppingCartRepository;
     private final ShoppingStoreClient shoppingStoreClient;
-    private final WarehouseClient warehouseClient;
     private final ShoppingCartMapper shoppingCartMapper;
+    private final ShoppingCartItemRepository shoppingCartItemRepository;
+    private final TransactionTemplate transactionTemplate;
+    private final CartCache cartCache;
+    private final CartBookingRepository cartBookingRepository;
+    private final CartBooker cartBooker;
 
     @Override
-    @Transactional(readOnly = true)
     public ShoppingCartDto getShoppingCart(String username) {
         log.info("getShoppingCart user: {}", username);
         validateUsername(username);
 
-        ShoppingCart shoppingCart = shoppingCartRepository.findByUsernameAndActive(username, true)
-                .orElseGet(() -> createNewShoppingCart(username));
-        return shoppingCartMapper.toShoppingCartDto(shoppingCart);
+        return cartCache.get(username, this::loadShoppingCart);
     }
 
     @Override
-    @Transactional
     public ShoppingCartDto addProducts(String username, Map<UUID, Integer> products) {
         log.info("addProducts user: {}", username);
         validateUsername(username);
+        checkProductsQuantityState(products);
 
-        ShoppingCart shoppingCart = getActiveShoppingCart(username);
-
-        for (Map.Entry<UUID, Integer> entry : products.entrySet()) {
-            UUID productId = entry.getKey();
-            int quantity = entry.getValue();
-            checkProductQuantityState(productId, quantity);
-            updateProductQuantity(shoppingCart, productId, quantity);
-        }
-        shoppingCartRepository.save(shoppingCart);
-        return shoppingCartMapper.toShoppingCartDto(shoppingCart);
+        return transactionTemplate.execute(status -> {
+            UUID shoppingCartId = lockActiveShoppingCart(username);
+            shoppingCartItemRepository.addQuantities(shoppingCartId, products);
+            return writeThrough(username, getActiveShoppingCart(username));
+        });
     }
 
     @Override
@@ -73,6 +77,7 @@ public class ShoppingCartServiceImpl implements ShoppingCartService {
 
         shoppingCart.setActive(false);
         shoppingCartRepository.save(shoppingCart);
+        cartCache.invalidate(username);
         log.info("Корзина пользователя {} успешно деактивирована.", username);
     }
 
@@ -82,6 +87,7 @@ public class ShoppingCartServiceImpl implements ShoppingCartService {
         log.info("Удаление товаров из корзины для пользователя: {}", username);
         validateUsername(username);
 
+        lockActiveShoppingCart(username);
         ShoppingCart shoppingCart = getActiveShoppingCart(username);
 
         for (Map.Entry<UUID, Integer> entry : products.entrySet()) {
@@ -91,66 +97,76 @@ public class ShoppingCartServiceImpl implements ShoppingCartService {
         }
 
         shoppingCartRepository.save(shoppingCart);
-        ShoppingCartDto shoppingCartDto = shoppingCartMapper.toShoppingCartDto(shoppingCart);
+        ShoppingCartDto shoppingCartDto = writeThrough(username, shoppingCart);
         log.info("Корзина пользователя {} успешно обновлена: {}", username, shoppingCartDto);
         return shoppingCartDto;
     }
 
     @Override
-    @Transactional
     public ShoppingCartDto changeProductQuantity(String username, ChangeProductQuantityRequest request) {
         log.info("changeProductQuantity user: {}", username);
         validateUsername(username);
 
-        ShoppingCart shoppingCart = getActiveShoppingCart(username);
-
         UUID productId = request.getProductId();
         int newQuantity = request.getNewQuantity();
+        checkProductsQuantityState(Map.of(productId, newQuantity));
 
-        if (!shoppingCart.getProducts().containsKey(productId)) {
-            throw new NoProductsInShoppingCartException("no in cart product: " + productId);
-        }
-
-        checkProductQuantityState(productId, newQuantity);
-
-        shoppingCart.getProducts().put(productId, newQuantity);
-        shoppingCartRepository.save(shoppingCart);
-
-        return shoppingCartMapper.toShoppingCartDto(shoppingCart);
+        return transactionTemplate.execute(status -> {
+            UUID shoppingCartId = lockActiveShoppingCart(username);
+            if (!shoppingCartItemRepository.setQuantity(shoppingCartId, productId, newQuantity)) {
+                throw new NoProductsInShoppingCartException("no in cart product: " + productId);
+            }
+            return writeThrough(username, getActiveShoppingCart(username));
+        });
     }
 
     @Override
-    @Transactional
     public BookedProductsDto bookProducts(String username) {
         log.info("bookProducts user: {}", username);
         validateUsername(username);
 
-        ShoppingCart shoppingCart = getActiveShoppingCart(username);
-
-        Map<UUID, Integer> products = shoppingCart.getProducts();
-        if (products.isEmpty()) {
-            throw new NoProductsInShoppingCartException("product cart is empty, user " + username);
-        }
-
         try {
-            BookedProductsDto bookedProducts = warehouseClient.bookProducts(shoppingCartMapper.toShoppingCartDto(shoppingCart));
-
-            shoppingCart.setActive(false);
-            shoppingCartRepository.save(shoppingCart);
-
-            log.info("booking completed, user {}", username);
-            return bookedProducts;
+            return cartBooker.book(username);
+        } catch (NoProductsInShoppingCartException | CartBookingInProgressException e) {
+            throw e;
         } catch (Exception e) {
             log.error("booking error, user {}, cause {}", username, e.getMessage(), e);
             throw new RuntimeException("booking error: " + e.getMessage(), e);
         }
     }
 
+    @Override
+    public CartBookingDto submitBooking(String username) {
+        log.info("submitBooking user: {}", username);
+        validateUsername(username);
+
+        return cartBooker.submit(username);
+    }
+
+    @Override
+    public CartBookingDto getBooking(String username, UUID shoppingCartId) {
+        validateUsername(username);
+
+        return cartBooker.status(username, shoppingCartId);
+    }
+
     private ShoppingCart getActiveShoppingCart(String username) {
         return shoppingCartRepository.findByUsernameAndActive(username, true)
                 .orElseThrow(() -> new NoProductsInShoppingCartException("product cart not found for user: " + username));
     }
 
+    /**
+     * Блокирует активную корзину до конца транзакции; корзину с бронью в работе менять нельзя.
+     */
+    private UUID lockActiveShoppingCart(String username) {
+        ActiveCart active = cartBookingRepository.lockActiveCart(username)
+                .orElseThrow(() -> new NoProductsInShoppingCartException("product cart not found for user: " + username));
+        if (active.bookingState() == CartBookingState.PENDING) {
+            throw new CartBookingInProgressException("booking in progress, user " + username);
+        }
+        return active.shoppingCartId();
+    }
+
     private void updateProductQuantity(ShoppingCart shoppingCart, UUID productId, int quantityChange) {
         shoppingCart.getProducts().merge(productId, quantityChange, (current, change) -> {
             int updatedQuantity = current + change;
@@ -164,6 +180,21 @@ public class ShoppingCartServiceImpl implements ShoppingCartService {
         }
     }
 
+    /**
+     * Промах кэша: читает активную корзину или создаёт новую в пишущей транзакции.
+     */
+    private ShoppingCartDto loadShoppingCart(String username) {
+        return transactionTemplate.execute(status -> shoppingCartMapper.toShoppingCartDto(
+                shoppingCartRepository.findByUsernameAndActive(username, true)
+                        .orElseGet(() -> createNewShoppingCart(username))));
+    }
+
+    private ShoppingCartDto writeThrough(String username, ShoppingCart shoppingCart) {
+        ShoppingCartDto shoppingCartDto = shoppingCartMapper.toShoppingCartDto(shoppingCart);
+        cartCache.put(username, shoppingCartDto);
+        return shoppingCartDto;
+    }
+
     private ShoppingCart createNewShoppingCart(String username) {
         log.info("createNewShoppingCart user: {}", username);
         ShoppingCart cart = new ShoppingCart();
@@ -173,8 +204,17 @@ public class ShoppingCartServiceImpl implements ShoppingCartService {
         return shoppingCartRepository.save(cart);
     }
 
-    private void checkProductQuantityState(UUID productId, int quantity) {
-        ProductDto productDto = shoppingStoreClient.getProduct(productId);
+    /**
+     * Проверяет все товары одним запросом в shopping-store до открытия транзакции.
+     */
+    private void checkProductsQuantityState(Map<UUID, Integer> products) {
+        Map<UUID, ProductDto> found = shoppingStoreClient.getProductsByIds(products.keySet()).stream()
+                .collect(Collectors.toMap(ProductDto::getProductId, Function.identity()));
+
+        products.forEach((productId, quantity) -> checkProductQuantityState(productId, found.get(productId), quantity));
+    }
+
+    private void checkProductQuantityState(UUID productId, ProductDto productDto, int quantity) {
         if (productDto == null || productDto.getProductState() != ProductState.ACTIVE) {
             throw new ProductNotAvailableException("product not available: " + productId);
         }
@@ -194,6 +234,8 @@ public class ShoppingCartServiceImpl implements ShoppingCartService {
                             "No product id " + productId + "available for request quantity " + quantity);
                 }
             }
+            case MANY -> {
+            }
             default -> throw new IllegalStateException("illegal product state: " + quantityState);
         }
     }
@@ -12,4 +12,21 @@ CREATE TABLE IF NOT EXISTS shopping_cart_items
     quantity INTEGER NOT NULL,
     PRIMARY KEY (shopping_cart_id, product_id),
     FOREIGN KEY (shopping_cart_id) REFERENCES shopping_carts (shopping_cart_id) ON DELETE CASCADE
-    );
\ No newline at end of file
+    );
+
+CREATE INDEX IF NOT EXISTS shopping_carts_username_active_idx ON shopping_carts (username, active);
+
+CREATE TABLE IF NOT EXISTS cart_bookings
+(
+    shopping_cart_id UUID PRIMARY KEY,
+    username VARCHAR(255) NOT NULL,
+    state VARCHAR(16) NOT NULL,
+    attempts INTEGER NOT NULL DEFAULT 0,
+    delivery_weight DOUBLE PRECISION,
+    delivery_volume DOUBLE PRECISION,
+    fragile BOOLEAN,
+    error VARCHAR(1024),
+    updated_at TIMESTAMP NOT NULL DEFAULT now()
+    );
+
+CREATE INDEX IF NOT EXISTS cart_bookings_pending_idx ON cart_bookings (updated_at) WHERE state = 'PENDING';
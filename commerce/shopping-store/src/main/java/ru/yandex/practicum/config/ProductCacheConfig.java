@@ -0,0 +1,19 @@
+package ru.yandex.practicum.config;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.context.annotation.Configuration;
+
+import java.time.Duration;
+
+@Configuration
+@ConfigurationProperties(prefix = "shopping-store.product-cache")
+@Data
+public class ProductCacheConfig {
+    private long maximumSize = 10_000;
+
+    /**
+     * Страховка на случай изменений в обход сервиса; штатные изменения инвалидируют запись сразу.
+     */
+    private Duration expireAfterWrite = Duration.ofMinutes(10);
+}
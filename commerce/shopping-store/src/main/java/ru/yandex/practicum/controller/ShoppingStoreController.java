@@ -2,13 +2,19 @@ package ru.yandex.practicum.controller;
 
 import jakarta.validation.Valid;
 import lombok.RequiredArgsConstructor;
+import org.springframework.data.domain.Sort;
 import org.springframework.web.bind.annotation.*;
 import ru.yandex.practicum.service.ShoppingStoreService;
 import ru.yandex.practicum.shoppingStore.dto.PageableDto;
 import ru.yandex.practicum.shoppingStore.dto.ProductDto;
+import ru.yandex.practicum.shoppingStore.dto.ProductPageDto;
+import ru.yandex.practicum.shoppingStore.dto.ProductSearchRequest;
+import ru.yandex.practicum.shoppingStore.dto.ProductSearchResultDto;
 import ru.yandex.practicum.shoppingStore.dto.SetProductQuantityStateRequest;
 import ru.yandex.practicum.shoppingStore.enums.ProductCategory;
+import ru.yandex.practicum.shoppingStore.enums.ProductSortKey;
 
+import java.util.Collection;
 import java.util.List;
 import java.util.UUID;
 
@@ -25,6 +31,20 @@ public class ShoppingStoreController {
         return shoppingStoreService.getProductsByCategory(category, pageableDto);
     }
 
+    @GetMapping("/catalog")
+    ProductPageDto getCatalogPage(@RequestParam("category") ProductCategory category,
+                                  @RequestParam(value = "sort", defaultValue = "NAME") ProductSortKey sort,
+                                  @RequestParam(value = "direction", defaultValue = "ASC") Sort.Direction direction,
+                                  @RequestParam(value = "size", defaultValue = "20") int size,
+                                  @RequestParam(value = "cursor", required = false) String cursor) {
+        return shoppingStoreService.getCatalogPage(category, sort, direction, size, cursor);
+    }
+
+    @GetMapping("/search")
+    ProductSearchResultDto searchProducts(@Valid ProductSearchRequest request) {
+        return shoppingStoreService.searchProducts(request);
+    }
+
     @PutMapping
     ProductDto createNewProduct(@Valid @RequestBody ProductDto productDto) {
         return shoppingStoreService.createNewProduct(productDto);
@@ -45,6 +65,16 @@ public class ShoppingStoreController {
         return shoppingStoreService.setProductQuantityState(request);
     }
 
+    @PostMapping("/quantityState/bulk")
+    boolean setProductQuantityStates(@RequestBody List<@Valid SetProductQuantityStateRequest> requests) {
+        return shoppingStoreService.setProductQuantityStates(requests);
+    }
+
+    @GetMapping("/productsByIds")
+    List<ProductDto> getProductsByIds(@RequestBody Collection<UUID> productIds) {
+        return shoppingStoreService.getProductsByIds(productIds);
+    }
+
     @GetMapping("/{productId}")
     ProductDto getProduct(@PathVariable("productId") UUID productId)  {
         return shoppingStoreService.getProduct(productId);
@@ -19,6 +19,12 @@ public class ErrorHandler {
         return errorResponse(HttpStatus.NOT_FOUND, "Продукт не найден", ex);
     }
 
+    @ExceptionHandler(InvalidCursorException.class)
+    @ResponseStatus(HttpStatus.BAD_REQUEST)
+    public ErrorResponse handleInvalidCursorException(Throwable ex) {
+        return errorResponse(HttpStatus.BAD_REQUEST, "Некорректный курсор страницы", ex);
+    }
+
     @ExceptionHandler(InternalServerErrorException.class)
     @ResponseStatus(HttpStatus.INTERNAL_SERVER_ERROR)
     public ErrorResponse handleInternalServerErrorException(Throwable ex) {
@@ -0,0 +1,73 @@
+package ru.yandex.practicum.repository;
+
+import lombok.RequiredArgsConstructor;
+import org.springframework.data.domain.Sort;
+import org.springframework.jdbc.core.RowMapper;
+import org.springframework.jdbc.core.namedparam.MapSqlParameterSource;
+import org.springframework.jdbc.core.namedparam.NamedParameterJdbcTemplate;
+import org.springframework.stereotype.Repository;
+import ru.yandex.practicum.shoppingStore.dto.ProductSummaryDto;
+import ru.yandex.practicum.shoppingStore.enums.ProductCategory;
+import ru.yandex.practicum.shoppingStore.enums.ProductSortKey;
+import ru.yandex.practicum.shoppingStore.enums.QuantityState;
+
+import java.util.List;
+import java.util.UUID;
+
+/**
+ * Keyset-пагинация каталога: следующая страница ищется сравнением пары (ключ, product_id) с последней
+ * строкой предыдущей, поэтому запрос идёт по индексу и не зависит от глубины страницы.
+ */
+@Repository
+@RequiredArgsConstructor
+public class ProductCatalogRepository {
+    private static final RowMapper<ProductSummaryDto> ROW_MAPPER = (rs, rowNum) -> ProductSummaryDto.builder()
+            .productId(rs.getObject("product_id", UUID.class))
+            .productName(rs.getString("product_name"))
+            .imageSrc(rs.getString("image_src"))
+            .price(rs.getBigDecimal("price"))
+            .rating(rs.getDouble("rating"))
+            .quantityState(QuantityState.valueOf(rs.getString("quantity_state")))
+            .build();
+
+    private final NamedParameterJdbcTemplate jdbcTemplate;
+
+    public List<ProductSummaryDto> findPage(ProductCategory category,
+                                            ProductSortKey sortKey,
+                                            Sort.Direction direction,
+                                            Object afterValue,
+                                            UUID afterProductId,
+                                            int limit) {
+        String column = column(sortKey);
+        String order = direction.isAscending() ? "ASC" : "DESC";
+
+        MapSqlParameterSource params = new MapSqlParameterSource()
+                .addValue("category", category.name())
+                .addValue("limit", limit);
+
+        StringBuilder sql = new StringBuilder("""
+                SELECT product_id, product_name, image_src, price, rating, quantity_state
+                FROM products
+                WHERE product_category = :category""");
+        if (afterProductId != null) {
+            sql.append(" AND (").append(column).append(", product_id) ")
+                    .append(direction.isAscending() ? ">" : "<")
+                    .append(" (:lastValue, :lastProductId)");
+            params.addValue("lastValue", afterValue)
+                    .addValue("lastProductId", afterProductId);
+        }
+        sql.append(" ORDER BY ").append(column).append(' ').append(order)
+                .append(", product_id ").append(order)
+                .append(" LIMIT :limit");
+
+        return jdbcTemplate.query(sql.toString(), params, ROW_MAPPER);
+    }
+
+    private static String column(ProductSortKey sortKey) {
+        return switch (sortKey) {
+            case NAME -> "product_name";
+            case PRICE -> "price";
+            case RATING -> "rating";
+        };
+    }
+}
@@ -0,0 +1,110 @@
+package ru.yandex.practicum.repository;
+
+import lombok.RequiredArgsConstructor;
+import org.springframework.jdbc.core.RowMapper;
+import org.springframework.jdbc.core.namedparam.MapSqlParameterSource;
+import org.springframework.jdbc.core.namedparam.NamedParameterJdbcTemplate;
+import org.springframework.stereotype.Repository;
+import ru.yandex.practicum.shoppingStore.dto.ProductSearchRequest;
+import ru.yandex.practicum.shoppingStore.dto.ProductSummaryDto;
+import ru.yandex.practicum.shoppingStore.enums.ProductCategory;
+import ru.yandex.practicum.shoppingStore.enums.QuantityState;
+
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+
+/**
+ * Полнотекстовый поиск по products.search_vector (GIN) с фильтрами. Фасеты считаются одним запросом
+ * через GROUPING SETS по тому же условию, что и выдача.
+ */
+@Repository
+@RequiredArgsConstructor
+public class ProductSearchRepository {
+    private static final String TS_QUERY = "websearch_to_tsquery('simple', :query)";
+
+    private static final RowMapper<ProductSummaryDto> ROW_MAPPER = (rs, rowNum) -> ProductSummaryDto.builder()
+            .productId(rs.getObject("product_id", UUID.class))
+            .productName(rs.getString("product_name"))
+            .imageSrc(rs.getString("image_src"))
+            .price(rs.getBigDecimal("price"))
+            .rating(rs.getDouble("rating"))
+            .quantityState(QuantityState.valueOf(rs.getString("quantity_state")))
+            .build();
+
+    private final NamedParameterJdbcTemplate jdbcTemplate;
+
+    public List<ProductSummaryDto> search(ProductSearchRequest request, int limit, long offset) {
+        MapSqlParameterSource params = new MapSqlParameterSource()
+                .addValue("limit", limit)
+                .addValue("offset", offset);
+        String where = where(request, params);
+        String rank = hasQuery(request) ? "ts_rank(search_vector, " + TS_QUERY + ") DESC, " : "";
+
+        String sql = """
+                SELECT product_id, product_name, image_src, price, rating, quantity_state
+                FROM products
+                """ + where + " ORDER BY " + rank + "rating DESC, product_id LIMIT :limit OFFSET :offset";
+        return jdbcTemplate.query(sql, params, ROW_MAPPER);
+    }
+
+    public Facets facets(ProductSearchRequest request) {
+        MapSqlParameterSource params = new MapSqlParameterSource();
+        String sql = """
+                SELECT product_category, quantity_state, COUNT(*) AS total
+                FROM products
+                """ + where(request, params) + " GROUP BY GROUPING SETS ((product_category), (quantity_state))";
+
+        Map<ProductCategory, Long> categories = new EnumMap<>(ProductCategory.class);
+        Map<QuantityState, Long> quantityStates = new EnumMap<>(QuantityState.class);
+        jdbcTemplate.query(sql, params, rs -> {
+            String category = rs.getString("product_category");
+            if (category != null) {
+                categories.put(ProductCategory.valueOf(category), rs.getLong("total"));
+            } else {
+                quantityStates.put(QuantityState.valueOf(rs.getString("quantity_state")), rs.getLong("total"));
+            }
+        });
+        return new Facets(categories, quantityStates);
+    }
+
+    private String where(ProductSearchRequest request, MapSqlParameterSource params) {
+        StringBuilder where = new StringBuilder("WHERE product_state = 'ACTIVE'");
+        if (hasQuery(request)) {
+            where.append(" AND search_vector @@ ").append(TS_QUERY);
+            params.addValue("query", request.getQuery().trim());
+        }
+        if (request.getCategory() != null) {
+            where.append(" AND product_category = :category");
+            params.addValue("category", request.getCategory().name());
+        }
+        if (request.getQuantityState() != null) {
+            where.append(" AND quantity_state = :quantityState");
+            params.addValue("quantityState", request.getQuantityState().name());
+        }
+        if (request.getMinPrice() != null) {
+            where.append(" AND price >= :minPrice");
+            params.addValue("minPrice", request.getMinPrice());
+        }
+        if (request.getMaxPrice() != null) {
+            where.append(" AND price <= :maxPrice");
+            params.addValue("maxPrice", request.getMaxPrice());
+        }
+        if (request.getMinRating() != null) {
+            where.append(" AND rating >= :minRating");
+            params.addValue("minRating", request.getMinRating());
+        }
+        return where.toString();
+    }
+
+    private static boolean hasQuery(ProductSearchRequest request) {
+        return request.getQuery() != null && !request.getQuery().isBlank();
+    }
+
+    public record Facets(Map<ProductCategory, Long> categories, Map<QuantityState, Long> quantityStates) {
+        public long total() {
+            return categories.values().stream().mapToLong(Long::longValue).sum();
+        }
+    }
+}
@@ -0,0 +1,59 @@
+package ru.yandex.practicum.service;
+
+import org.springframework.data.domain.Sort;
+import ru.yandex.practicum.exception.InvalidCursorException;
+import ru.yandex.practicum.shoppingStore.dto.ProductSummaryDto;
+import ru.yandex.practicum.shoppingStore.enums.ProductSortKey;
+
+import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
+import java.util.Base64;
+import java.util.UUID;
+
+/**
+ * Позиция последней выданной строки каталога. Курсор привязан к сортировке, с которой был выдан,
+ * и непрозрачен для клиента.
+ */
+public record CatalogCursor(ProductSortKey sortKey, Sort.Direction direction, Object lastValue, UUID lastProductId) {
+
+    public static CatalogCursor after(ProductSummaryDto product, ProductSortKey sortKey, Sort.Direction direction) {
+        Object value = switch (sortKey) {
+            case NAME -> product.getProductName();
+            case PRICE -> product.getPrice();
+            case RATING -> product.getRating();
+        };
+        return new CatalogCursor(sortKey, direction, value, product.getProductId());
+    }
+
+    public String encode() {
+        String raw = sortKey + ":" + direction + ":" + lastProductId + ":" + valueToString();
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(raw.getBytes(StandardCharsets.UTF_8));
+    }
+
+    public static CatalogCursor decode(String token, ProductSortKey sortKey, Sort.Direction direction) {
+        try {
+            String raw = new String(Base64.getUrlDecoder().decode(token), StandardCharsets.UTF_8);
+            String[] parts = raw.split(":", 4);
+            if (parts.length != 4
+                    || ProductSortKey.valueOf(parts[0]) != sortKey
+                    || Sort.Direction.valueOf(parts[1]) != direction) {
+                throw new InvalidCursorException("cursor does not match sort " + sortKey + " " + direction);
+            }
+            return new CatalogCursor(sortKey, direction, parseValue(sortKey, parts[3]), UUID.fromString(parts[2]));
+        } catch (IllegalArgumentException e) {
+            throw new InvalidCursorException("malformed cursor");
+        }
+    }
+
+    private String valueToString() {
+        return lastValue instanceof BigDecimal price ? price.toPlainString() : String.valueOf(lastValue);
+    }
+
+    private static Object parseValue(ProductSortKey sortKey, String value) {
+        return switch (sortKey) {
+            case NAME -> value;
+            case PRICE -> new BigDecimal(value);
+            case RATING -> Double.valueOf(value);
+        };
+    }
+}
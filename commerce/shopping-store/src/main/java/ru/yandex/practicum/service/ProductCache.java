@@ -0,0 +1,75 @@
+package ru.yandex.practicum.service;
+
+import com.github.benmanes.caffeine.cache.AsyncCache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import ru.yandex.practicum.cache.LoadingFutures;
+import ru.yandex.practicum.config.ProductCacheConfig;
+import ru.yandex.practicum.shoppingStore.dto.ProductDto;
+
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.function.Function;
+
+/**
+ * Кэш карточек товаров по id. Caffeine вытесняет по W-TinyLFU, поэтому редкие разовые чтения каталога
+ * не вымывают горячие товары. Запись удаляется при изменении и ещё раз после коммита, чтобы чтение,
+ * попавшее между ними, не вернуло в кэш старую версию.
+ * <p>
+ * Промахи загружаются через {@link LoadingFutures} в потоке вызывающего и в его транзакции, а не в
+ * ForkJoinPool.commonPool(), куда Caffeine без своего executor отдал бы пакетную загрузку.
+ */
+@Component
+public class ProductCache {
+    private final AsyncCache<UUID, ProductDto> cache;
+
+    public ProductCache(ProductCacheConfig config, MeterRegistry meterRegistry) {
+        this.cache = Caffeine.newBuilder()
+                .maximumSize(config.getMaximumSize())
+                .expireAfterWrite(config.getExpireAfterWrite())
+                .recordStats()
+                .buildAsync();
+        CaffeineCacheMetrics.monitor(meterRegistry, cache, "products");
+    }
+
+    /**
+     * @return товар или null, если загрузчик его не нашёл; отсутствие не кэшируется
+     */
+    public ProductDto get(UUID productId, Function<UUID, ProductDto> loader) {
+        return LoadingFutures.get(cache, productId, loader);
+    }
+
+    /**
+     * Промахи загружаются одним вызовом; порядок результата соответствует порядку ids.
+     */
+    public List<ProductDto> getAll(Collection<UUID> productIds,
+                                   Function<Collection<UUID>, Map<UUID, ProductDto>> loader) {
+        Map<UUID, ProductDto> found = LoadingFutures.getAll(cache, productIds, missing -> loader.apply(List.copyOf(missing)));
+        return productIds.stream()
+                .distinct()
+                .map(found::get)
+                .filter(Objects::nonNull)
+                .toList();
+    }
+
+    public void invalidateAll(Collection<UUID> productIds) {
+        List<UUID> ids = List.copyOf(productIds);
+        cache.synchronous().invalidateAll(ids);
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCompletion(int status) {
+                    cache.synchronous().invalidateAll(ids);
+                }
+            });
+        }
+    }
+}
@@ -0,0 +1,71 @@
+package ru.yandex.practicum.service;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.kafka.core.KafkaTemplate;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import ru.yandex.practicum.shoppingStore.dto.ProductChangedEvent;
+import ru.yandex.practicum.shoppingStore.feign.ShoppingStoreClient;
+
+import java.time.Instant;
+import java.util.Collection;
+import java.util.List;
+import java.util.UUID;
+
+/**
+ * Публикует изменения карточек для near-cache потребителей после коммита. Отправка best-effort:
+ * потерянное событие перекрывается TTL near-cache.
+ */
+@Slf4j
+@Component
+@RequiredArgsConstructor
+public class ProductChangePublisher {
+    private final KafkaTemplate<String, String> kafkaTemplate;
+    private final ObjectMapper objectMapper;
+
+    @Value("${shopping-store.change-events.topic:" + ShoppingStoreClient.PRODUCT_CHANGES_TOPIC + "}")
+    private String topic;
+
+    @Value("${shopping-store.change-events.enabled:false}")
+    private boolean enabled;
+
+    public void productsChanged(Collection<UUID> productIds) {
+        if (!enabled || productIds.isEmpty()) {
+            return;
+        }
+
+        List<UUID> ids = List.copyOf(productIds);
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            send(ids);
+            return;
+        }
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCommit() {
+                send(ids);
+            }
+        });
+    }
+
+    private void send(List<UUID> productIds) {
+        Instant now = Instant.now();
+        for (UUID productId : productIds) {
+            try {
+                String payload = objectMapper.writeValueAsString(new ProductChangedEvent(productId, now));
+                kafkaTemplate.send(topic, productId.toString(), payload)
+                        .whenComplete((result, e) -> {
+                            if (e != null) {
+                                log.warn("Событие изменения товара {} не отправлено: {}", productId, e.getMessage());
+                            }
+                        });
+            } catch (JsonProcessingException e) {
+                log.error("Не удалось сериализовать событие изменения товара {}", productId, e);
+            }
+        }
+    }
+}
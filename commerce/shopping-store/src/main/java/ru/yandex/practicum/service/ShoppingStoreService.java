@@ -1,9 +1,14 @@
 package ru.yandex.practicum.service;
 
+import org.springframework.data.domain.Sort;
 import ru.yandex.practicum.shoppingStore.dto.PageableDto;
+import ru.yandex.practicum.shoppingStore.dto.ProductPageDto;
+import ru.yandex.practicum.shoppingStore.dto.ProductSearchRequest;
+import ru.yandex.practicum.shoppingStore.dto.ProductSearchResultDto;
 import ru.yandex.practicum.shoppingStore.dto.ProductDto;
 import ru.yandex.practicum.shoppingStore.dto.SetProductQuantityStateRequest;
 import ru.yandex.practicum.shoppingStore.enums.ProductCategory;
+import ru.yandex.practicum.shoppingStore.enums.ProductSortKey;
 
 import java.util.Collection;
 import java.util.List;
@@ -17,10 +22,17 @@ public interface ShoppingStoreService {
 
     List<ProductDto> getProductsByCategory(ProductCategory category, PageableDto pageableDto);
 
+    ProductPageDto getCatalogPage(ProductCategory category, ProductSortKey sortKey, Sort.Direction direction,
+                                  int size, String cursor);
+
+    ProductSearchResultDto searchProducts(ProductSearchRequest request);
+
     ProductDto updateProduct(ProductDto productDto);
 
     boolean setProductQuantityState(SetProductQuantityStateRequest request);
 
+    boolean setProductQuantityStates(Collection<SetProductQuantityStateRequest> requests);
+
     ProductDto getProduct(UUID productId);
 
     List<ProductDto> getProductsByIds(Collection<UUID> ids);
@@ -1,5 +1,7 @@
 package ru.yandex.practicum.service;
 
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.data.domain.PageRequest;
@@ -10,15 +12,25 @@ import org.springframework.transaction.annotation.Transactional;
 import ru.yandex.practicum.entity.Product;
 import ru.yandex.practicum.exception.ProductNotFoundException;
 import ru.yandex.practicum.mapper.ProductMapper;
+import ru.yandex.practicum.repository.ProductCatalogRepository;
 import ru.yandex.practicum.repository.ProductRepository;
+import ru.yandex.practicum.repository.ProductSearchRepository;
 import ru.yandex.practicum.shoppingStore.dto.PageableDto;
 import ru.yandex.practicum.shoppingStore.dto.ProductDto;
+import ru.yandex.practicum.shoppingStore.dto.ProductPageDto;
+import ru.yandex.practicum.shoppingStore.dto.ProductSearchRequest;
+import ru.yandex.practicum.shoppingStore.dto.ProductSearchResultDto;
+import ru.yandex.practicum.shoppingStore.dto.ProductSummaryDto;
 import ru.yandex.practicum.shoppingStore.enums.ProductCategory;
+import ru.yandex.practicum.shoppingStore.enums.ProductSortKey;
 import ru.yandex.practicum.shoppingStore.dto.SetProductQuantityStateRequest;
+import ru.yandex.practicum.shoppingStore.enums.QuantityState;
 
 import java.math.BigDecimal;
 import java.util.Collection;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
 import java.util.UUID;
 import java.util.stream.Collectors;
 
@@ -27,8 +39,15 @@ import java.util.stream.Collectors;
 @Slf4j
 public class ShoppingStoreServiceImpl implements ShoppingStoreService {
 
+    private static final int MAX_CATALOG_PAGE_SIZE = 100;
+
     private final ProductRepository productRepository;
+    private final ProductCatalogRepository productCatalogRepository;
+    private final ProductSearchRepository productSearchRepository;
     private final ProductMapper productMapper;
+    private final ProductCache productCache;
+    private final ProductChangePublisher productChangePublisher;
+    private final MeterRegistry meterRegistry;
 
     @Override
     @Transactional
@@ -50,6 +69,7 @@ public class ShoppingStoreServiceImpl implements ShoppingStoreService {
                 });
 
         productRepository.delete(product);
+        productsChanged(List.of(productId));
         return true;
     }
 
@@ -63,6 +83,51 @@ public class ShoppingStoreServiceImpl implements ShoppingStoreService {
                 .collect(Collectors.toList());
     }
 
+    @Override
+    public ProductPageDto getCatalogPage(ProductCategory category, ProductSortKey sortKey, Sort.Direction direction,
+                                         int size, String cursor) {
+        log.debug("getCatalogPage {} {} {} size {}", category, sortKey, direction, size);
+        int pageSize = Math.min(Math.max(size, 1), MAX_CATALOG_PAGE_SIZE);
+        CatalogCursor after = cursor == null || cursor.isBlank()
+                ? null
+                : CatalogCursor.decode(cursor, sortKey, direction);
+
+        List<ProductSummaryDto> rows = productCatalogRepository.findPage(category, sortKey, direction,
+                after == null ? null : after.lastValue(),
+                after == null ? null : after.lastProductId(),
+                pageSize + 1);
+
+        if (rows.size() <= pageSize) {
+            return new ProductPageDto(rows, null);
+        }
+        List<ProductSummaryDto> content = rows.subList(0, pageSize);
+        String nextCursor = CatalogCursor.after(content.get(pageSize - 1), sortKey, direction).encode();
+        return new ProductPageDto(List.copyOf(content), nextCursor);
+    }
+
+    @Override
+    public ProductSearchResultDto searchProducts(ProductSearchRequest request) {
+        log.debug("searchProducts {}", request);
+        int pageSize = Math.min(Math.max(request.getSize(), 1), MAX_CATALOG_PAGE_SIZE);
+        long offset = (long) Math.max(request.getPage(), 0) * pageSize;
+
+        Timer.Sample sample = Timer.start(meterRegistry);
+        try {
+            List<ProductSummaryDto> content = productSearchRepository.search(request, pageSize, offset);
+            ProductSearchRepository.Facets facets = productSearchRepository.facets(request);
+            return ProductSearchResultDto.builder()
+                    .content(content)
+                    .total(facets.total())
+                    .categoryFacets(facets.categories())
+                    .quantityStateFacets(facets.quantityStates())
+                    .build();
+        } finally {
+            sample.stop(Timer.builder("shopping-store.search")
+                    .tag("text", String.valueOf(request.getQuery() != null && !request.getQuery().isBlank()))
+                    .publishPercentiles(0.5, 0.99)
+                    .register(meterRegistry));
+        }
+    }
 
     @Override
     @Transactional
@@ -75,6 +140,7 @@ public class ShoppingStoreServiceImpl implements ShoppingStoreService {
         updateProductFields(product, productDto);
 
         Product updatedProduct = productRepository.save(product);
+        productsChanged(List.of(productId));
         return productMapper.toProductDto(updatedProduct);
     }
 
@@ -92,28 +158,54 @@ public class ShoppingStoreServiceImpl implements ShoppingStoreService {
 
         product.setQuantityState(request.getQuantityState());
         productRepository.save(product);
+        productsChanged(List.of(productId));
         return true;
     }
 
     @Override
-    public ProductDto getProduct(UUID productId) {
-        log.info("getProduct {}", productId);
-        Product product = productRepository.findById(productId)
-                .orElseThrow(() -> {
-                    log.error("not found product {}", productId);
-                    return new ProductNotFoundException("not found product");
-                });
+    @Transactional
+    public boolean setProductQuantityStates(Collection<SetProductQuantityStateRequest> requests) {
+        log.info("setProductQuantityStates: {} products", requests.size());
+        Map<UUID, QuantityState> states = new HashMap<>();
+        for (SetProductQuantityStateRequest request : requests) {
+            states.put(request.getProductId(), request.getQuantityState());
+        }
+
+        List<Product> products = productRepository.findAllById(states.keySet());
+        if (products.size() != states.size()) {
+            log.warn("setProductQuantityStates: {} of {} products not found", states.size() - products.size(), states.size());
+        }
 
-        return productMapper.toProductDto(product);
+        products.forEach(product -> product.setQuantityState(states.get(product.getProductId())));
+        productRepository.saveAll(products);
+        productsChanged(states.keySet());
+        return true;
+    }
+
+    @Override
+    public ProductDto getProduct(UUID productId) {
+        log.debug("getProduct {}", productId);
+        ProductDto product = productCache.get(productId, id -> productRepository.findById(id)
+                .map(productMapper::toProductDto)
+                .orElse(null));
+        if (product == null) {
+            log.error("not found product {}", productId);
+            throw new ProductNotFoundException("not found product");
+        }
+        return product;
     }
 
     @Override
     public List<ProductDto> getProductsByIds(Collection<UUID> ids) {
-        log.info("getProductsByIds {}", ids);
-        return productRepository.findAllById(ids)
+        log.debug("getProductsByIds {}", ids);
+        return productCache.getAll(ids, missing -> productRepository.findAllById(missing)
                 .stream()
-                .map(productMapper::toProductDto)
-                .toList();
+                .collect(Collectors.toMap(Product::getProductId, productMapper::toProductDto)));
+    }
+
+    private void productsChanged(Collection<UUID> productIds) {
+        productCache.invalidateAll(productIds);
+        productChangePublisher.productsChanged(productIds);
     }
 
     private void updateProductFields(Product product, ProductDto productDto) {
@@ -9,4 +9,16 @@ CREATE TABLE IF NOT EXISTS products
     rating DOUBLE PRECISION NOT NULL,
     product_category VARCHAR(50) NOT NULL,
     price NUMERIC(19, 2) NOT NULL
-    );
\ No newline at end of file
+    );
+
+CREATE INDEX IF NOT EXISTS products_category_name_idx ON products (product_category, product_name, product_id);
+CREATE INDEX IF NOT EXISTS products_category_price_idx ON products (product_category, price, product_id);
+CREATE INDEX IF NOT EXISTS products_category_rating_idx ON products (product_category, rating, product_id);
+
+ALTER TABLE products ADD COLUMN IF NOT EXISTS search_vector tsvector
+    GENERATED ALWAYS AS (
+        setweight(to_tsvector('simple', product_name), 'A') ||
+        setweight(to_tsvector('simple', description), 'B')
+    ) STORED;
+
+CREATE INDEX IF NOT EXISTS products_search_vector_idx ON products USING GIN (search_vector);
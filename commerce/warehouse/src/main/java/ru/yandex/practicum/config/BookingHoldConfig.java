@@ -0,0 +1,39 @@
+package ru.yandex.practicum.config;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.context.annotation.Configuration;
+
+import java.time.Duration;
+
+@Configuration
+@ConfigurationProperties(prefix = "warehouse.booking-hold")
+@Data
+public class BookingHoldConfig {
+    /**
+     * Сколько бронь корзины держит товар, пока по ней не собран заказ.
+     */
+    private Duration ttl = Duration.ofMinutes(15);
+
+    /**
+     * До скольки продлевается бронь, по которой начали собирать заказ. За это время заказ должен
+     * сохраниться, а событие о нём дойти до склада; иначе бронь снимется, как несобранная.
+     */
+    private Duration assemblyTtl = Duration.ofMinutes(30);
+
+    /**
+     * Шаг колеса таймеров в миллисекундах: точность, с которой истёкшие брони снимаются.
+     * С тем же интервалом колесо продвигается по расписанию.
+     */
+    private long tickMs = 1000;
+
+    /**
+     * Число ячеек колеса. Брони дальше одного оборота лежат в своей ячейке до нужного тика.
+     */
+    private int wheelSize = 512;
+
+    /**
+     * Сколько истёкших броней снимается за одну транзакцию.
+     */
+    private int releaseBatchSize = 200;
+}
@@ -0,0 +1,26 @@
+package ru.yandex.practicum.config;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.context.annotation.Configuration;
+
+@Configuration
+@ConfigurationProperties(prefix = "warehouse.hot-stock")
+@Data
+public class HotStockConfig {
+    /**
+     * Бронировать по счётчикам в памяти, а остатки в БД обновлять отложенно из журнала.
+     * Рассчитано на один экземпляр склада: счётчики не разделяются между узлами.
+     */
+    private boolean enabled = false;
+
+    /**
+     * Число ячеек счётчика одного товара.
+     */
+    private int stripes = Runtime.getRuntime().availableProcessors();
+
+    /**
+     * Сколько броней из журнала применяется к остаткам за одну транзакцию.
+     */
+    private int flushBatchSize = 500;
+}
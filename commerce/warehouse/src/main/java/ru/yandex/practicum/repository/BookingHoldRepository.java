@@ -0,0 +1,148 @@
+package ru.yandex.practicum.repository;
+
+import lombok.RequiredArgsConstructor;
+import org.springframework.jdbc.core.namedparam.MapSqlParameterSource;
+import org.springframework.jdbc.core.namedparam.NamedParameterJdbcTemplate;
+import org.springframework.stereotype.Repository;
+
+import java.sql.Timestamp;
+import java.time.Instant;
+import java.util.Collection;
+import java.util.List;
+import java.util.UUID;
+
+/**
+ * Сроки броней корзин. Строка живёт, пока заказ по брони не создан; пока он создаётся, в строке записан
+ * его id. Истёкшие строки забираются пачкой с SKIP LOCKED, поэтому несколько экземпляров склада
+ * не снимают одну бронь дважды.
+ */
+@Repository
+@RequiredArgsConstructor
+public class BookingHoldRepository {
+    private static final String HOLD_SQL = """
+            INSERT INTO booking_holds (shopping_cart_id, expires_at)
+            VALUES (:shoppingCartId, :expiresAt)""";
+
+    private static final String CLAIM_SQL = """
+            DELETE FROM booking_holds
+            WHERE shopping_cart_id = :shoppingCartId AND order_id IS NULL""";
+
+    private static final String START_ASSEMBLY_SQL = """
+            UPDATE booking_holds
+            SET order_id = :orderId, expires_at = GREATEST(expires_at, :expiresAt)
+            WHERE shopping_cart_id = :shoppingCartId AND (order_id IS NULL OR order_id = :orderId)""";
+
+    private static final String CONFIRM_SQL = "DELETE FROM booking_holds WHERE order_id = :orderId";
+
+    private static final String ABORT_ASSEMBLY_SQL = "UPDATE booking_holds SET order_id = NULL WHERE order_id = :orderId";
+
+    private static final String CLAIM_EXPIRED_SQL = """
+            DELETE FROM booking_holds
+            WHERE shopping_cart_id IN (
+                SELECT shopping_cart_id
+                FROM booking_holds
+                WHERE shopping_cart_id IN (:ids) AND expires_at <= :now
+                FOR UPDATE SKIP LOCKED)
+            RETURNING shopping_cart_id""";
+
+    private static final String CLAIM_OVERDUE_SQL = """
+            DELETE FROM booking_holds
+            WHERE shopping_cart_id IN (
+                SELECT shopping_cart_id
+                FROM booking_holds
+                WHERE expires_at <= :now
+                ORDER BY expires_at
+                LIMIT :limit
+                FOR UPDATE SKIP LOCKED)
+            RETURNING shopping_cart_id""";
+
+    private static final String HELD_ITEMS_SQL = """
+            SELECT booking_id, product_id, quantity
+            FROM booking_products
+            WHERE booking_id IN (:ids)""";
+
+    private static final String DELETE_BOOKING_PRODUCTS_SQL = "DELETE FROM booking_products WHERE booking_id IN (:ids)";
+
+    private static final String DELETE_BOOKINGS_SQL = "DELETE FROM bookings WHERE shopping_cart_id IN (:ids)";
+
+    private final NamedParameterJdbcTemplate jdbcTemplate;
+
+    public void hold(UUID shoppingCartId, Instant expiresAt) {
+        jdbcTemplate.update(HOLD_SQL, new MapSqlParameterSource()
+                .addValue("shoppingCartId", shoppingCartId)
+                .addValue("expiresAt", Timestamp.from(expiresAt)));
+    }
+
+    /**
+     * Забирает срок брони, по которой не создаётся заказ.
+     *
+     * @return false, если срока нет: бронь уже снята, по ней создаётся или создан заказ
+     */
+    public boolean claim(UUID shoppingCartId) {
+        return jdbcTemplate.update(CLAIM_SQL, new MapSqlParameterSource("shoppingCartId", shoppingCartId)) > 0;
+    }
+
+    /**
+     * Отмечает, что по брони создаётся заказ, и продлевает её не меньше чем до expiresAt.
+     *
+     * @return false, если срока нет или по брони уже создаётся другой заказ
+     */
+    public boolean startAssembly(UUID shoppingCartId, UUID orderId, Instant expiresAt) {
+        return jdbcTemplate.update(START_ASSEMBLY_SQL, new MapSqlParameterSource()
+                .addValue("shoppingCartId", shoppingCartId)
+                .addValue("orderId", orderId)
+                .addValue("expiresAt", Timestamp.from(expiresAt))) > 0;
+    }
+
+    /**
+     * Снимает срок брони, по которой создан заказ.
+     */
+    public boolean confirm(UUID orderId) {
+        return jdbcTemplate.update(CONFIRM_SQL, new MapSqlParameterSource("orderId", orderId)) > 0;
+    }
+
+    /**
+     * Возвращает бронь несозданного заказа в обычное состояние: её снова можно перебронировать.
+     */
+    public boolean abortAssembly(UUID orderId) {
+        return jdbcTemplate.update(ABORT_ASSEMBLY_SQL, new MapSqlParameterSource("orderId", orderId)) > 0;
+    }
+
+    /**
+     * Забирает из переданных броней те, что действительно истекли и не подтверждены.
+     */
+    public List<UUID> claimExpired(Collection<UUID> shoppingCartIds, Instant now) {
+        if (shoppingCartIds.isEmpty()) {
+            return List.of();
+        }
+        return jdbcTemplate.queryForList(CLAIM_EXPIRED_SQL, new MapSqlParameterSource()
+                .addValue("ids", shoppingCartIds)
+                .addValue("now", Timestamp.from(now)), UUID.class);
+    }
+
+    /**
+     * Забирает до limit самых старых истёкших броней независимо от того, какой экземпляр их создал.
+     */
+    public List<UUID> claimOverdue(Instant now, int limit) {
+        return jdbcTemplate.queryForList(CLAIM_OVERDUE_SQL, new MapSqlParameterSource()
+                .addValue("now", Timestamp.from(now))
+                .addValue("limit", limit), UUID.class);
+    }
+
+    public List<HeldItem> findHeldItems(Collection<UUID> shoppingCartIds) {
+        return jdbcTemplate.query(HELD_ITEMS_SQL, new MapSqlParameterSource("ids", shoppingCartIds),
+                (rs, rowNum) -> new HeldItem(
+                        rs.getObject("booking_id", UUID.class),
+                        rs.getObject("product_id", UUID.class),
+                        rs.getInt("quantity")));
+    }
+
+    public void deleteBookings(Collection<UUID> shoppingCartIds) {
+        MapSqlParameterSource params = new MapSqlParameterSource("ids", shoppingCartIds);
+        jdbcTemplate.update(DELETE_BOOKING_PRODUCTS_SQL, params);
+        jdbcTemplate.update(DELETE_BOOKINGS_SQL, params);
+    }
+
+    public record HeldItem(UUID shoppingCartId, UUID productId, int quantity) {
+    }
+}
@@ -0,0 +1,67 @@
+package ru.yandex.practicum.repository;
+
+import lombok.RequiredArgsConstructor;
+import org.springframework.jdbc.core.namedparam.MapSqlParameterSource;
+import org.springframework.jdbc.core.namedparam.NamedParameterJdbcTemplate;
+import org.springframework.stereotype.Repository;
+
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+
+/**
+ * Журнал броней, сделанных по счётчикам в памяти, но ещё не списанных с warehouse_products.
+ * Запись добавляется в одной транзакции с бронью, а количества берутся из booking_products,
+ * поэтому после падения журнал вместе с бронями полностью восстанавливает недосписанное.
+ */
+@Repository
+@RequiredArgsConstructor
+public class StockJournalRepository {
+    private static final String APPEND_SQL = "INSERT INTO stock_journal (booking_id) VALUES (:bookingId)";
+
+    private static final String REMOVE_SQL = "DELETE FROM stock_journal WHERE booking_id IN (:ids) RETURNING booking_id";
+
+    private static final String DRAIN_SQL = """
+            WITH drained AS (
+                DELETE FROM stock_journal
+                WHERE booking_id IN (
+                    SELECT booking_id
+                    FROM stock_journal
+                    ORDER BY created_at
+                    LIMIT :limit
+                    FOR UPDATE SKIP LOCKED)
+                RETURNING booking_id)
+            SELECT bp.product_id, SUM(bp.quantity) AS quantity
+            FROM booking_products bp
+            JOIN drained d ON d.booking_id = bp.booking_id
+            GROUP BY bp.product_id""";
+
+    private final NamedParameterJdbcTemplate jdbcTemplate;
+
+    public void append(UUID bookingId) {
+        jdbcTemplate.update(APPEND_SQL, new MapSqlParameterSource("bookingId", bookingId));
+    }
+
+    /**
+     * Убирает снятые брони из журнала. Строки, которые сейчас сбрасываются, DELETE дождётся и пропустит.
+     *
+     * @return брони, которые так и не были списаны с warehouse_products
+     */
+    public List<UUID> remove(Collection<UUID> bookingIds) {
+        return jdbcTemplate.queryForList(REMOVE_SQL, new MapSqlParameterSource("ids", bookingIds), UUID.class);
+    }
+
+    /**
+     * Забирает из журнала до limit броней и возвращает их суммарные количества по товарам.
+     * Удаление станет окончательным только вместе со списанием в той же транзакции.
+     */
+    public Map<UUID, Integer> drain(int limit) {
+        Map<UUID, Integer> quantities = new HashMap<>();
+        jdbcTemplate.query(DRAIN_SQL, new MapSqlParameterSource("limit", limit), rs -> {
+            quantities.put(rs.getObject("product_id", UUID.class), rs.getInt("quantity"));
+        });
+        return quantities;
+    }
+}
@@ -0,0 +1,133 @@
+package ru.yandex.practicum.repository;
+
+import lombok.RequiredArgsConstructor;
+import org.springframework.jdbc.core.RowMapper;
+import org.springframework.jdbc.core.namedparam.MapSqlParameterSource;
+import org.springframework.jdbc.core.namedparam.NamedParameterJdbcTemplate;
+import org.springframework.stereotype.Repository;
+import ru.yandex.practicum.entity.Dimension;
+import ru.yandex.practicum.entity.WarehouseProduct;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.TreeMap;
+import java.util.UUID;
+
+/**
+ * Set-based операции над остатками. Строки всегда блокируются и обновляются в порядке product_id,
+ * чтобы параллельные бронирования пересекающихся корзин не взаимоблокировались.
+ */
+@Repository
+@RequiredArgsConstructor
+public class StockReservationRepository {
+    private static final String LOCK_SQL = """
+            SELECT product_id, fragile, weight, quantity_available, width, height, depth
+            FROM warehouse_products
+            WHERE product_id IN (:ids)
+            ORDER BY product_id
+            FOR UPDATE""";
+
+    private static final String DECREMENT_SQL = """
+            UPDATE warehouse_products
+            SET quantity_available = quantity_available - :quantity
+            WHERE product_id = :productId AND quantity_available >= :quantity""";
+
+    private static final String INCREMENT_SQL = """
+            UPDATE warehouse_products
+            SET quantity_available = quantity_available + :quantity
+            WHERE product_id = :productId""";
+
+    private static final String RESERVABLE_SQL = """
+            SELECT p.product_id, p.fragile, p.weight, p.width, p.height, p.depth,
+                   p.quantity_available - COALESCE((
+                       SELECT SUM(bp.quantity)
+                       FROM stock_journal j
+                       JOIN booking_products bp ON bp.booking_id = j.booking_id
+                       WHERE bp.product_id = p.product_id), 0) AS quantity_available
+            FROM warehouse_products p
+            WHERE p.product_id = :productId""";
+
+    private static final String APPLY_RESERVED_SQL = """
+            UPDATE warehouse_products
+            SET quantity_available = quantity_available - :quantity
+            WHERE product_id = :productId AND quantity_available >= :quantity""";
+
+    private static final RowMapper<WarehouseProduct> ROW_MAPPER = (rs, rowNum) -> WarehouseProduct.builder()
+            .productId(rs.getObject("product_id", UUID.class))
+            .fragile(rs.getBoolean("fragile"))
+            .weight(rs.getDouble("weight"))
+            .quantityAvailable(rs.getInt("quantity_available"))
+            .dimension(new Dimension(rs.getDouble("width"), rs.getDouble("height"), rs.getDouble("depth")))
+            .build();
+
+    private final NamedParameterJdbcTemplate jdbcTemplate;
+
+    /**
+     * Одним запросом читает и блокирует строки товаров до конца текущей транзакции.
+     */
+    public List<WarehouseProduct> lockForUpdate(Collection<UUID> productIds) {
+        if (productIds.isEmpty()) {
+            return List.of();
+        }
+        return jdbcTemplate.query(LOCK_SQL, new MapSqlParameterSource("ids", productIds), ROW_MAPPER);
+    }
+
+    /**
+     * Товар с остатком за вычетом броней, ещё не применённых из журнала. Один запрос видит один снимок,
+     * поэтому параллельный сброс журнала не приводит к двойному учёту.
+     */
+    public Optional<WarehouseProduct> findReservable(UUID productId) {
+        return jdbcTemplate.query(RESERVABLE_SQL, new MapSqlParameterSource("productId", productId), ROW_MAPPER)
+                .stream()
+                .findFirst();
+    }
+
+    /**
+     * Списывает количество батчем условных UPDATE.
+     *
+     * @return id товаров, по которым остатка не хватило и строка не изменилась
+     */
+    public List<UUID> decrement(Map<UUID, Integer> quantities) {
+        return batchUpdate(DECREMENT_SQL, quantities);
+    }
+
+    /**
+     * @return id товаров, которых нет на складе
+     */
+    public List<UUID> increment(Map<UUID, Integer> quantities) {
+        return batchUpdate(INCREMENT_SQL, quantities);
+    }
+
+    /**
+     * Списывает брони, уже проверенные по счётчикам в памяти. Остаток в БД не уходит в минус,
+     * даже если счётчики разошлись с ним.
+     *
+     * @return id товаров, по которым остатка в БД не хватило и строка не изменилась
+     */
+    public List<UUID> applyReserved(Map<UUID, Integer> quantities) {
+        return batchUpdate(APPLY_RESERVED_SQL, quantities);
+    }
+
+    private List<UUID> batchUpdate(String sql, Map<UUID, Integer> quantities) {
+        TreeMap<UUID, Integer> ordered = new TreeMap<>(quantities);
+        MapSqlParameterSource[] batch = ordered.entrySet().stream()
+                .map(entry -> new MapSqlParameterSource()
+                        .addValue("productId", entry.getKey())
+                        .addValue("quantity", entry.getValue()))
+                .toArray(MapSqlParameterSource[]::new);
+
+        int[] updated = jdbcTemplate.batchUpdate(sql, batch);
+
+        List<UUID> rejected = new ArrayList<>();
+        int i = 0;
+        for (UUID productId : ordered.keySet()) {
+            if (updated[i++] == 0) {
+                rejected.add(productId);
+            }
+        }
+        return rejected;
+    }
+}
@@ -0,0 +1,125 @@
+package ru.yandex.practicum.service;
+
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import ru.yandex.practicum.entity.WarehouseProduct;
+import ru.yandex.practicum.repository.WarehouseRepository;
+import ru.yandex.practicum.shoppingStore.dto.SetProductQuantityStateRequest;
+import ru.yandex.practicum.shoppingStore.enums.QuantityState;
+import ru.yandex.practicum.shoppingStore.feign.ShoppingStoreClient;
+import ru.yandex.practicum.stock.HotStockLedger;
+
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Передаёт в shopping-store смену QuantityState товаров. В транзакции копятся только товары, у которых
+ * сменилось состояние; после коммита они попадают в общий набор, который периодически отправляется
+ * одним bulk-запросом. Состояние берётся по текущему остатку в момент отправки, поэтому несколько
+ * изменений одного товара схлопываются в одно, а порядок коммитов не важен. В режиме hot-stock остаток
+ * берётся из счётчиков в памяти: строка в БД отстаёт от них на несброшенный журнал.
+ */
+@Slf4j
+@Component
+@RequiredArgsConstructor
+public class QuantityStatePublisher {
+    private static final int LIMIT_COUNT = 5;
+    private static final int ENOUGH_COUNT = 20;
+
+    private final WarehouseRepository warehouseProductRepository;
+    private final ShoppingStoreClient shoppingStoreClient;
+    private final HotStockLedger hotStockLedger;
+
+    private final Set<UUID> pending = ConcurrentHashMap.newKeySet();
+
+    public static QuantityState stateOf(int quantity) {
+        if (quantity == 0) {
+            return QuantityState.ENDED;
+        }
+        if (quantity > 0 && quantity < LIMIT_COUNT) {
+            return QuantityState.FEW;
+        }
+        if (quantity >= LIMIT_COUNT && quantity <= ENOUGH_COUNT) {
+            return QuantityState.ENOUGH;
+        }
+        return QuantityState.MANY;
+    }
+
+    public void quantityChanged(UUID productId, int oldQuantity, int newQuantity) {
+        if (stateOf(oldQuantity) == stateOf(newQuantity)) {
+            return;
+        }
+
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            pending.add(productId);
+            return;
+        }
+
+        transactionChanges().add(productId);
+    }
+
+    @Scheduled(fixedDelayString = "${warehouse.quantity-state.flush-interval-ms:200}")
+    public void flush() {
+        if (pending.isEmpty()) {
+            return;
+        }
+
+        Set<UUID> batch = new HashSet<>();
+        for (UUID productId : pending) {
+            if (pending.remove(productId)) {
+                batch.add(productId);
+            }
+        }
+
+        List<SetProductQuantityStateRequest> requests = new ArrayList<>(batch.size());
+        for (WarehouseProduct product : warehouseProductRepository.findAllById(batch)) {
+            requests.add(SetProductQuantityStateRequest.builder()
+                    .productId(product.getProductId())
+                    .quantityState(stateOf(hotStockLedger.isEnabled()
+                            ? hotStockLedger.available(product.getProductId())
+                            : product.getQuantityAvailable()))
+                    .build());
+        }
+        if (requests.isEmpty()) {
+            return;
+        }
+
+        try {
+            shoppingStoreClient.setProductQuantityStates(requests);
+            log.debug("Quantity state sent for {} products", requests.size());
+        } catch (Exception e) {
+            log.warn("Quantity state update failed for {} products, will retry: {}", requests.size(), e.getMessage());
+            pending.addAll(batch);
+        }
+    }
+
+    private Set<UUID> transactionChanges() {
+        @SuppressWarnings("unchecked")
+        Set<UUID> changes = (Set<UUID>) TransactionSynchronizationManager.getResource(this);
+        if (changes == null) {
+            Set<UUID> created = new HashSet<>();
+            TransactionSynchronizationManager.bindResource(this, created);
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    pending.addAll(created);
+                }
+
+                @Override
+                public void afterCompletion(int status) {
+                    TransactionSynchronizationManager.unbindResourceIfPossible(QuantityStatePublisher.this);
+                }
+            });
+            changes = created;
+        }
+        return changes;
+    }
+}
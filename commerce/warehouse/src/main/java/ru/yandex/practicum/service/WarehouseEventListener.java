@@ -0,0 +1,39 @@
+package ru.yandex.practicum.service;
+
+import lombok.RequiredArgsConstructor;
+import org.apache.kafka.clients.consumer.ConsumerRecord;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.kafka.annotation.KafkaListener;
+import org.springframework.stereotype.Component;
+import ru.yandex.practicum.order.enums.OrderState;
+import ru.yandex.practicum.saga.dto.OrderEvent;
+import ru.yandex.practicum.saga.enums.OrderEventType;
+import ru.yandex.practicum.saga.inbox.SagaInbox;
+import ru.yandex.practicum.stock.BookingHolds;
+
+/**
+ * Сроки броней в саге заказа: созданный заказ снимает срок своей брони, а несозданный возвращает её корзине.
+ */
+@Component
+@ConditionalOnProperty(prefix = "saga", name = "enabled", havingValue = "true")
+@RequiredArgsConstructor
+public class WarehouseEventListener {
+    private final BookingHolds bookingHolds;
+    private final SagaInbox sagaInbox;
+
+    @KafkaListener(topics = "${saga.topic}", groupId = "warehouse-saga")
+    public void onMessage(ConsumerRecord<String, String> record) {
+        sagaInbox.parse(record.value())
+                .filter(event -> event.getType() == OrderEventType.ORDER_ABORTED
+                        || event.getType() == OrderEventType.ORDER_STATE_CHANGED && event.getState() == OrderState.NEW)
+                .ifPresent(event -> sagaInbox.handleOnce(event, this::handle));
+    }
+
+    private void handle(OrderEvent event) {
+        if (event.getType() == OrderEventType.ORDER_ABORTED) {
+            bookingHolds.assemblyAborted(event.getOrderId());
+        } else {
+            bookingHolds.confirm(event.getOrderId());
+        }
+    }
+}
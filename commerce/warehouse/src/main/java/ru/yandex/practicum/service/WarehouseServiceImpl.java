@@ -13,18 +13,25 @@ import ru.yandex.practicum.exception.SpecifiedProductAlreadyInWarehouseException
 import ru.yandex.practicum.mapper.BookingMapper;
 import ru.yandex.practicum.mapper.WarehouseMapper;
 import ru.yandex.practicum.repository.BookingRepository;
+import ru.yandex.practicum.repository.StockJournalRepository;
+import ru.yandex.practicum.repository.StockReservationRepository;
 import ru.yandex.practicum.repository.WarehouseRepository;
 import ru.yandex.practicum.shoppingCart.dto.ShoppingCartDto;
 import ru.yandex.practicum.shoppingStore.dto.ProductDto;
-import ru.yandex.practicum.shoppingStore.dto.SetProductQuantityStateRequest;
-import ru.yandex.practicum.shoppingStore.enums.QuantityState;
 import ru.yandex.practicum.shoppingStore.feign.ShoppingStoreClient;
+import ru.yandex.practicum.stock.BookingHolds;
+import ru.yandex.practicum.stock.HotStockLedger;
 import ru.yandex.practicum.warehouse.dto.*;
 
-import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
 import java.util.List;
 import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
 import java.util.UUID;
+import java.util.function.Function;
+import java.util.stream.Collectors;
 
 import static ru.yandex.practicum.delivery.dto.AddressDto.getDefaultAddress;
 
@@ -33,13 +40,16 @@ import static ru.yandex.practicum.delivery.dto.AddressDto.getDefaultAddress;
 @Slf4j
 public class WarehouseServiceImpl implements WarehouseService {
 
-    private static final int LIMIT_COUNT = 5;
-    private static final int ENOUGH_COUNT = 20;
     private final WarehouseRepository warehouseProductRepository;
     private final BookingRepository bookingRepository;
     private final ShoppingStoreClient shoppingStoreClient;
     private final WarehouseMapper warehouseMapper;
     private final BookingMapper bookingMapper;
+    private final QuantityStatePublisher quantityStatePublisher;
+    private final StockReservationRepository stockReservationRepository;
+    private final StockJournalRepository stockJournalRepository;
+    private final HotStockLedger hotStockLedger;
+    private final BookingHolds bookingHolds;
 
     @Override
     public void addNewProduct(NewProductInWarehouseRequest request) {
@@ -65,11 +75,16 @@ public class WarehouseServiceImpl implements WarehouseService {
     public void acceptReturn(Map<UUID, Integer> products) {
         log.info("acceptReturn {}", products);
 
+        Map<UUID, WarehouseProduct> locked = lockProducts(products);
+        Map<UUID, Integer> oldQuantities = reservable(locked);
+        if (hotStockLedger.isEnabled()) {
+            hotStockLedger.stockAdded(products);
+        }
+        stockReservationRepository.increment(products);
+
         products.forEach((productId, quantity) -> {
-            WarehouseProduct product = warehouseProductRepository.findById(productId)
-                    .orElseThrow(() -> new NoSpecifiedProductInWarehouseException("product not found"));
-            product.setQuantityAvailable(product.getQuantityAvailable() + quantity);
-            warehouseProductRepository.save(product);
+            int oldQuantity = oldQuantities.get(productId);
+            quantityStatePublisher.quantityChanged(productId, oldQuantity, oldQuantity + quantity);
         });
     }
 
@@ -78,62 +93,83 @@ public class WarehouseServiceImpl implements WarehouseService {
     public BookedProductsDto bookProductForShoppingCart(ShoppingCartDto shoppingCart) {
         log.info("bookProductForShoppingCart {}", shoppingCart);
 
-        double totalWeight = 0;
-        double totalVolume = 0;
-        boolean fragile = false;
-
-        List<WarehouseProduct> productsToUpdate = new ArrayList<>();
+        Map<UUID, Integer> requested = shoppingCart.getProducts();
+        UUID shoppingCartId = shoppingCart.getShoppingCartId();
+        // Повтор той же корзины после потерянного ответа возвращает уже сделанную бронь, а бронь
+        // с другим составом снимается и делается заново, пока по ней не начали собирать заказ.
+        Map<UUID, Integer> alreadyBooked = bookingHolds.bookedProducts(shoppingCartId);
+        Map<UUID, Integer> released = Map.of();
+        if (!alreadyBooked.isEmpty()) {
+            if (hotStockLedger.isEnabled()) {
+                // Снятая бронь засчитывается новой, поэтому счётчики не должны увидеть её снятие в БД.
+                Set<UUID> involved = new HashSet<>(requested.keySet());
+                involved.addAll(alreadyBooked.keySet());
+                hotStockLedger.seed(involved);
+            }
+            Optional<Map<UUID, Integer>> releasedNow = alreadyBooked.equals(requested)
+                    ? Optional.empty()
+                    : bookingHolds.releaseNow(shoppingCartId);
+            if (releasedNow.isEmpty()) {
+                return bookingRepository.findById(shoppingCartId)
+                        .map(bookingMapper::toBookedProductDto)
+                        .orElseThrow(() -> new NoSpecifiedProductInWarehouseException("booking " + shoppingCartId + " not found"));
+            }
+            released = releasedNow.get();
+        }
 
-        for (Map.Entry<UUID, Integer> entry : shoppingCart.getProducts().entrySet()) {
-            UUID productId = entry.getKey();
-            int requestedQuantity = entry.getValue();
+        if (hotStockLedger.isEnabled()) {
+            // Снятая бронь ещё не закоммичена, поэтому её количество засчитывается новой, а не берётся из счётчиков.
+            Map<UUID, Integer> change = new HashMap<>(released);
+            requested.forEach((productId, quantity) -> change.merge(productId, -quantity, Integer::sum));
+            Map<UUID, Integer> before = new HashMap<>();
+            change.keySet().forEach(productId -> before.put(productId, hotStockLedger.available(productId)));
+
+            Booking booking = toBooking(shoppingCart, hotStockLedger.reserve(requested, released));
+            change.forEach((productId, delta) -> {
+                int oldQuantity = before.get(productId);
+                quantityStatePublisher.quantityChanged(productId, oldQuantity, oldQuantity + delta);
+            });
+            bookingRepository.save(booking);
+            stockJournalRepository.append(booking.getShoppingCartId());
+            bookingHolds.hold(shoppingCartId);
+            return bookingMapper.toBookedProductDto(booking);
+        }
 
-            WarehouseProduct product = warehouseProductRepository.findById(productId)
-                    .orElseThrow(() -> new NoSpecifiedProductInWarehouseException("product not found " + productId));
+        Map<UUID, WarehouseProduct> locked = lockProducts(requested);
 
-            if (product.getQuantityAvailable() < requestedQuantity) {
+        for (Map.Entry<UUID, Integer> entry : requested.entrySet()) {
+            UUID productId = entry.getKey();
+            if (locked.get(productId).getQuantityAvailable() < entry.getValue()) {
                 throw new ProductInShoppingCartLowQuantityInWarehouse("not enough product " + productId);
             }
-
-            product.setQuantityAvailable(product.getQuantityAvailable() - requestedQuantity);
-            productsToUpdate.add(product);
-            QuantityState newState = determineState(product.getQuantityAvailable());
-            shoppingStoreClient.setProductQuantityState(
-                    SetProductQuantityStateRequest.builder()
-                            .productId(productId)
-                            .quantityState(newState)
-                            .build()
-            );
-
-            totalWeight += product.getWeight() * requestedQuantity;
-            totalVolume += product.getDimension().getWidth()
-                    * product.getDimension().getHeight()
-                    * product.getDimension().getDepth() * requestedQuantity;
-
-            fragile |= product.isFragile();
         }
 
-        warehouseProductRepository.saveAll(productsToUpdate);
-
+        List<UUID> rejected = stockReservationRepository.decrement(requested);
+        if (!rejected.isEmpty()) {
+            throw new ProductInShoppingCartLowQuantityInWarehouse("not enough product " + rejected);
+        }
 
-        Booking booking = Booking.builder()
-                .shoppingCartId(shoppingCart.getShoppingCartId())
-                .products(shoppingCart.getProducts())
-                .deliveryWeight(totalWeight)
-                .deliveryVolume(totalVolume)
-                .fragile(fragile)
-                .build();
+        requested.forEach((productId, quantity) -> {
+            int oldQuantity = locked.get(productId).getQuantityAvailable();
+            quantityStatePublisher.quantityChanged(productId, oldQuantity, oldQuantity - quantity);
+        });
 
+        Booking booking = toBooking(shoppingCart, locked);
         bookingRepository.save(booking);
+        bookingHolds.hold(shoppingCartId);
 
         return bookingMapper.toBookedProductDto(booking);
     }
 
     @Override
-    @Transactional(readOnly = true)
+    @Transactional
     public BookedProductsDto assemblyProductForOrderFromShoppingCart(AssemblyProductForOrderFromShoppingCartRequest request) {
         log.info("assemblyProductForOrderFromShoppingCart {} {}", request.getShoppingCartId(), request.getOrderId());
 
+        // Срок снимется только событием о созданном заказе: если создание сорвётся, бронь не потеряется.
+        // Отметка идёт до чтения брони, чтобы дождаться её снятия, если оно уже идёт.
+        bookingHolds.assemble(request.getShoppingCartId(), request.getOrderId());
+
         Booking booking = bookingRepository.findById(request.getShoppingCartId())
                 .orElseThrow(() -> new NoSpecifiedProductInWarehouseException("booking " + request.getShoppingCartId() + " not found"));
 
@@ -149,19 +185,14 @@ public class WarehouseServiceImpl implements WarehouseService {
     public void addProductQuantity(AddProductToWarehouseRequest request) {
         log.info("addProductQuantity {}", request);
 
-        WarehouseProduct product = warehouseProductRepository.findById(request.getProductId())
-                .orElseThrow(() -> new NoSpecifiedProductInWarehouseException("product not found"));
-
-        product.setQuantityAvailable(product.getQuantityAvailable() + request.getQuantity());
-        WarehouseProduct updatedProduct = warehouseProductRepository.save(product);
+        Map<UUID, Integer> quantities = Map.of(request.getProductId(), request.getQuantity());
+        int oldQuantity = reservable(lockProducts(quantities)).get(request.getProductId());
+        if (hotStockLedger.isEnabled()) {
+            hotStockLedger.stockAdded(quantities);
+        }
+        stockReservationRepository.increment(quantities);
 
-        QuantityState newState = determineState(updatedProduct.getQuantityAvailable());
-        shoppingStoreClient.setProductQuantityState(
-                SetProductQuantityStateRequest.builder()
-                        .productId(request.getProductId())
-                        .quantityState(newState)
-                        .build()
-        );
+        quantityStatePublisher.quantityChanged(request.getProductId(), oldQuantity, oldQuantity + request.getQuantity());
     }
 
     @Override
@@ -169,16 +200,53 @@ public class WarehouseServiceImpl implements WarehouseService {
         return getDefaultAddress();
     }
 
-    private QuantityState determineState(int quantity) {
-        if (quantity == 0) {
-            return QuantityState.ENDED;
-        }
-        if (quantity > 0 && quantity < LIMIT_COUNT) {
-            return QuantityState.FEW;
+    private Booking toBooking(ShoppingCartDto shoppingCart, Map<UUID, WarehouseProduct> products) {
+        double totalWeight = 0;
+        double totalVolume = 0;
+        boolean fragile = false;
+
+        for (Map.Entry<UUID, Integer> entry : shoppingCart.getProducts().entrySet()) {
+            WarehouseProduct product = products.get(entry.getKey());
+            int requestedQuantity = entry.getValue();
+
+            totalWeight += product.getWeight() * requestedQuantity;
+            totalVolume += product.getDimension().getWidth()
+                    * product.getDimension().getHeight()
+                    * product.getDimension().getDepth() * requestedQuantity;
+
+            fragile |= product.isFragile();
         }
-        if (quantity >= LIMIT_COUNT && quantity <= ENOUGH_COUNT) {
-            return QuantityState.ENOUGH;
+
+        return Booking.builder()
+                .shoppingCartId(shoppingCart.getShoppingCartId())
+                .products(shoppingCart.getProducts())
+                .deliveryWeight(totalWeight)
+                .deliveryVolume(totalVolume)
+                .fragile(fragile)
+                .build();
+    }
+
+    /**
+     * Остатки до изменения, по которым считается смена QuantityState. В режиме hot-stock строка в БД
+     * ещё не учитывает брони из журнала, поэтому остаток берётся из счётчиков.
+     */
+    private Map<UUID, Integer> reservable(Map<UUID, WarehouseProduct> locked) {
+        Map<UUID, Integer> quantities = new HashMap<>();
+        locked.forEach((productId, product) -> quantities.put(productId, hotStockLedger.isEnabled()
+                ? hotStockLedger.available(productId)
+                : product.getQuantityAvailable()));
+        return quantities;
+    }
+
+    private Map<UUID, WarehouseProduct> lockProducts(Map<UUID, Integer> products) {
+        Map<UUID, WarehouseProduct> locked = stockReservationRepository.lockForUpdate(products.keySet()).stream()
+                .collect(Collectors.toMap(WarehouseProduct::getProductId, Function.identity()));
+
+        for (UUID productId : products.keySet()) {
+            if (!locked.containsKey(productId)) {
+                throw new NoSpecifiedProductInWarehouseException("product not found " + productId);
+            }
         }
-        return QuantityState.MANY;
+        return locked;
     }
 }
@@ -0,0 +1,225 @@
+package ru.yandex.practicum.stock;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionTemplate;
+import ru.yandex.practicum.config.BookingHoldConfig;
+import ru.yandex.practicum.entity.WarehouseProduct;
+import ru.yandex.practicum.repository.BookingHoldRepository;
+import ru.yandex.practicum.repository.BookingHoldRepository.HeldItem;
+import ru.yandex.practicum.repository.StockJournalRepository;
+import ru.yandex.practicum.repository.StockReservationRepository;
+import ru.yandex.practicum.service.QuantityStatePublisher;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.UUID;
+import java.util.function.Supplier;
+
+/**
+ * Сроки броней корзин. Бронь держит товар ttl; если за это время по ней не создан заказ, она снимается,
+ * а количество возвращается в warehouse_products. Сборка заказа продлевает бронь на assembly-ttl,
+ * а снимает срок только событие саги о созданном заказе: если заказ не создался, бронь остаётся
+ * обычной и истечёт сама. Сроки своих броней экземпляр держит в колесе таймеров и снимает их пачками
+ * по тику; редкий проход по БД подбирает брони, чьё колесо пропало вместе с экземпляром.
+ */
+@Slf4j
+@Component
+public class BookingHolds {
+    private final BookingHoldRepository bookingHoldRepository;
+    private final StockJournalRepository stockJournalRepository;
+    private final StockReservationRepository stockReservationRepository;
+    private final QuantityStatePublisher quantityStatePublisher;
+    private final HotStockLedger hotStockLedger;
+    private final TransactionTemplate transactionTemplate;
+    private final BookingHoldConfig config;
+    private final HoldExpiryWheel wheel;
+    private final Counter released;
+
+    public BookingHolds(BookingHoldRepository bookingHoldRepository,
+                        StockJournalRepository stockJournalRepository,
+                        StockReservationRepository stockReservationRepository,
+                        QuantityStatePublisher quantityStatePublisher,
+                        HotStockLedger hotStockLedger,
+                        TransactionTemplate transactionTemplate,
+                        BookingHoldConfig config,
+                        MeterRegistry meterRegistry) {
+        this.bookingHoldRepository = bookingHoldRepository;
+        this.stockJournalRepository = stockJournalRepository;
+        this.stockReservationRepository = stockReservationRepository;
+        this.quantityStatePublisher = quantityStatePublisher;
+        this.hotStockLedger = hotStockLedger;
+        this.transactionTemplate = transactionTemplate;
+        this.config = config;
+        this.wheel = new HoldExpiryWheel(Duration.ofMillis(config.getTickMs()), config.getWheelSize(), Instant.now());
+        this.released = meterRegistry.counter("warehouse.booking-holds.released");
+        Gauge.builder("warehouse.booking-holds.scheduled", wheel, HoldExpiryWheel::size)
+                .register(meterRegistry);
+    }
+
+    /**
+     * Ставит срок брони в текущей транзакции; в колесо он попадает после коммита.
+     */
+    public void hold(UUID shoppingCartId) {
+        Instant expiresAt = Instant.now().plus(config.getTtl());
+        bookingHoldRepository.hold(shoppingCartId, expiresAt);
+        scheduleAfterCommit(shoppingCartId, expiresAt);
+    }
+
+    /**
+     * По брони собирается заказ orderId: её нельзя перебронировать, а срок продлевается, чтобы заказ успел
+     * сохраниться. Если бронь в этот момент снимается, вызов дождётся конца снятия.
+     */
+    public void assemble(UUID shoppingCartId, UUID orderId) {
+        Instant expiresAt = Instant.now().plus(config.getAssemblyTtl());
+        if (bookingHoldRepository.startAssembly(shoppingCartId, orderId, expiresAt)) {
+            scheduleAfterCommit(shoppingCartId, expiresAt);
+        }
+    }
+
+    /**
+     * Снимает срок: заказ создан. Запись в колесе остаётся и при срабатывании ничего не найдёт.
+     */
+    public void confirm(UUID orderId) {
+        if (!bookingHoldRepository.confirm(orderId)) {
+            log.debug("Срока брони заказа {} уже нет", orderId);
+        }
+    }
+
+    /**
+     * Заказ не создан: бронь снова обычная, её можно перебронировать, а иначе она истечёт.
+     */
+    public void assemblyAborted(UUID orderId) {
+        if (bookingHoldRepository.abortAssembly(orderId)) {
+            log.info("Бронь несозданного заказа {} возвращена корзине", orderId);
+        }
+    }
+
+    /**
+     * Снимает бронь корзины сразу в текущей транзакции, чтобы забронировать корзину с другим составом.
+     * В режиме hot-stock снятое количество в счётчики не попадает, а засчитывается новой брони
+     * через {@link HotStockLedger#reserve(Map, Map)}.
+     *
+     * @return снятое количество по товарам или пустой Optional, если по брони создаётся или уже создан заказ
+     */
+    public Optional<Map<UUID, Integer>> releaseNow(UUID shoppingCartId) {
+        if (!bookingHoldRepository.claim(shoppingCartId)) {
+            return Optional.empty();
+        }
+        return Optional.of(releaseBatch(List.of(shoppingCartId), false));
+    }
+
+    /**
+     * Состав существующей брони корзины; пустой, если брони нет.
+     */
+    public Map<UUID, Integer> bookedProducts(UUID shoppingCartId) {
+        Map<UUID, Integer> products = new HashMap<>();
+        bookingHoldRepository.findHeldItems(List.of(shoppingCartId))
+                .forEach(item -> products.put(item.productId(), item.quantity()));
+        return products;
+    }
+
+    @Scheduled(fixedDelayString = "${warehouse.booking-hold.tick-ms:1000}")
+    public void releaseDue() {
+        Instant now = Instant.now();
+        List<UUID> due = wheel.advance(now);
+        for (int from = 0; from < due.size(); from += config.getReleaseBatchSize()) {
+            List<UUID> batch = due.subList(from, Math.min(from + config.getReleaseBatchSize(), due.size()));
+            release(() -> bookingHoldRepository.claimExpired(batch, now));
+        }
+    }
+
+    @Scheduled(fixedDelayString = "${warehouse.booking-hold.sweep-interval-ms:30000}")
+    public void releaseOverdue() {
+        Integer count;
+        do {
+            count = release(() -> bookingHoldRepository.claimOverdue(Instant.now(), config.getReleaseBatchSize()));
+        } while (count != null && count >= config.getReleaseBatchSize());
+    }
+
+    private void scheduleAfterCommit(UUID shoppingCartId, Instant expiresAt) {
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            wheel.schedule(shoppingCartId, expiresAt);
+            return;
+        }
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCommit() {
+                wheel.schedule(shoppingCartId, expiresAt);
+            }
+        });
+    }
+
+    /**
+     * @return число снятых броней или null, если пачка не снялась; её подберёт проход по БД
+     */
+    private Integer release(Supplier<List<UUID>> claim) {
+        try {
+            return transactionTemplate.execute(status -> {
+                List<UUID> expired = claim.get();
+                releaseBatch(expired, true);
+                return expired.size();
+            });
+        } catch (Exception e) {
+            log.warn("Снятие истёкших броней не удалось, повторим: {}", e.getMessage());
+            return null;
+        }
+    }
+
+    /**
+     * @param toLedger вернуть снятое в счётчики hot-stock после коммита; иначе его засчитывает вызывающий
+     * @return снятое количество по товарам
+     */
+    private Map<UUID, Integer> releaseBatch(List<UUID> expired, boolean toLedger) {
+        Map<UUID, Integer> total = new HashMap<>();
+        if (expired.isEmpty()) {
+            return total;
+        }
+
+        List<HeldItem> items = bookingHoldRepository.findHeldItems(expired);
+        items.forEach(item -> total.merge(item.productId(), item.quantity(), Integer::sum));
+        if (hotStockLedger.isEnabled() && toLedger) {
+            // Доступный остаток растёт на всю бронь, списана она уже с warehouse_products или ещё в журнале.
+            total.forEach((productId, quantity) -> {
+                int oldQuantity = hotStockLedger.available(productId);
+                quantityStatePublisher.quantityChanged(productId, oldQuantity, oldQuantity + quantity);
+            });
+            hotStockLedger.stockAdded(total);
+        }
+
+        Set<UUID> unapplied = new HashSet<>(stockJournalRepository.remove(expired));
+        Map<UUID, Integer> applied = new HashMap<>();
+        items.stream()
+                .filter(item -> !unapplied.contains(item.shoppingCartId()))
+                .forEach(item -> applied.merge(item.productId(), item.quantity(), Integer::sum));
+
+        Map<UUID, WarehouseProduct> locked = new HashMap<>();
+        stockReservationRepository.lockForUpdate(applied.keySet())
+                .forEach(product -> locked.put(product.getProductId(), product));
+        stockReservationRepository.increment(applied);
+        bookingHoldRepository.deleteBookings(expired);
+
+        applied.forEach((productId, quantity) -> {
+            WarehouseProduct product = locked.get(productId);
+            if (product != null && !hotStockLedger.isEnabled()) {
+                int oldQuantity = product.getQuantityAvailable();
+                quantityStatePublisher.quantityChanged(productId, oldQuantity, oldQuantity + quantity);
+            }
+        });
+        released.increment(expired.size());
+        log.debug("Released {} expired bookings", expired.size());
+        return total;
+    }
+}
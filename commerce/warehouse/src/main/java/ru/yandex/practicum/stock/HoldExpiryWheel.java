@@ -0,0 +1,89 @@
+package ru.yandex.practicum.stock;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Хэшированное колесо таймеров для сроков броней. Срок округляется вверх до тика и кладётся в ячейку
+ * tick % size за O(1); продвижение колеса просматривает только ячейки прошедших тиков. Сроки дальше
+ * одного оборота остаются в своей ячейке, пока не наступит их тик, поэтому очередь с приоритетом
+ * и её O(log n) на каждую бронь не нужны.
+ */
+final class HoldExpiryWheel {
+    private final long tickMillis;
+    private final List<List<Entry>> slots;
+    private final ReentrantLock lock = new ReentrantLock();
+    private long currentTick;
+    private int size;
+
+    HoldExpiryWheel(Duration tick, int wheelSize, Instant start) {
+        this.tickMillis = Math.max(1, tick.toMillis());
+        this.slots = new ArrayList<>(wheelSize);
+        for (int i = 0; i < wheelSize; i++) {
+            slots.add(new ArrayList<>());
+        }
+        this.currentTick = start.toEpochMilli() / tickMillis;
+    }
+
+    void schedule(UUID shoppingCartId, Instant expiresAt) {
+        long deadline = Math.ceilDiv(expiresAt.toEpochMilli(), tickMillis);
+        lock.lock();
+        try {
+            deadline = Math.max(deadline, currentTick + 1);
+            slot(deadline).add(new Entry(shoppingCartId, deadline));
+            size++;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Продвигает колесо до now и забирает наступившие сроки. После долгой паузы каждая ячейка
+     * просматривается не больше одного раза.
+     */
+    List<UUID> advance(Instant now) {
+        long target = now.toEpochMilli() / tickMillis;
+        List<UUID> due = new ArrayList<>();
+        lock.lock();
+        try {
+            if (target <= currentTick) {
+                return due;
+            }
+            long from = Math.max(currentTick + 1, target - slots.size() + 1);
+            for (long tick = from; tick <= target; tick++) {
+                slot(tick).removeIf(entry -> {
+                    if (entry.deadline() > target) {
+                        return false;
+                    }
+                    due.add(entry.shoppingCartId());
+                    return true;
+                });
+            }
+            size -= due.size();
+            currentTick = target;
+            return due;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    int size() {
+        lock.lock();
+        try {
+            return size;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    private List<Entry> slot(long tick) {
+        return slots.get((int) Math.floorMod(tick, (long) slots.size()));
+    }
+
+    private record Entry(UUID shoppingCartId, long deadline) {
+    }
+}
@@ -0,0 +1,199 @@
+package ru.yandex.practicum.stock;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionTemplate;
+import ru.yandex.practicum.cache.LoadingFutures;
+import ru.yandex.practicum.config.HotStockConfig;
+import ru.yandex.practicum.entity.WarehouseProduct;
+import ru.yandex.practicum.exception.NoSpecifiedProductInWarehouseException;
+import ru.yandex.practicum.exception.ProductInShoppingCartLowQuantityInWarehouse;
+import ru.yandex.practicum.repository.StockReservationRepository;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Счётчики доступного остатка в памяти для режима warehouse.hot-stock. Счётчик товара создаётся при первом
+ * обращении из БД за вычетом журнала и дальше не вытесняется, поэтому любое изменение остатка после его
+ * создания проходит через него. Пополнения применяются к БД обычным путём, а в счётчик попадают после коммита.
+ * Счётчик читается из БД в отдельной транзакции: незакоммиченные изменения вызывающего в него не попадают.
+ */
+@Component
+public class HotStockLedger {
+    private final StockReservationRepository stockReservationRepository;
+    private final HotStockConfig config;
+    private final TransactionTemplate seedTransaction;
+    private final Counter accepted;
+    private final Counter rejected;
+
+    private final Map<UUID, StripedStock> stocks = new ConcurrentHashMap<>();
+
+    /**
+     * Счётчики, которые сейчас читаются из БД. Первое обращение к товару читает его само, а параллельные
+     * ждут только его результата; в computeIfAbsent виртуальный поток на время запроса закрепился бы
+     * за несущим.
+     */
+    private final Map<UUID, CompletableFuture<StripedStock>> seeding = new ConcurrentHashMap<>();
+
+    public HotStockLedger(StockReservationRepository stockReservationRepository,
+                          HotStockConfig config,
+                          PlatformTransactionManager transactionManager,
+                          MeterRegistry meterRegistry) {
+        this.stockReservationRepository = stockReservationRepository;
+        this.config = config;
+        this.seedTransaction = new TransactionTemplate(transactionManager);
+        this.seedTransaction.setPropagationBehavior(TransactionDefinition.PROPAGATION_REQUIRES_NEW);
+        this.seedTransaction.setReadOnly(true);
+        this.accepted = meterRegistry.counter("warehouse.hot-stock.reservations", "result", "accepted");
+        this.rejected = meterRegistry.counter("warehouse.hot-stock.reservations", "result", "rejected");
+    }
+
+    public boolean isEnabled() {
+        return config.isEnabled();
+    }
+
+    /**
+     * Резервирует всю корзину или ничего. Если бронь не будет закоммичена, количество вернётся в счётчики.
+     *
+     * @return товары корзины для расчёта параметров доставки
+     */
+    public Map<UUID, WarehouseProduct> reserve(Map<UUID, Integer> requested) {
+        return reserve(requested, Map.of());
+    }
+
+    /**
+     * Резервирует корзину, сначала засчитывая количество, снятое с прежней брони в этой же транзакции.
+     * Снятое в счётчики не возвращается: до коммита оно всё ещё занято прежней бронью. Из счётчиков
+     * берётся только недостающее, а излишек снятого попадает в них после коммита.
+     *
+     * @param credit количество, освобождённое в текущей транзакции
+     */
+    public Map<UUID, WarehouseProduct> reserve(Map<UUID, Integer> requested, Map<UUID, Integer> credit) {
+        Map<UUID, Integer> needed = new HashMap<>();
+        Map<UUID, WarehouseProduct> products = new HashMap<>();
+        List<UUID> lacking = new ArrayList<>();
+
+        for (Map.Entry<UUID, Integer> entry : new TreeMap<>(requested).entrySet()) {
+            StripedStock stock = stock(entry.getKey());
+            products.put(entry.getKey(), stock.product());
+            int need = entry.getValue() - credit.getOrDefault(entry.getKey(), 0);
+            if (need <= 0) {
+                continue;
+            }
+            if (!stock.tryAcquire(need)) {
+                lacking.add(entry.getKey());
+                break;
+            }
+            needed.put(entry.getKey(), need);
+        }
+
+        if (!lacking.isEmpty()) {
+            needed.forEach((productId, need) -> stocks.get(productId).release(need));
+            rejected.increment();
+            throw new ProductInShoppingCartLowQuantityInWarehouse("not enough product " + lacking);
+        }
+
+        accepted.increment();
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCompletion(int status) {
+                    if (status != STATUS_COMMITTED) {
+                        needed.forEach((productId, need) -> stocks.get(productId).release(need));
+                    }
+                }
+            });
+        }
+
+        Map<UUID, Integer> surplus = new HashMap<>();
+        credit.forEach((productId, quantity) -> {
+            int left = quantity - requested.getOrDefault(productId, 0);
+            if (left > 0) {
+                surplus.put(productId, left);
+            }
+        });
+        if (!surplus.isEmpty()) {
+            stockAdded(surplus);
+        }
+        return products;
+    }
+
+    /**
+     * Создаёт счётчики товаров заранее. Вызывается до изменений остатка в текущей транзакции, которые
+     * учитываются в счётчиках иначе, чем чтением из БД.
+     */
+    public void seed(Collection<UUID> productIds) {
+        productIds.forEach(this::stock);
+    }
+
+    /**
+     * Остаток, доступный для брони: warehouse_products за вычетом ещё не сброшенного журнала.
+     * В этом режиме именно по нему считается QuantityState, а не по строке в БД.
+     */
+    public int available(UUID productId) {
+        return stock(productId).available();
+    }
+
+    /**
+     * Вызывается до изменения остатков в БД: гарантирует, что счётчики созданы раньше, чем пополнение
+     * станет видно, и добавляет его к ним после коммита.
+     */
+    public void stockAdded(Map<UUID, Integer> quantities) {
+        Map<UUID, StripedStock> tracked = new HashMap<>();
+        quantities.keySet().forEach(productId -> tracked.put(productId, stock(productId)));
+
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            tracked.forEach((productId, stock) -> stock.release(quantities.get(productId)));
+            return;
+        }
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCommit() {
+                tracked.forEach((productId, stock) -> stock.release(quantities.get(productId)));
+            }
+        });
+    }
+
+    private StripedStock stock(UUID productId) {
+        StripedStock stock = stocks.get(productId);
+        if (stock != null) {
+            return stock;
+        }
+
+        CompletableFuture<StripedStock> mine = new CompletableFuture<>();
+        CompletableFuture<StripedStock> running = seeding.putIfAbsent(productId, mine);
+        if (running != null) {
+            return LoadingFutures.join(running);
+        }
+
+        try {
+            stock = stocks.get(productId);
+            if (stock == null) {
+                stock = seedTransaction.execute(status -> stockReservationRepository.findReservable(productId))
+                        .map(product -> new StripedStock(product, product.getQuantityAvailable(), config.getStripes()))
+                        .orElseThrow(() -> new NoSpecifiedProductInWarehouseException("product not found " + productId));
+                stocks.put(productId, stock);
+            }
+            mine.complete(stock);
+            return stock;
+        } catch (RuntimeException e) {
+            mine.completeExceptionally(e);
+            throw e;
+        } finally {
+            seeding.remove(productId, mine);
+        }
+    }
+}
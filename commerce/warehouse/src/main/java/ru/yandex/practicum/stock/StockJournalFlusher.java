@@ -0,0 +1,95 @@
+package ru.yandex.practicum.stock;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionTemplate;
+import ru.yandex.practicum.config.HotStockConfig;
+import ru.yandex.practicum.entity.WarehouseProduct;
+import ru.yandex.practicum.repository.StockJournalRepository;
+import ru.yandex.practicum.repository.StockReservationRepository;
+import ru.yandex.practicum.service.QuantityStatePublisher;
+
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+/**
+ * Write-behind для броней из памяти: пачкой забирает журнал и списывает остатки одним UPDATE на товар.
+ * Работает и при выключенном режиме, чтобы после падения или отключения дописать оставшийся журнал.
+ */
+@Slf4j
+@Component
+public class StockJournalFlusher {
+    private final StockJournalRepository stockJournalRepository;
+    private final StockReservationRepository stockReservationRepository;
+    private final QuantityStatePublisher quantityStatePublisher;
+    private final TransactionTemplate transactionTemplate;
+    private final HotStockConfig config;
+    private final Timer flushTimer;
+    private final Counter drift;
+
+    public StockJournalFlusher(StockJournalRepository stockJournalRepository,
+                               StockReservationRepository stockReservationRepository,
+                               QuantityStatePublisher quantityStatePublisher,
+                               TransactionTemplate transactionTemplate,
+                               HotStockConfig config,
+                               MeterRegistry meterRegistry) {
+        this.stockJournalRepository = stockJournalRepository;
+        this.stockReservationRepository = stockReservationRepository;
+        this.quantityStatePublisher = quantityStatePublisher;
+        this.transactionTemplate = transactionTemplate;
+        this.config = config;
+        this.flushTimer = Timer.builder("warehouse.hot-stock.flush")
+                .publishPercentiles(0.5, 0.99)
+                .register(meterRegistry);
+        this.drift = meterRegistry.counter("warehouse.hot-stock.drift");
+    }
+
+    @Scheduled(fixedDelayString = "${warehouse.hot-stock.flush-interval-ms:100}")
+    public void flush() {
+        try {
+            Integer applied;
+            do {
+                applied = flushTimer.record(() -> transactionTemplate.execute(status -> flushBatch()));
+            } while (applied != null && applied > 0);
+        } catch (Exception e) {
+            log.warn("Сброс журнала броней не удался, повторим: {}", e.getMessage());
+        }
+    }
+
+    private int flushBatch() {
+        Map<UUID, Integer> drained = stockJournalRepository.drain(config.getFlushBatchSize());
+        if (drained.isEmpty()) {
+            return 0;
+        }
+
+        Map<UUID, WarehouseProduct> locked = new HashMap<>();
+        stockReservationRepository.lockForUpdate(drained.keySet())
+                .forEach(product -> locked.put(product.getProductId(), product));
+        List<UUID> drifted = stockReservationRepository.applyReserved(drained);
+        if (!drifted.isEmpty()) {
+            drift.increment(drifted.size());
+            log.error("Счётчики hot-stock разошлись с warehouse_products, бронь не списана: {}",
+                    drifted.stream().collect(Collectors.toMap(Function.identity(), drained::get)));
+        }
+
+        // Пока режим включён, сброс не меняет доступный остаток: бронь уже вычтена из счётчиков
+        // и её смена состояния отправлена при бронировании.
+        drained.forEach((productId, quantity) -> {
+            WarehouseProduct product = locked.get(productId);
+            if (product != null && !config.isEnabled() && !drifted.contains(productId)) {
+                int oldQuantity = product.getQuantityAvailable();
+                quantityStatePublisher.quantityChanged(productId, oldQuantity, oldQuantity - quantity);
+            }
+        });
+        log.debug("Journal flushed for {} products", drained.size());
+        return drained.size();
+    }
+}
@@ -0,0 +1,95 @@
+package ru.yandex.practicum.stock;
+
+import ru.yandex.practicum.entity.WarehouseProduct;
+
+import java.util.concurrent.atomic.AtomicIntegerArray;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Остаток одного товара, разложенный по нескольким ячейкам. Списание идёт CAS-ом начиная с ячейки
+ * текущего потока, так что параллельные брони горячего товара не упираются в одну переменную.
+ * Если ни в одной ячейке не хватает, остаток собирается под блокировкой, которую берут только такие же
+ * медленные списания.
+ */
+final class StripedStock {
+    /**
+     * Ячейки разнесены на 64 байта, чтобы не делить одну кэш-линию.
+     */
+    private static final int PADDING = 16;
+
+    private final WarehouseProduct product;
+    private final int stripes;
+    private final AtomicIntegerArray cells;
+    private final ReentrantLock collectLock = new ReentrantLock();
+
+    StripedStock(WarehouseProduct product, int available, int stripes) {
+        this.product = product;
+        this.stripes = Math.max(1, stripes);
+        this.cells = new AtomicIntegerArray(this.stripes * PADDING);
+        for (int i = 0; i < this.stripes; i++) {
+            cells.set(i * PADDING, available / this.stripes + (i < available % this.stripes ? 1 : 0));
+        }
+    }
+
+    WarehouseProduct product() {
+        return product;
+    }
+
+    /**
+     * Сумма ячеек. Без блокировки, поэтому при параллельных списаниях значение приблизительное.
+     */
+    int available() {
+        int total = 0;
+        for (int i = 0; i < stripes; i++) {
+            total += cells.get(i * PADDING);
+        }
+        return total;
+    }
+
+    boolean tryAcquire(int quantity) {
+        int home = home();
+        for (int i = 0; i < stripes; i++) {
+            if (tryTake(((home + i) % stripes) * PADDING, quantity)) {
+                return true;
+            }
+        }
+        return acquireAcrossStripes(quantity);
+    }
+
+    void release(int quantity) {
+        cells.getAndAdd(home() * PADDING, quantity);
+    }
+
+    private boolean tryTake(int index, int quantity) {
+        int current;
+        do {
+            current = cells.get(index);
+            if (current < quantity) {
+                return false;
+            }
+        } while (!cells.compareAndSet(index, current, current - quantity));
+        return true;
+    }
+
+    private boolean acquireAcrossStripes(int quantity) {
+        collectLock.lock();
+        try {
+            int collected = 0;
+            for (int i = 0; i < stripes && collected < quantity; i++) {
+                collected += cells.getAndSet(i * PADDING, 0);
+            }
+            if (collected >= quantity) {
+                release(collected - quantity);
+                return true;
+            }
+            release(collected);
+            return false;
+        } finally {
+            collectLock.unlock();
+        }
+    }
+
+    private int home() {
+        return (int) (Thread.currentThread().threadId() % stripes);
+    }
+}
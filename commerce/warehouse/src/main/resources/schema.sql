@@ -7,7 +7,7 @@ CREATE TABLE IF NOT EXISTS bookings
     fragile BOOLEAN NOT NULL
     );
 
-CREATE UNIQUE INDEX bookings_shopping_cart_id_index
+CREATE UNIQUE INDEX IF NOT EXISTS bookings_shopping_cart_id_index
     ON bookings (shopping_cart_id);
 
 CREATE TABLE IF NOT EXISTS warehouse_products
@@ -29,4 +29,44 @@ CREATE TABLE IF NOT EXISTS booking_products
     PRIMARY KEY (booking_id, product_id),
     FOREIGN KEY (booking_id) REFERENCES bookings (booking_id) ON DELETE CASCADE,
     FOREIGN KEY (product_id) REFERENCES warehouse_products (product_id) ON DELETE CASCADE
-    );
\ No newline at end of file
+    );
+
+CREATE TABLE IF NOT EXISTS stock_journal
+(
+    booking_id UUID PRIMARY KEY,
+    created_at TIMESTAMP NOT NULL DEFAULT now()
+    );
+
+CREATE TABLE IF NOT EXISTS booking_holds
+(
+    shopping_cart_id UUID PRIMARY KEY,
+    expires_at TIMESTAMP NOT NULL
+    );
+
+CREATE INDEX IF NOT EXISTS booking_holds_expires_at_idx ON booking_holds (expires_at);
+
+ALTER TABLE booking_holds ADD COLUMN IF NOT EXISTS order_id UUID;
+
+CREATE INDEX IF NOT EXISTS booking_holds_order_id_idx ON booking_holds (order_id) WHERE order_id IS NOT NULL;
+
+CREATE TABLE IF NOT EXISTS outbox_events (
+    event_id UUID PRIMARY KEY,
+    aggregate_id UUID NOT NULL,
+    event_type VARCHAR(50) NOT NULL,
+    payload TEXT NOT NULL,
+    created_at TIMESTAMP WITH TIME ZONE NOT NULL,
+    published_at TIMESTAMP WITH TIME ZONE,
+    claimed_until TIMESTAMP WITH TIME ZONE
+);
+
+CREATE INDEX IF NOT EXISTS outbox_events_unpublished_idx ON outbox_events (created_at) WHERE published_at IS NULL;
+
+CREATE INDEX IF NOT EXISTS outbox_events_aggregate_unpublished_idx
+    ON outbox_events (aggregate_id, created_at, event_id) WHERE published_at IS NULL;
+
+CREATE TABLE IF NOT EXISTS processed_events (
+    event_id UUID PRIMARY KEY,
+    processed_at TIMESTAMP WITH TIME ZONE NOT NULL
+);
+
+CREATE INDEX IF NOT EXISTS processed_events_processed_idx ON processed_events (processed_at);
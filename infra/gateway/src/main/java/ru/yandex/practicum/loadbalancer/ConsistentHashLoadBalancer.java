@@ -0,0 +1,133 @@
+package ru.yandex.practicum.loadbalancer;
+
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.cloud.client.ServiceInstance;
+import org.springframework.cloud.client.loadbalancer.DefaultResponse;
+import org.springframework.cloud.client.loadbalancer.EmptyResponse;
+import org.springframework.cloud.client.loadbalancer.Request;
+import org.springframework.cloud.client.loadbalancer.RequestDataContext;
+import org.springframework.cloud.client.loadbalancer.Response;
+import org.springframework.cloud.loadbalancer.core.NoopServiceInstanceListSupplier;
+import org.springframework.cloud.loadbalancer.core.ReactorServiceInstanceLoadBalancer;
+import org.springframework.cloud.loadbalancer.core.ServiceInstanceListSupplier;
+import org.springframework.web.util.UriComponentsBuilder;
+import org.springframework.web.util.UriUtils;
+import reactor.core.publisher.Mono;
+
+import java.net.URI;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Выбирает экземпляр по консистентному хэшу параметра запроса, чтобы все запросы одного ключа попадали
+ * на один экземпляр. Каждый экземпляр занимает на кольце несколько виртуальных узлов, поэтому при смене
+ * состава переезжает только доля ключей ушедшего или пришедшего экземпляра. Запросы без ключа
+ * распределяются по кругу.
+ */
+public class ConsistentHashLoadBalancer implements ReactorServiceInstanceLoadBalancer {
+    private final ObjectProvider<ServiceInstanceListSupplier> suppliers;
+    private final String hashParameter;
+    private final int virtualNodes;
+    private final AtomicInteger position = new AtomicInteger();
+    private volatile Ring ring = new Ring(List.of(), new TreeMap<>());
+
+    public ConsistentHashLoadBalancer(ObjectProvider<ServiceInstanceListSupplier> suppliers,
+                                      String hashParameter,
+                                      int virtualNodes) {
+        this.suppliers = suppliers;
+        this.hashParameter = hashParameter;
+        this.virtualNodes = virtualNodes;
+    }
+
+    @Override
+    @SuppressWarnings("rawtypes")
+    public Mono<Response<ServiceInstance>> choose(Request request) {
+        ServiceInstanceListSupplier supplier = suppliers.getIfAvailable(NoopServiceInstanceListSupplier::new);
+        return supplier.get(request)
+                .next()
+                .map(instances -> select(instances, key(request)));
+    }
+
+    private Response<ServiceInstance> select(List<ServiceInstance> instances, String key) {
+        if (instances.isEmpty()) {
+            return new EmptyResponse();
+        }
+        if (key == null) {
+            int next = Math.floorMod(position.getAndIncrement(), instances.size());
+            return new DefaultResponse(instances.get(next));
+        }
+
+        TreeMap<Long, ServiceInstance> nodes = ring(instances).nodes();
+        Map.Entry<Long, ServiceInstance> owner = nodes.ceilingEntry(hash(key));
+        return new DefaultResponse(owner != null ? owner.getValue() : nodes.firstEntry().getValue());
+    }
+
+    /**
+     * Кольцо перестраивается только при смене состава экземпляров.
+     */
+    private Ring ring(List<ServiceInstance> instances) {
+        List<String> members = instances.stream()
+                .map(ConsistentHashLoadBalancer::nodeId)
+                .sorted(Comparator.naturalOrder())
+                .toList();
+        Ring current = ring;
+        if (current.members().equals(members)) {
+            return current;
+        }
+
+        TreeMap<Long, ServiceInstance> nodes = new TreeMap<>();
+        for (ServiceInstance instance : instances) {
+            String nodeId = nodeId(instance);
+            for (int i = 0; i < virtualNodes; i++) {
+                nodes.put(hash(nodeId + "#" + i), instance);
+            }
+        }
+        Ring rebuilt = new Ring(members, nodes);
+        ring = rebuilt;
+        return rebuilt;
+    }
+
+    private String key(Request<?> request) {
+        if (!(request.getContext() instanceof RequestDataContext context) || context.getClientRequest() == null) {
+            return null;
+        }
+        URI url = context.getClientRequest().getUrl();
+        String value = UriComponentsBuilder.fromUri(url).build().getQueryParams().getFirst(hashParameter);
+        if (value == null || value.isEmpty()) {
+            return null;
+        }
+        return UriUtils.decode(value, StandardCharsets.UTF_8);
+    }
+
+    private static String nodeId(ServiceInstance instance) {
+        return instance.getInstanceId() != null
+                ? instance.getInstanceId()
+                : instance.getHost() + ":" + instance.getPort();
+    }
+
+    private static long hash(String value) {
+        byte[] digest = md5().digest(value.getBytes(StandardCharsets.UTF_8));
+        long hash = 0;
+        for (int i = 0; i < Long.BYTES; i++) {
+            hash = (hash << 8) | (digest[i] & 0xFF);
+        }
+        return hash;
+    }
+
+    private static MessageDigest md5() {
+        try {
+            return MessageDigest.getInstance("MD5");
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    private record Ring(List<String> members, TreeMap<Long, ServiceInstance> nodes) {
+    }
+}
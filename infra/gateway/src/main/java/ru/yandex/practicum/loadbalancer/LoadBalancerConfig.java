@@ -0,0 +1,13 @@
+package ru.yandex.practicum.loadbalancer;
+
+import org.springframework.cloud.loadbalancer.annotation.LoadBalancerClient;
+import org.springframework.context.annotation.Configuration;
+
+/**
+ * shopping-cart кэширует активную корзину у экземпляра-владельца, поэтому запросы пользователя
+ * направляются на один экземпляр по username.
+ */
+@Configuration
+@LoadBalancerClient(name = "shopping-cart", configuration = UsernameAffinityConfig.class)
+public class LoadBalancerConfig {
+}
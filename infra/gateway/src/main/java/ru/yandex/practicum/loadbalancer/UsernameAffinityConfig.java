@@ -0,0 +1,27 @@
+package ru.yandex.practicum.loadbalancer;
+
+import org.springframework.cloud.client.ServiceInstance;
+import org.springframework.cloud.loadbalancer.core.ReactorLoadBalancer;
+import org.springframework.cloud.loadbalancer.core.ServiceInstanceListSupplier;
+import org.springframework.cloud.loadbalancer.support.LoadBalancerClientFactory;
+import org.springframework.context.annotation.Bean;
+import org.springframework.core.env.Environment;
+
+/**
+ * Конфигурация дочернего контекста балансировщика для сервисов, держащих состояние пользователя в памяти.
+ * Намеренно без @Configuration: иначе компонентное сканирование применило бы её ко всем клиентам.
+ */
+public class UsernameAffinityConfig {
+    private static final String HASH_PARAMETER = "username";
+    private static final int VIRTUAL_NODES = 160;
+
+    @Bean
+    public ReactorLoadBalancer<ServiceInstance> consistentHashLoadBalancer(Environment environment,
+                                                                           LoadBalancerClientFactory factory) {
+        String serviceId = environment.getProperty(LoadBalancerClientFactory.PROPERTY_NAME);
+        return new ConsistentHashLoadBalancer(
+                factory.getLazyProvider(serviceId, ServiceInstanceListSupplier.class),
+                HASH_PARAMETER,
+                VIRTUAL_NODES);
+    }
+}
@@ -1,73 +1,113 @@
 package ru.yandex.practicum;
 
-import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.apache.kafka.clients.consumer.ConsumerRecord;
 import org.apache.kafka.clients.consumer.ConsumerRecords;
 import org.apache.kafka.clients.consumer.KafkaConsumer;
+import org.apache.kafka.clients.consumer.OffsetAndMetadata;
 import org.apache.kafka.clients.producer.KafkaProducer;
 import org.apache.kafka.clients.producer.ProducerRecord;
+import org.apache.kafka.common.TopicPartition;
+import org.apache.kafka.common.errors.WakeupException;
+import org.apache.kafka.common.header.Header;
 import org.springframework.stereotype.Component;
+import ru.yandex.practicum.kafka.HubEventSubscription;
 import ru.yandex.practicum.kafka.configuration.KafkaConfig;
+import ru.yandex.practicum.logging.SampledEventLog;
+import ru.yandex.practicum.logging.SampledEventLogs;
 import ru.yandex.practicum.kafka.telemetry.event.SensorEventAvro;
-import ru.yandex.practicum.kafka.telemetry.event.SensorStateAvro;
 import ru.yandex.practicum.kafka.telemetry.event.SensorsSnapshotAvro;
+import ru.yandex.practicum.snapshot.CompactSnapshotStore;
+import ru.yandex.practicum.snapshot.HubSnapshot;
 
+import java.nio.charset.StandardCharsets;
 import java.time.Duration;
-import java.time.Instant;
 import java.util.*;
 
 @Slf4j
 @Component
-@RequiredArgsConstructor
 public class AggregationStarter {
+    /**
+     * Время приёма события коллектором (epoch millis строкой), переносится из событий в снапшоты.
+     */
+    static final String INGEST_TIMESTAMP_HEADER = "ingest-timestamp";
+    private static final Duration SHUTDOWN_TIMEOUT = Duration.ofSeconds(10);
+
     private final KafkaProducer<String, SensorsSnapshotAvro> producer;
     private final KafkaConsumer<String, SensorEventAvro> consumer;
-    private final Map<String, SensorsSnapshotAvro> snapshots = new HashMap<>();
+    private final CompactSnapshotStore snapshotStore;
+    private final HubEventSubscription hubEvents;
+    private final AggregatorMetrics metrics;
     private final EnumMap<KafkaConfig.TopicType, String> topics;
+    private final SampledEventLog snapshotLog;
+    /**
+     * Смещение, следующее за последним прочитанным показанием, по партициям.
+     */
+    private final Map<TopicPartition, Long> consumed = new HashMap<>();
+    private final Map<TopicPartition, Long> committed = new HashMap<>();
+
+    public AggregationStarter(KafkaProducer<String, SensorsSnapshotAvro> producer,
+                              KafkaConsumer<String, SensorEventAvro> consumer,
+                              CompactSnapshotStore snapshotStore,
+                              HubEventSubscription hubEvents,
+                              AggregatorMetrics metrics,
+                              EnumMap<KafkaConfig.TopicType, String> topics,
+                              SampledEventLogs sampledEventLogs) {
+        this.producer = producer;
+        this.consumer = consumer;
+        this.snapshotStore = snapshotStore;
+        this.hubEvents = hubEvents;
+        this.metrics = metrics;
+        this.topics = topics;
+        this.snapshotLog = sampledEventLogs.create(log, "snapshots");
+    }
 
     public void start() {
         final String telemetrySensors = topics.get(KafkaConfig.TopicType.TELEMETRY_SENSORS);
         final String telemetrySnapshots = topics.get(KafkaConfig.TopicType.TELEMETRY_SNAPSHOTS);
 
         try {
+            Thread loop = Thread.currentThread();
+            Runtime.getRuntime().addShutdownHook(new Thread(() -> {
+                consumer.wakeup();
+                try {
+                    loop.join(SHUTDOWN_TIMEOUT.toMillis());
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+            }));
             consumer.subscribe(Collections.singletonList(telemetrySensors));
             log.info("subscribe -> topic: {}", telemetrySensors);
 
             while (true) {
                 ConsumerRecords<String, SensorEventAvro> records = consumer.poll(Duration.ofMillis(100));
 
-                if (records.isEmpty()) {
-                    continue;
-                }
+                hubEvents.poll((hubId, sensorId) -> snapshotStore.removeSensor(hubId, sensorId)
+                        .ifPresent(snapshot -> sendSnapshot(telemetrySnapshots, snapshot, 0L)));
+                snapshotStore.flushPending(snapshot -> sendSnapshot(telemetrySnapshots, snapshot));
+                snapshotStore.expire();
 
                 for (ConsumerRecord<String, SensorEventAvro> record : records) {
                     SensorEventAvro event = record.value();
+                    consumed.put(new TopicPartition(record.topic(), record.partition()), record.offset() + 1);
 
-                    updateState(event).ifPresent(snapshot -> {
-                        try {
-                            producer.send(new ProducerRecord<>(telemetrySnapshots, snapshot.getHubId(), snapshot), (metadata, exception) -> {
-                            });
-                            log.info("Snapshot hubId {} -> topic {}", snapshot.getHubId(), telemetrySnapshots);
-                        } catch (Exception e) {
-                            log.error("Ошибка при отправке снапшота в топик", e);
-                        }
-                    });
+                    snapshotStore.update(event, ingestTimestamp(record), record.partition(), record.offset())
+                            .ifPresent(snapshot -> sendSnapshot(telemetrySnapshots, snapshot));
                 }
 
-                try {
-                    consumer.commitAsync();
-                } catch (Exception e) {
-                    log.error("commitAsync error ", e);
-                }
+                commitApplied();
             }
+        } catch (WakeupException e) {
+            log.info("aggregator stopping");
         } catch (Exception e) {
             log.error("sensor event error ", e);
         } finally {
             try {
+                snapshotStore.flushAll(snapshot -> sendSnapshot(telemetrySnapshots, snapshot));
                 if (producer != null) {
                     producer.flush();
                 }
+                commitConsumed();
             } catch (Exception e) {
                 log.error("producer flush error ", e);
             } finally {
@@ -86,36 +126,107 @@ public class AggregationStarter {
                         log.error("consumer close error", e);
                     }
                 }
+
+                try {
+                    hubEvents.close();
+                } catch (Exception e) {
+                    log.error("hub events consumer close error", e);
+                }
             }
         }
     }
 
-    public Optional<SensorsSnapshotAvro> updateState(SensorEventAvro event) {
-        SensorsSnapshotAvro snapshot = snapshots.getOrDefault(event.getHubId(),
-                SensorsSnapshotAvro.newBuilder()
-                        .setHubId(event.getHubId())
-                        .setTimestamp(Instant.ofEpochSecond(System.currentTimeMillis()))
-                        .setSensorsState(new HashMap<>())
-                        .build());
-
-        SensorStateAvro oldState = snapshot.getSensorsState().get(event.getId());
-        if (oldState != null
-                && !oldState.getTimestamp().isBefore(Instant.ofEpochSecond(event.getTimestamp()))
-                && oldState.getData().equals(event.getPayload())) {
-            return Optional.empty();
+    /**
+     * Коммитит смещения прочитанных показаний, но не дальше самого раннего показания, которое ещё лежит
+     * в буфере переупорядочивания: иначе после перезапуска оно будет потеряно.
+     */
+    private void commitApplied() {
+        Map<TopicPartition, OffsetAndMetadata> offsets = new HashMap<>();
+        Set<TopicPartition> assignment = consumer.assignment();
+        consumed.forEach((partition, next) -> {
+            long offset = snapshotStore.committableOffset(partition.partition(), next);
+            if (assignment.contains(partition) && !Objects.equals(committed.get(partition), offset)) {
+                offsets.put(partition, new OffsetAndMetadata(offset));
+            }
+        });
+        if (offsets.isEmpty()) {
+            return;
         }
 
-        SensorStateAvro newState = SensorStateAvro.newBuilder()
-                .setTimestamp(Instant.ofEpochSecond(event.getTimestamp()))
-                .setData(event.getPayload())
-                .build();
+        try {
+            consumer.commitAsync(offsets, (result, exception) -> {
+                if (exception != null) {
+                    log.error("commitAsync error ", exception);
+                    return;
+                }
+                result.forEach((partition, offset) -> committed.put(partition, offset.offset()));
+            });
+        } catch (Exception e) {
+            log.error("commitAsync error ", e);
+        }
+    }
 
-        snapshot.getSensorsState().put(event.getId(), newState);
+    /**
+     * Синхронный коммит при остановке; буферы к этому моменту уже отданы через {@link CompactSnapshotStore#flushAll}.
+     */
+    private void commitConsumed() {
+        Map<TopicPartition, OffsetAndMetadata> offsets = new HashMap<>();
+        Set<TopicPartition> assignment = consumer.assignment();
+        consumed.forEach((partition, next) -> {
+            if (assignment.contains(partition)) {
+                offsets.put(partition, new OffsetAndMetadata(snapshotStore.committableOffset(partition.partition(), next)));
+            }
+        });
+        if (!offsets.isEmpty()) {
+            consumer.commitSync(offsets);
+        }
+    }
+
+    private void sendSnapshot(String topic, SensorsSnapshotAvro snapshot) {
+        long ingestMs = snapshotStore.get(snapshot.getHubId()).map(HubSnapshot::getIngestMs).orElse(0L);
+        sendSnapshot(topic, snapshot, ingestMs);
+    }
+
+    private void sendSnapshot(String topic, SensorsSnapshotAvro snapshot, long ingestMs) {
+        try {
+            ProducerRecord<String, SensorsSnapshotAvro> record = new ProducerRecord<>(topic, snapshot.getHubId(), snapshot);
+            if (ingestMs > 0) {
+                record.headers().add(INGEST_TIMESTAMP_HEADER, Long.toString(ingestMs).getBytes(StandardCharsets.UTF_8));
+            }
+            int sensors = snapshot.getSensorsState().size();
+            producer.send(record, (metadata, exception) -> {
+                if (exception != null) {
+                    metrics.snapshotSendError();
+                    log.error("Ошибка при отправке снапшота hubId {}", snapshot.getHubId(), exception);
+                } else {
+                    metrics.snapshotSent(sensors, metadata.serializedValueSize());
+                }
+            });
+            metrics.ingestToSnapshot(ingestMs);
+            snapshotLog.log("Snapshot hubId {} -> topic {}", snapshot::getHubId, () -> topic);
+        } catch (Exception e) {
+            metrics.snapshotSendError();
+            log.error("Ошибка при отправке снапшота в топик", e);
+        }
+    }
 
-        snapshot.setTimestamp(Instant.ofEpochSecond(event.getTimestamp()));
+    private static long ingestTimestamp(ConsumerRecord<String, SensorEventAvro> record) {
+        Header header = record.headers().lastHeader(INGEST_TIMESTAMP_HEADER);
+        if (header == null) {
+            return record.timestamp();
+        }
+        try {
+            return Long.parseLong(new String(header.value(), StandardCharsets.UTF_8));
+        } catch (NumberFormatException e) {
+            return record.timestamp();
+        }
+    }
 
-        snapshots.put(event.getHubId(), snapshot);
+    public Optional<SensorsSnapshotAvro> updateState(SensorEventAvro event) {
+        return snapshotStore.update(event);
+    }
 
-        return Optional.of(snapshot);
+    public Optional<SensorsSnapshotAvro> updateState(SensorEventAvro event, long ingestMs) {
+        return snapshotStore.update(event, ingestMs);
     }
 }
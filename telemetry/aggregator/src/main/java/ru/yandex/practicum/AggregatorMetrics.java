@@ -0,0 +1,49 @@
+package ru.yandex.practicum;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.springframework.stereotype.Component;
+
+import java.util.concurrent.TimeUnit;
+
+@Component
+public class AggregatorMetrics {
+    private final Counter snapshotsSent;
+    private final Counter snapshotSendErrors;
+    private final DistributionSummary snapshotSensors;
+    private final DistributionSummary snapshotBytes;
+    private final Timer ingestToSnapshot;
+
+    public AggregatorMetrics(MeterRegistry meterRegistry) {
+        this.snapshotsSent = meterRegistry.counter("aggregator.snapshots.sent");
+        this.snapshotSendErrors = meterRegistry.counter("aggregator.snapshots.send.errors");
+        this.snapshotSensors = DistributionSummary.builder("aggregator.snapshot.sensors")
+                .register(meterRegistry);
+        this.snapshotBytes = DistributionSummary.builder("aggregator.snapshot.size")
+                .baseUnit("bytes")
+                .register(meterRegistry);
+        this.ingestToSnapshot = Timer.builder("aggregator.ingest.to.snapshot")
+                .publishPercentiles(0.5, 0.99)
+                .register(meterRegistry);
+    }
+
+    public void snapshotSent(int sensors, int serializedBytes) {
+        snapshotsSent.increment();
+        snapshotSensors.record(sensors);
+        if (serializedBytes >= 0) {
+            snapshotBytes.record(serializedBytes);
+        }
+    }
+
+    public void snapshotSendError() {
+        snapshotSendErrors.increment();
+    }
+
+    public void ingestToSnapshot(long ingestMs) {
+        if (ingestMs > 0) {
+            ingestToSnapshot.record(Math.max(0, System.currentTimeMillis() - ingestMs), TimeUnit.MILLISECONDS);
+        }
+    }
+}
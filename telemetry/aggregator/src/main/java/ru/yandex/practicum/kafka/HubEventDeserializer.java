@@ -0,0 +1,9 @@
+package ru.yandex.practicum.kafka;
+
+import ru.yandex.practicum.kafka.telemetry.event.HubEventAvro;
+
+public class HubEventDeserializer extends BaseAvroDeserializer<HubEventAvro> {
+    public HubEventDeserializer() {
+        super(HubEventAvro.getClassSchema());
+    }
+}
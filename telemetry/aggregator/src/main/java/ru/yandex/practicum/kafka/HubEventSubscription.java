@@ -0,0 +1,68 @@
+package ru.yandex.practicum.kafka;
+
+import lombok.extern.slf4j.Slf4j;
+import org.apache.kafka.clients.consumer.ConsumerRecord;
+import org.apache.kafka.clients.consumer.ConsumerRecords;
+import org.apache.kafka.clients.consumer.KafkaConsumer;
+import org.springframework.stereotype.Component;
+import ru.yandex.practicum.kafka.configuration.KafkaConfig;
+import ru.yandex.practicum.kafka.telemetry.event.DeviceRemovedEventAvro;
+import ru.yandex.practicum.kafka.telemetry.event.HubEventAvro;
+import ru.yandex.practicum.snapshot.SnapshotStateConfig;
+
+import java.time.Duration;
+import java.util.Collections;
+import java.util.EnumMap;
+import java.util.function.BiConsumer;
+
+/**
+ * Необязательная подписка агрегатора на события хабов: нужна только для того,
+ * чтобы убирать из снапшотов удалённые устройства. Опрашивается из основного цикла агрегатора.
+ */
+@Slf4j
+@Component
+public class HubEventSubscription implements AutoCloseable {
+    private final KafkaConsumer<String, HubEventAvro> consumer;
+
+    public HubEventSubscription(KafkaConfig kafkaConfig,
+                                EnumMap<KafkaConfig.TopicType, String> topics,
+                                SnapshotStateConfig stateConfig) {
+        if (!stateConfig.isHubEventsEnabled() || kafkaConfig.getHubConsumer() == null) {
+            this.consumer = null;
+            return;
+        }
+
+        String telemetryHubs = topics.getOrDefault(KafkaConfig.TopicType.TELEMETRY_HUBS, "telemetry.hubs.v1");
+        this.consumer = new KafkaConsumer<>(kafkaConfig.getHubConsumer().properties());
+        consumer.subscribe(Collections.singletonList(telemetryHubs));
+        log.info("subscribe -> topic: {}", telemetryHubs);
+    }
+
+    /**
+     * @param onDeviceRemoved получает hubId и id удалённого устройства
+     */
+    public void poll(BiConsumer<String, String> onDeviceRemoved) {
+        if (consumer == null) {
+            return;
+        }
+
+        ConsumerRecords<String, HubEventAvro> records = consumer.poll(Duration.ZERO);
+        for (ConsumerRecord<String, HubEventAvro> record : records) {
+            HubEventAvro event = record.value();
+            if (event != null && event.getPayload() instanceof DeviceRemovedEventAvro removed) {
+                onDeviceRemoved.accept(event.getHubId(), removed.getId());
+            }
+        }
+
+        if (!records.isEmpty()) {
+            consumer.commitAsync();
+        }
+    }
+
+    @Override
+    public void close() {
+        if (consumer != null) {
+            consumer.close();
+        }
+    }
+}
@@ -1,5 +1,6 @@
 package ru.yandex.practicum.kafka.configuration;
 
+import io.micrometer.core.instrument.binder.kafka.KafkaClientMetrics;
 import lombok.*;
 import org.apache.avro.specific.SpecificRecordBase;
 import org.apache.kafka.clients.consumer.KafkaConsumer;
@@ -16,10 +17,11 @@ import java.util.*;
 public class KafkaConfig {
     public ProducerConfig producer;
     public ConsumerConfig consumer;
+    public ConsumerConfig hubConsumer;
     private Map<String, String> topics;
 
     public enum TopicType {
-        TELEMETRY_SENSORS, TELEMETRY_SNAPSHOTS;
+        TELEMETRY_SENSORS, TELEMETRY_SNAPSHOTS, TELEMETRY_HUBS;
 
         public static TopicType from(String type) {
             switch (type) {
@@ -29,6 +31,9 @@ public class KafkaConfig {
                 case "telemetry-snapshots" -> {
                     return TopicType.TELEMETRY_SNAPSHOTS;
                 }
+                case "telemetry-hubs" -> {
+                    return TopicType.TELEMETRY_HUBS;
+                }
                 default -> throw new RuntimeException("Topic type not found");
 
             }
@@ -62,6 +67,19 @@ public class KafkaConfig {
         return new KafkaConsumer<>(consumer.properties);
     }
 
+    /**
+     * Метрики клиента Kafka, в том числе records-lag по каждой партиции входного топика.
+     */
+    @Bean
+    public KafkaClientMetrics kafkaConsumerMetrics(KafkaConsumer<String, SpecificRecordBase> kafkaConsumer) {
+        return new KafkaClientMetrics(kafkaConsumer);
+    }
+
+    @Bean
+    public KafkaClientMetrics kafkaProducerMetrics(KafkaProducer<String, SpecificRecordBase> kafkaProducer) {
+        return new KafkaClientMetrics(kafkaProducer);
+    }
+
     @Bean
     public EnumMap<TopicType, String> topics() {
         return new Topics(topics).getTopics();
@@ -0,0 +1,40 @@
+package ru.yandex.practicum.snapshot;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.TreeMap;
+
+/**
+ * Смещения показаний, которые ещё лежат в буферах переупорядочивания, по партициям входного топика.
+ * Коммитить смещение дальше самого раннего из них нельзя: после перезапуска показание не будет прочитано снова.
+ */
+public class BufferedOffsets {
+    private final Map<Integer, TreeMap<Long, Integer>> partitions = new HashMap<>();
+
+    void add(int partition, long offset) {
+        if (partition < 0) {
+            return;
+        }
+        partitions.computeIfAbsent(partition, p -> new TreeMap<>()).merge(offset, 1, Integer::sum);
+    }
+
+    void remove(int partition, long offset) {
+        TreeMap<Long, Integer> offsets = partitions.get(partition);
+        if (offsets == null) {
+            return;
+        }
+        offsets.computeIfPresent(offset, (o, count) -> count > 1 ? count - 1 : null);
+        if (offsets.isEmpty()) {
+            partitions.remove(partition);
+        }
+    }
+
+    /**
+     * @param consumed смещение, следующее за последним прочитанным показанием партиции
+     * @return смещение, которое можно закоммитить: не дальше самого раннего показания в буферах
+     */
+    public long committable(int partition, long consumed) {
+        TreeMap<Long, Integer> offsets = partitions.get(partition);
+        return offsets == null ? consumed : Math.min(consumed, offsets.firstKey());
+    }
+}
@@ -0,0 +1,263 @@
+package ru.yandex.practicum.snapshot;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Component;
+import ru.yandex.practicum.kafka.telemetry.event.SensorEventAvro;
+import ru.yandex.practicum.kafka.telemetry.event.SensorsSnapshotAvro;
+
+import java.time.Instant;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Consumer;
+
+/**
+ * Хранилище снапшотов агрегатора. Не потокобезопасно: используется только из цикла опроса Kafka,
+ * там же продвигается колесо таймеров, вытесняющее простаивающие хабы и устаревшие показания.
+ * <p>
+ * Показания применяются в порядке event time: каждое проходит через {@link EventTimeBuffer} хаба,
+ * а всё, что отстаёт от водяного знака больше чем на allowed lateness, отбрасывается.
+ */
+@Slf4j
+@Component
+public class CompactSnapshotStore {
+    private final SensorIdInterner interner = new SensorIdInterner();
+    private final Map<String, HubSnapshot> hubs = new HashMap<>();
+    private final Set<HubSnapshot> pendingHubs = new LinkedHashSet<>();
+    private final BufferedOffsets bufferedOffsets = new BufferedOffsets();
+    private final AtomicInteger buffered = new AtomicInteger();
+    private final TimingWheel<HubSnapshot> expiryWheel;
+    private final long hubTtlMs;
+    private final long sensorTtlMs;
+    private final long allowedLatenessMs;
+    private final long reorderWindowMs;
+    private final int reorderBufferSize;
+
+    private final Counter evictedHubs;
+    private final Counter prunedSensors;
+    private final Counter removedSensors;
+    private final Counter lateEvents;
+    private final Counter updatesEmitted;
+    private final Counter updatesUnchanged;
+
+    public CompactSnapshotStore(SnapshotStateConfig config, MeterRegistry meterRegistry) {
+        this.hubTtlMs = config.getHubTtl().toMillis();
+        this.sensorTtlMs = config.getSensorTtl().toMillis();
+        this.allowedLatenessMs = config.getAllowedLateness().toMillis();
+        this.reorderWindowMs = config.getReorderWindow().toMillis();
+        this.reorderBufferSize = config.getReorderBufferSize();
+        this.expiryWheel = new TimingWheel<>(config.getSweepTick().toMillis(), config.getWheelSize(),
+                System.currentTimeMillis());
+
+        Gauge.builder("aggregator.hubs.live", hubs, Map::size).register(meterRegistry);
+        Gauge.builder("aggregator.sensors.interned", interner, SensorIdInterner::size).register(meterRegistry);
+        this.evictedHubs = meterRegistry.counter("aggregator.hubs.evicted");
+        this.prunedSensors = meterRegistry.counter("aggregator.sensors.pruned");
+        this.removedSensors = meterRegistry.counter("aggregator.sensors.removed");
+        this.lateEvents = meterRegistry.counter("aggregator.events.late");
+        this.updatesEmitted = Counter.builder("aggregator.updates")
+                .tag("result", "emitted")
+                .register(meterRegistry);
+        this.updatesUnchanged = Counter.builder("aggregator.updates")
+                .tag("result", "unchanged")
+                .register(meterRegistry);
+        Gauge.builder("aggregator.reorder.buffered", buffered, AtomicInteger::get).register(meterRegistry);
+    }
+
+    public Optional<SensorsSnapshotAvro> update(SensorEventAvro event) {
+        return update(event, System.currentTimeMillis());
+    }
+
+    /**
+     * @param ingestMs время приёма показания коллектором, переносится в снапшот для замера задержки
+     */
+    public Optional<SensorsSnapshotAvro> update(SensorEventAvro event, long ingestMs) {
+        return update(event, ingestMs, -1, -1L);
+    }
+
+    /**
+     * @param partition партиция входного топика, из которой прочитано показание
+     * @param offset    смещение показания; пока оно в буфере, {@link #committableOffset} не пропустит его
+     */
+    public Optional<SensorsSnapshotAvro> update(SensorEventAvro event, long ingestMs, int partition, long offset) {
+        long now = System.currentTimeMillis();
+        HubSnapshot hub = hubs.computeIfAbsent(event.getHubId(), HubSnapshot::new);
+        hub.setLastSeenMs(now);
+
+        long timestampMs = Instant.ofEpochSecond(event.getTimestamp()).toEpochMilli();
+        EventTimeBuffer eventTime = hub.getEventTime();
+        if (eventTime.isLate(timestampMs, allowedLatenessMs)) {
+            lateEvents.increment();
+            log.atDebug().setMessage("Late event from sensor {} of hub {}: {} behind watermark {}")
+                    .addArgument(event::getId)
+                    .addArgument(hub::getHubId)
+                    .addArgument(() -> Instant.ofEpochMilli(timestampMs))
+                    .addArgument(() -> Instant.ofEpochMilli(eventTime.getWatermarkMs()))
+                    .log();
+            return Optional.empty();
+        }
+
+        eventTime.offer(event.getId(), timestampMs, event.getPayload(), ingestMs, partition, offset, now);
+        bufferedOffsets.add(partition, offset);
+        buffered.incrementAndGet();
+        pendingHubs.add(hub);
+
+        return drain(hub, now, reorderBufferSize);
+    }
+
+    /**
+     * Отдаёт показания, пролежавшие в буферах переупорядочивания дольше окна, если новые события
+     * от хаба так и не пришли.
+     */
+    public void flushPending(Consumer<SensorsSnapshotAvro> onSnapshot) {
+        if (pendingHubs.isEmpty()) {
+            return;
+        }
+
+        long now = System.currentTimeMillis();
+        for (HubSnapshot hub : pendingHubs.toArray(HubSnapshot[]::new)) {
+            drain(hub, now, reorderBufferSize).ifPresent(onSnapshot);
+        }
+    }
+
+    /**
+     * Отдаёт все показания из буферов переупорядочивания, не дожидаясь водяного знака. Вызывается
+     * перед остановкой, чтобы закоммиченные смещения не опережали применённые показания.
+     */
+    public void flushAll(Consumer<SensorsSnapshotAvro> onSnapshot) {
+        long now = System.currentTimeMillis();
+        for (HubSnapshot hub : pendingHubs.toArray(HubSnapshot[]::new)) {
+            drain(hub, now, 0).ifPresent(onSnapshot);
+        }
+    }
+
+    /**
+     * @param consumed смещение, следующее за последним прочитанным из партиции показанием
+     * @return смещение партиции, которое можно закоммитить, не потеряв показания из буферов
+     */
+    public long committableOffset(int partition, long consumed) {
+        return bufferedOffsets.committable(partition, consumed);
+    }
+
+    /**
+     * Удаляет датчик, снятый с хаба через DeviceRemovedEventAvro.
+     *
+     * @return обновлённый снапшот, если датчик присутствовал в состоянии хаба
+     */
+    public Optional<SensorsSnapshotAvro> removeSensor(String hubId, String sensorId) {
+        HubSnapshot hub = hubs.get(hubId);
+        int id = interner.find(sensorId);
+        if (hub == null || id < 0 || !hub.remove(id)) {
+            return Optional.empty();
+        }
+
+        interner.release(id);
+        removedSensors.increment();
+        log.debug("Sensor {} removed from hub {} state", sensorId, hubId);
+
+        if (hub.size() == 0) {
+            evict(hub);
+            return Optional.empty();
+        }
+        return Optional.of(hub.toAvro(interner));
+    }
+
+    public void expire() {
+        long now = System.currentTimeMillis();
+        expiryWheel.advance(now, hub -> onExpiry(hub, now));
+    }
+
+    public Optional<HubSnapshot> get(String hubId) {
+        return Optional.ofNullable(hubs.get(hubId));
+    }
+
+    public int hubCount() {
+        return hubs.size();
+    }
+
+    private Optional<SensorsSnapshotAvro> drain(HubSnapshot hub, long now, int capacity) {
+        EventTimeBuffer eventTime = hub.getEventTime();
+        long[] changedIngestMs = {Long.MAX_VALUE};
+        int drained = eventTime.drain(now, reorderWindowMs, capacity, pending -> {
+            bufferedOffsets.remove(pending.partition(), pending.offset());
+            int sensorId = interner.intern(pending.sensorId());
+            boolean newSensor = hub.slotOf(sensorId) < 0;
+            if (hub.apply(sensorId, pending.timestampMs(), pending.payload())) {
+                changedIngestMs[0] = Math.min(changedIngestMs[0], pending.ingestMs());
+                updatesEmitted.increment();
+            } else {
+                updatesUnchanged.increment();
+            }
+            if (newSensor) {
+                interner.retain(sensorId);
+            }
+        });
+
+        if (drained == 0) {
+            return Optional.empty();
+        }
+        buffered.addAndGet(-drained);
+        if (eventTime.size() == 0) {
+            pendingHubs.remove(hub);
+        }
+        scheduleExpiry(hub, now);
+
+        if (changedIngestMs[0] == Long.MAX_VALUE) {
+            return Optional.empty();
+        }
+        hub.setIngestMs(changedIngestMs[0]);
+        return Optional.of(hub.toAvro(interner));
+    }
+
+    private void onExpiry(HubSnapshot hub, long now) {
+        hub.setScheduled(false);
+        if (hubs.get(hub.getHubId()) != hub) {
+            return;
+        }
+
+        if (now - hub.getLastSeenMs() >= hubTtlMs) {
+            log.debug("Hub {} idle since {}, evicting", hub.getHubId(), Instant.ofEpochMilli(hub.getLastSeenMs()));
+            evict(hub);
+            return;
+        }
+
+        if (sensorTtlMs > 0) {
+            int pruned = hub.pruneOlderThan(now - sensorTtlMs, interner::release);
+            prunedSensors.increment(pruned);
+            if (hub.size() == 0) {
+                evict(hub);
+                return;
+            }
+        }
+
+        scheduleExpiry(hub, now);
+    }
+
+    private void scheduleExpiry(HubSnapshot hub, long now) {
+        if (hub.isScheduled()) {
+            return;
+        }
+        long deadline = hub.getLastSeenMs() + hubTtlMs;
+        if (sensorTtlMs > 0 && hub.size() > 0) {
+            deadline = Math.min(deadline, hub.oldestSensorTimestamp() + sensorTtlMs);
+        }
+        expiryWheel.schedule(hub, Math.max(deadline, now));
+        hub.setScheduled(true);
+    }
+
+    private void evict(HubSnapshot hub) {
+        hubs.remove(hub.getHubId());
+        if (pendingHubs.remove(hub)) {
+            buffered.addAndGet(-hub.getEventTime().size());
+            hub.getEventTime().forEach(pending -> bufferedOffsets.remove(pending.partition(), pending.offset()));
+        }
+        hub.forEachSensorId(interner::release);
+        evictedHubs.increment();
+    }
+}
@@ -0,0 +1,95 @@
+package ru.yandex.practicum.snapshot;
+
+import java.util.Comparator;
+import java.util.PriorityQueue;
+import java.util.function.Consumer;
+
+/**
+ * Event-time состояние одного хаба: водяной знак и небольшой буфер переупорядочивания.
+ * Показание удерживается, пока водяной знак ({@code max(event time) - reorderWindow}) не догонит его время,
+ * после чего буфер отдаётся в порядке event time.
+ */
+public class EventTimeBuffer {
+    private static final Comparator<PendingEvent> ORDER = Comparator
+            .comparingLong(PendingEvent::timestampMs)
+            .thenComparingLong(PendingEvent::seq);
+
+    private PriorityQueue<PendingEvent> pending;
+    private long maxEventTimeMs = Long.MIN_VALUE;
+    private long watermarkMs = Long.MIN_VALUE;
+    private long pendingSinceMs;
+    private long seq;
+
+    /**
+     * @return {@code true}, если показание отстаёт от водяного знака больше чем на {@code allowedLatenessMs}
+     */
+    public boolean isLate(long timestampMs, long allowedLatenessMs) {
+        return watermarkMs != Long.MIN_VALUE && timestampMs < watermarkMs - allowedLatenessMs;
+    }
+
+    public void offer(String sensorId, long timestampMs, Object payload, long ingestMs,
+                      int partition, long offset, long nowMs) {
+        if (pending == null) {
+            pending = new PriorityQueue<>(ORDER);
+        }
+        if (pending.isEmpty()) {
+            pendingSinceMs = nowMs;
+        }
+        pending.add(new PendingEvent(sensorId, timestampMs, payload, ingestMs, partition, offset, seq++));
+        maxEventTimeMs = Math.max(maxEventTimeMs, timestampMs);
+    }
+
+    /**
+     * Отдаёт показания, которые догнал водяной знак. Если буфер переполнен или держит показания
+     * дольше {@code reorderWindowMs} по времени обработки, водяной знак подтягивается вперёд принудительно.
+     *
+     * @return число отданных показаний
+     */
+    public int drain(long nowMs, long reorderWindowMs, int capacity, Consumer<PendingEvent> sink) {
+        if (pending == null || pending.isEmpty()) {
+            return 0;
+        }
+
+        if (nowMs - pendingSinceMs >= reorderWindowMs) {
+            watermarkMs = Math.max(watermarkMs, maxEventTimeMs);
+        } else {
+            watermarkMs = Math.max(watermarkMs, maxEventTimeMs - reorderWindowMs);
+        }
+
+        int drained = 0;
+        while (!pending.isEmpty()
+                && (pending.size() > capacity || pending.peek().timestampMs() <= watermarkMs)) {
+            PendingEvent event = pending.poll();
+            watermarkMs = Math.max(watermarkMs, event.timestampMs());
+            sink.accept(event);
+            drained++;
+        }
+
+        if (drained > 0 && !pending.isEmpty()) {
+            pendingSinceMs = nowMs;
+        }
+        return drained;
+    }
+
+    public int size() {
+        return pending == null ? 0 : pending.size();
+    }
+
+    public void forEach(Consumer<PendingEvent> action) {
+        if (pending != null) {
+            pending.forEach(action);
+        }
+    }
+
+    public long getWatermarkMs() {
+        return watermarkMs;
+    }
+
+    /**
+     * @param partition партиция входного топика, из которой прочитано показание, или -1, если она неизвестна
+     * @param offset    смещение показания в партиции
+     */
+    public record PendingEvent(String sensorId, long timestampMs, Object payload, long ingestMs,
+                               int partition, long offset, long seq) {
+    }
+}
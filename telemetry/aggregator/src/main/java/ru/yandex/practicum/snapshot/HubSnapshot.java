@@ -0,0 +1,196 @@
+package ru.yandex.practicum.snapshot;
+
+import lombok.Getter;
+import lombok.Setter;
+import ru.yandex.practicum.kafka.telemetry.event.SensorStateAvro;
+import ru.yandex.practicum.kafka.telemetry.event.SensorsSnapshotAvro;
+
+import java.time.Instant;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.function.IntConsumer;
+
+/**
+ * Состояние одного хаба в колоночном виде: слот датчика хранит интернированный id,
+ * тип нагрузки, время последнего показания и {@link #FIELDS_PER_SLOT} int-значений.
+ */
+public class HubSnapshot {
+    static final int FIELDS_PER_SLOT = 3;
+    private static final int INITIAL_CAPACITY = 4;
+
+    @Getter
+    private final String hubId;
+    private int size;
+    private int[] sensorIds = new int[INITIAL_CAPACITY];
+    private byte[] kinds = new byte[INITIAL_CAPACITY];
+    private long[] timestamps = new long[INITIAL_CAPACITY];
+    private int[] values = new int[INITIAL_CAPACITY * FIELDS_PER_SLOT];
+    @Getter
+    private long timestampMs;
+    @Getter
+    @Setter
+    private long lastSeenMs;
+    @Getter
+    @Setter
+    private boolean scheduled;
+    /**
+     * Время приёма коллектором самого раннего показания, изменившего последний снапшот.
+     */
+    @Getter
+    @Setter
+    private long ingestMs;
+    @Getter
+    private final EventTimeBuffer eventTime = new EventTimeBuffer();
+
+    private final int[] scratch = new int[FIELDS_PER_SLOT];
+
+    public HubSnapshot(String hubId) {
+        this.hubId = hubId;
+    }
+
+    /**
+     * Применяет показание датчика.
+     *
+     * @return {@code false}, если сохранённое показание новее или совпадает с новым по времени и данным
+     */
+    public boolean apply(int sensorId, long eventTimestampMs, Object payload) {
+        SensorKind kind = SensorKind.of(payload);
+        int slot = slotOf(sensorId);
+
+        if (slot >= 0) {
+            if (timestamps[slot] > eventTimestampMs) {
+                return false;
+            }
+            kind.encode(payload, scratch, 0);
+            if (timestamps[slot] == eventTimestampMs && kinds[slot] == kind.code() && sameValues(slot)) {
+                return false;
+            }
+        } else {
+            slot = allocate(sensorId);
+        }
+
+        kinds[slot] = kind.code();
+        timestamps[slot] = eventTimestampMs;
+        kind.encode(payload, values, slot * FIELDS_PER_SLOT);
+        timestampMs = Math.max(timestampMs, eventTimestampMs);
+        return true;
+    }
+
+    public int slotOf(int sensorId) {
+        for (int i = 0; i < size; i++) {
+            if (sensorIds[i] == sensorId) {
+                return i;
+            }
+        }
+        return -1;
+    }
+
+    public int size() {
+        return size;
+    }
+
+    public boolean remove(int sensorId) {
+        int slot = slotOf(sensorId);
+        if (slot < 0) {
+            return false;
+        }
+        removeSlot(slot);
+        return true;
+    }
+
+    /**
+     * Удаляет показания с временем раньше {@code cutoffMs}.
+     *
+     * @param onRemoved получает интернированный id каждого удалённого датчика
+     */
+    public int pruneOlderThan(long cutoffMs, IntConsumer onRemoved) {
+        int removed = 0;
+        for (int slot = size - 1; slot >= 0; slot--) {
+            if (timestamps[slot] < cutoffMs) {
+                onRemoved.accept(sensorIds[slot]);
+                removeSlot(slot);
+                removed++;
+            }
+        }
+        return removed;
+    }
+
+    public long oldestSensorTimestamp() {
+        long oldest = Long.MAX_VALUE;
+        for (int slot = 0; slot < size; slot++) {
+            oldest = Math.min(oldest, timestamps[slot]);
+        }
+        return oldest;
+    }
+
+    void forEachSensorId(IntConsumer consumer) {
+        for (int slot = 0; slot < size; slot++) {
+            consumer.accept(sensorIds[slot]);
+        }
+    }
+
+    long sensorTimestamp(int slot) {
+        return timestamps[slot];
+    }
+
+    int sensorId(int slot) {
+        return sensorIds[slot];
+    }
+
+    SensorKind kind(int slot) {
+        return SensorKind.fromCode(kinds[slot]);
+    }
+
+    int[] values() {
+        return values;
+    }
+
+    public SensorsSnapshotAvro toAvro(SensorIdInterner interner) {
+        Map<String, SensorStateAvro> states = new HashMap<>(size * 2);
+        SensorStateView view = new SensorStateView(this, interner);
+        for (int slot = 0; slot < size; slot++) {
+            view.moveTo(slot);
+            states.put(view.sensorId(), view.toAvro());
+        }
+
+        return SensorsSnapshotAvro.newBuilder()
+                .setHubId(hubId)
+                .setTimestamp(Instant.ofEpochMilli(timestampMs))
+                .setSensorsState(states)
+                .build();
+    }
+
+    private boolean sameValues(int slot) {
+        int offset = slot * FIELDS_PER_SLOT;
+        for (int i = 0; i < FIELDS_PER_SLOT; i++) {
+            if (values[offset + i] != scratch[i]) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private void removeSlot(int slot) {
+        int last = size - 1;
+        if (slot != last) {
+            sensorIds[slot] = sensorIds[last];
+            kinds[slot] = kinds[last];
+            timestamps[slot] = timestamps[last];
+            System.arraycopy(values, last * FIELDS_PER_SLOT, values, slot * FIELDS_PER_SLOT, FIELDS_PER_SLOT);
+        }
+        size = last;
+    }
+
+    private int allocate(int sensorId) {
+        if (size == sensorIds.length) {
+            int capacity = size * 2;
+            sensorIds = Arrays.copyOf(sensorIds, capacity);
+            kinds = Arrays.copyOf(kinds, capacity);
+            timestamps = Arrays.copyOf(timestamps, capacity);
+            values = Arrays.copyOf(values, capacity * FIELDS_PER_SLOT);
+        }
+        sensorIds[size] = sensorId;
+        return size++;
+    }
+}
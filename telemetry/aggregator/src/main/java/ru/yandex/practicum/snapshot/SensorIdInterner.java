@@ -0,0 +1,67 @@
+package ru.yandex.practicum.snapshot;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Отображает строковые идентификаторы датчиков в плотные int-слоты,
+ * чтобы состояние хабов хранило примитивы вместо ссылок на строки.
+ * Слот освобождается, когда на него не ссылается ни один хаб.
+ */
+public class SensorIdInterner {
+    private final Map<String, Integer> ids = new HashMap<>();
+    private final List<String> names = new ArrayList<>();
+    private final Deque<Integer> free = new ArrayDeque<>();
+    private int[] refCounts = new int[16];
+
+    public int intern(String sensorId) {
+        Integer id = ids.get(sensorId);
+        if (id != null) {
+            return id;
+        }
+        int newId;
+        if (free.isEmpty()) {
+            newId = names.size();
+            names.add(sensorId);
+        } else {
+            newId = free.pop();
+            names.set(newId, sensorId);
+        }
+        ids.put(sensorId, newId);
+        return newId;
+    }
+
+    public int find(String sensorId) {
+        Integer id = ids.get(sensorId);
+        return id == null ? -1 : id;
+    }
+
+    public String name(int id) {
+        return names.get(id);
+    }
+
+    public void retain(int id) {
+        if (id >= refCounts.length) {
+            refCounts = Arrays.copyOf(refCounts, Math.max(refCounts.length * 2, id + 1));
+        }
+        refCounts[id]++;
+    }
+
+    public void release(int id) {
+        if (--refCounts[id] > 0) {
+            return;
+        }
+        ids.remove(names.get(id));
+        names.set(id, null);
+        free.push(id);
+    }
+
+    public int size() {
+        return ids.size();
+    }
+}
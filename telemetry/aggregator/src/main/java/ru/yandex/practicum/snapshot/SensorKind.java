@@ -0,0 +1,112 @@
+package ru.yandex.practicum.snapshot;
+
+import ru.yandex.practicum.kafka.telemetry.event.ClimateSensorAvro;
+import ru.yandex.practicum.kafka.telemetry.event.LightSensorAvro;
+import ru.yandex.practicum.kafka.telemetry.event.MotionSensorAvro;
+import ru.yandex.practicum.kafka.telemetry.event.SwitchSensorAvro;
+import ru.yandex.practicum.kafka.telemetry.event.TemperatureSensorAvro;
+
+/**
+ * Тип полезной нагрузки датчика и правила её упаковки в {@link HubSnapshot#FIELDS_PER_SLOT} int-поля.
+ */
+public enum SensorKind {
+    CLIMATE {
+        @Override
+        void encode(Object payload, int[] values, int offset) {
+            ClimateSensorAvro climate = (ClimateSensorAvro) payload;
+            values[offset] = climate.getTemperatureC();
+            values[offset + 1] = climate.getHumidity();
+            values[offset + 2] = climate.getCo2Level();
+        }
+
+        @Override
+        Object decode(int[] values, int offset, String sensorId, String hubId, long timestampMs) {
+            return new ClimateSensorAvro(values[offset], values[offset + 1], values[offset + 2]);
+        }
+    },
+    LIGHT {
+        @Override
+        void encode(Object payload, int[] values, int offset) {
+            LightSensorAvro light = (LightSensorAvro) payload;
+            values[offset] = light.getLinkQuality();
+            values[offset + 1] = light.getLuminosity();
+            values[offset + 2] = 0;
+        }
+
+        @Override
+        Object decode(int[] values, int offset, String sensorId, String hubId, long timestampMs) {
+            return new LightSensorAvro(values[offset], values[offset + 1]);
+        }
+    },
+    MOTION {
+        @Override
+        void encode(Object payload, int[] values, int offset) {
+            MotionSensorAvro motion = (MotionSensorAvro) payload;
+            values[offset] = motion.getLinkQuality();
+            values[offset + 1] = motion.getMotion() ? 1 : 0;
+            values[offset + 2] = motion.getVoltage();
+        }
+
+        @Override
+        Object decode(int[] values, int offset, String sensorId, String hubId, long timestampMs) {
+            return new MotionSensorAvro(values[offset], values[offset + 1] != 0, values[offset + 2]);
+        }
+    },
+    SWITCH {
+        @Override
+        void encode(Object payload, int[] values, int offset) {
+            SwitchSensorAvro switchSensor = (SwitchSensorAvro) payload;
+            values[offset] = switchSensor.getState() ? 1 : 0;
+            values[offset + 1] = 0;
+            values[offset + 2] = 0;
+        }
+
+        @Override
+        Object decode(int[] values, int offset, String sensorId, String hubId, long timestampMs) {
+            return new SwitchSensorAvro(values[offset] != 0);
+        }
+    },
+    TEMPERATURE {
+        @Override
+        void encode(Object payload, int[] values, int offset) {
+            TemperatureSensorAvro temperature = (TemperatureSensorAvro) payload;
+            values[offset] = temperature.getTemperatureC();
+            values[offset + 1] = temperature.getTemperatureF();
+            values[offset + 2] = 0;
+        }
+
+        @Override
+        Object decode(int[] values, int offset, String sensorId, String hubId, long timestampMs) {
+            return new TemperatureSensorAvro(sensorId, hubId, timestampMs / 1000, values[offset], values[offset + 1]);
+        }
+    };
+
+    private static final SensorKind[] VALUES = values();
+
+    abstract void encode(Object payload, int[] values, int offset);
+
+    abstract Object decode(int[] values, int offset, String sensorId, String hubId, long timestampMs);
+
+    static SensorKind of(Object payload) {
+        if (payload instanceof ClimateSensorAvro) {
+            return CLIMATE;
+        } else if (payload instanceof LightSensorAvro) {
+            return LIGHT;
+        } else if (payload instanceof MotionSensorAvro) {
+            return MOTION;
+        } else if (payload instanceof SwitchSensorAvro) {
+            return SWITCH;
+        } else if (payload instanceof TemperatureSensorAvro) {
+            return TEMPERATURE;
+        }
+        throw new IllegalArgumentException("Unknown sensor payload: " + payload);
+    }
+
+    static SensorKind fromCode(byte code) {
+        return VALUES[code];
+    }
+
+    byte code() {
+        return (byte) ordinal();
+    }
+}
@@ -0,0 +1,47 @@
+package ru.yandex.practicum.snapshot;
+
+import ru.yandex.practicum.kafka.telemetry.event.SensorStateAvro;
+
+import java.time.Instant;
+
+/**
+ * Переиспользуемое окно на слот {@link HubSnapshot}: Avro-объекты создаются
+ * только в момент сериализации снапшота, а не хранятся в памяти.
+ */
+public class SensorStateView {
+    private final HubSnapshot snapshot;
+    private final SensorIdInterner interner;
+    private int slot;
+
+    SensorStateView(HubSnapshot snapshot, SensorIdInterner interner) {
+        this.snapshot = snapshot;
+        this.interner = interner;
+    }
+
+    void moveTo(int slot) {
+        this.slot = slot;
+    }
+
+    public String sensorId() {
+        return interner.name(snapshot.sensorId(slot));
+    }
+
+    public long timestampMs() {
+        return snapshot.sensorTimestamp(slot);
+    }
+
+    public SensorKind kind() {
+        return snapshot.kind(slot);
+    }
+
+    public SensorStateAvro toAvro() {
+        long timestampMs = timestampMs();
+        Object data = kind().decode(snapshot.values(), slot * HubSnapshot.FIELDS_PER_SLOT,
+                sensorId(), snapshot.getHubId(), timestampMs);
+
+        return SensorStateAvro.newBuilder()
+                .setTimestamp(Instant.ofEpochMilli(timestampMs))
+                .setData(data)
+                .build();
+    }
+}
@@ -0,0 +1,47 @@
+package ru.yandex.practicum.snapshot;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.context.annotation.Configuration;
+
+import java.time.Duration;
+
+@Data
+@Configuration
+@ConfigurationProperties("aggregator.state")
+public class SnapshotStateConfig {
+    /**
+     * Хаб без событий дольше этого срока удаляется из памяти.
+     */
+    private Duration hubTtl = Duration.ofDays(7);
+
+    /**
+     * Показания датчика старше этого срока вычищаются из снапшота. {@code 0} отключает очистку.
+     */
+    private Duration sensorTtl = Duration.ofDays(1);
+
+    private Duration sweepTick = Duration.ofSeconds(1);
+
+    private int wheelSize = 512;
+
+    /**
+     * Насколько показание может отстать от водяного знака хаба, чтобы ещё быть применённым.
+     */
+    private Duration allowedLateness = Duration.ofSeconds(30);
+
+    /**
+     * Окно переупорядочивания: водяной знак отстаёт от максимального event time на эту величину,
+     * и столько же по времени обработки показание может ждать в буфере. {@code 0} отключает буферизацию.
+     */
+    private Duration reorderWindow = Duration.ofSeconds(1);
+
+    /**
+     * Предельный размер буфера переупорядочивания одного хаба.
+     */
+    private int reorderBufferSize = 32;
+
+    /**
+     * Подписка на telemetry.hubs.v1 для удаления датчиков по DeviceRemovedEventAvro.
+     */
+    private boolean hubEventsEnabled = false;
+}
@@ -0,0 +1,71 @@
+package ru.yandex.practicum.snapshot;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.Consumer;
+
+/**
+ * Хешированное колесо таймеров. Продвижение стоит O(прошедших тиков + сработавших записей),
+ * без полного обхода всех запланированных элементов.
+ */
+public class TimingWheel<T> {
+    private final long tickMs;
+    private final List<List<Entry<T>>> buckets;
+    private long currentTick;
+    private int size;
+
+    public TimingWheel(long tickMs, int wheelSize, long startMs) {
+        if (tickMs <= 0 || wheelSize <= 0) {
+            throw new IllegalArgumentException("tickMs and wheelSize must be positive");
+        }
+        this.tickMs = tickMs;
+        this.buckets = new ArrayList<>(wheelSize);
+        for (int i = 0; i < wheelSize; i++) {
+            buckets.add(new ArrayList<>());
+        }
+        this.currentTick = startMs / tickMs;
+    }
+
+    public void schedule(T item, long deadlineMs) {
+        long deadlineTick = Math.max(deadlineMs / tickMs, currentTick + 1);
+        buckets.get(bucketIndex(deadlineTick)).add(new Entry<>(item, deadlineTick));
+        size++;
+    }
+
+    public void advance(long nowMs, Consumer<T> onExpire) {
+        long nowTick = nowMs / tickMs;
+        if (nowTick <= currentTick) {
+            return;
+        }
+
+        long ticks = Math.min(nowTick - currentTick, buckets.size());
+        List<T> expired = new ArrayList<>();
+        for (long i = 1; i <= ticks; i++) {
+            List<Entry<T>> bucket = buckets.get(bucketIndex(currentTick + i));
+            for (int j = bucket.size() - 1; j >= 0; j--) {
+                Entry<T> entry = bucket.get(j);
+                if (entry.deadlineTick <= nowTick) {
+                    int last = bucket.size() - 1;
+                    bucket.set(j, bucket.get(last));
+                    bucket.remove(last);
+                    size--;
+                    expired.add(entry.item);
+                }
+            }
+        }
+        currentTick = nowTick;
+
+        expired.forEach(onExpire);
+    }
+
+    public int size() {
+        return size;
+    }
+
+    private int bucketIndex(long tick) {
+        return (int) Math.floorMod(tick, (long) buckets.size());
+    }
+
+    private record Entry<T>(T item, long deadlineTick) {
+    }
+}
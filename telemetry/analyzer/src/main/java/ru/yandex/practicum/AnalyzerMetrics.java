@@ -0,0 +1,49 @@
+package ru.yandex.practicum;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.springframework.stereotype.Component;
+
+import java.util.concurrent.TimeUnit;
+
+@Component
+public class AnalyzerMetrics {
+    private final Timer snapshotProcessing;
+    private final Timer sensorToAction;
+    private final Counter scenariosEvaluated;
+    private final Counter scenariosFired;
+
+    public AnalyzerMetrics(MeterRegistry meterRegistry) {
+        this.snapshotProcessing = Timer.builder("analyzer.snapshot.process")
+                .publishPercentiles(0.5, 0.99)
+                .register(meterRegistry);
+        this.sensorToAction = Timer.builder("analyzer.sensor.to.action")
+                .description("От приёма показания коллектором до отправки действия в hub router")
+                .publishPercentiles(0.5, 0.99)
+                .register(meterRegistry);
+        this.scenariosEvaluated = meterRegistry.counter("analyzer.scenarios.evaluated");
+        this.scenariosFired = meterRegistry.counter("analyzer.scenarios.fired");
+    }
+
+    public Timer.Sample startSnapshot() {
+        return Timer.start();
+    }
+
+    public void snapshotProcessed(Timer.Sample sample) {
+        sample.stop(snapshotProcessing);
+    }
+
+    public void scenarioEvaluated(boolean fired) {
+        scenariosEvaluated.increment();
+        if (fired) {
+            scenariosFired.increment();
+        }
+    }
+
+    public void actionSent(long ingestMs) {
+        if (ingestMs > 0) {
+            sensorToAction.record(Math.max(0, System.currentTimeMillis() - ingestMs), TimeUnit.MILLISECONDS);
+        }
+    }
+}
@@ -3,6 +3,8 @@ package ru.yandex.practicum.client;
 
 import io.grpc.ManagedChannel;
 import io.grpc.ManagedChannelBuilder;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Service;
@@ -17,12 +19,24 @@ import ru.yandex.practicum.grpc.telemetry.hubrouter.HubRouterControllerGrpc;
 public class HubRouterClient {
 
     private final HubRouterControllerGrpc.HubRouterControllerBlockingStub hubRouterClient;
+    private final Timer successCalls;
+    private final Timer failedCalls;
 
-    public HubRouterClient(@Value("${grpc.client.hub-router.address}") String address) {
+    public HubRouterClient(@Value("${grpc.client.hub-router.address}") String address,
+                           MeterRegistry meterRegistry) {
         ManagedChannel channel = ManagedChannelBuilder.forTarget(address)
                 .usePlaintext()
                 .build();
         this.hubRouterClient = HubRouterControllerGrpc.newBlockingStub(channel);
+        this.successCalls = callTimer(meterRegistry, "success");
+        this.failedCalls = callTimer(meterRegistry, "error");
+    }
+
+    private static Timer callTimer(MeterRegistry meterRegistry, String outcome) {
+        return Timer.builder("analyzer.hub.router.call")
+                .tag("outcome", outcome)
+                .publishPercentiles(0.5, 0.99)
+                .register(meterRegistry);
     }
 
     public void executeAction(Action action, String hubId) {
@@ -36,10 +50,13 @@ public class HubRouterClient {
                         .build())
                 .build();
 
+        Timer.Sample sample = Timer.start();
         try {
             hubRouterClient.handleDeviceAction(request);
+            sample.stop(successCalls);
             log.info("Action -> hub: {}", action);
         } catch (Exception e) {
+            sample.stop(failedCalls);
             log.error("Action error in hubId {}: {}", hubId, e.getMessage());
 
         }
@@ -2,7 +2,9 @@ package ru.yandex.practicum.service;
 
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import io.micrometer.core.instrument.Timer;
 import org.springframework.stereotype.Service;
+import ru.yandex.practicum.AnalyzerMetrics;
 import ru.yandex.practicum.client.HubRouterClient;
 import ru.yandex.practicum.kafka.telemetry.event.ClimateSensorAvro;
 import ru.yandex.practicum.kafka.telemetry.event.LightSensorAvro;
@@ -25,17 +27,33 @@ public class AnalyzerProcessor {
 
     private final ScenarioService scenarioService;
     private final HubRouterClient hubRouterClient;
+    private final AnalyzerMetrics metrics;
 
     public void processSnapshot(SensorsSnapshotAvro snapshot) {
+        processSnapshot(snapshot, 0L);
+    }
+
+    /**
+     * @param ingestMs время приёма исходного показания коллектором, {@code 0} если неизвестно
+     */
+    public void processSnapshot(SensorsSnapshotAvro snapshot, long ingestMs) {
+        Timer.Sample sample = metrics.startSnapshot();
         String hubId = snapshot.getHubId();
-        log.info("Processing snapshot for hubId: {}", hubId);
+        log.debug("Processing snapshot for hubId: {}", hubId);
 
-        List<Scenario> scenarios = scenarioService.getScenariosByHubId(hubId);
+        try {
+            List<Scenario> scenarios = scenarioService.getScenariosByHubId(hubId);
 
-        for (Scenario scenario : scenarios) {
-            if (isScenarioTriggered(scenario, snapshot)) {
-                executeActions(scenario.getActions(), hubId);
+            for (Scenario scenario : scenarios) {
+                boolean triggered = isScenarioTriggered(scenario, snapshot);
+                metrics.scenarioEvaluated(triggered);
+                if (triggered) {
+                    executeActions(scenario.getActions(), hubId);
+                    metrics.actionSent(ingestMs);
+                }
             }
+        } finally {
+            metrics.snapshotProcessed(sample);
         }
     }
 
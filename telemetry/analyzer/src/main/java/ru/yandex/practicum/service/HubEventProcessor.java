@@ -1,5 +1,7 @@
 package ru.yandex.practicum.service;
 
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.kafka.KafkaClientMetrics;
 import lombok.extern.slf4j.Slf4j;
 import org.apache.kafka.clients.consumer.ConsumerRecord;
 import org.apache.kafka.clients.consumer.ConsumerRecords;
@@ -24,9 +26,11 @@ public class HubEventProcessor implements Runnable {
 
     public HubEventProcessor(AnalyzerKafkaConfig kafkaConfig,
                              SensorService sensorService,
-                             ScenarioService scenarioService) {
+                             ScenarioService scenarioService,
+                             MeterRegistry meterRegistry) {
         this.kafkaConfig = kafkaConfig;
         hubConsumer = new KafkaConsumer<>(kafkaConfig.getHubConsumerProperties());
+        new KafkaClientMetrics(hubConsumer).bindTo(meterRegistry);
         this.sensorService = sensorService;
         this.scenarioService = scenarioService;
     }
@@ -1,18 +1,28 @@
 package ru.yandex.practicum.service;
 
-import lombok.RequiredArgsConstructor;
 import org.apache.kafka.clients.consumer.ConsumerRecord;
+import org.apache.kafka.common.header.Header;
 import org.springframework.kafka.annotation.KafkaListener;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.stereotype.Component;
 import ru.yandex.practicum.kafka.telemetry.event.SensorsSnapshotAvro;
+import ru.yandex.practicum.logging.SampledEventLog;
+import ru.yandex.practicum.logging.SampledEventLogs;
+
+import java.nio.charset.StandardCharsets;
 
 @Slf4j
 @Component
-@RequiredArgsConstructor
 public class SnapshotProcessor implements Runnable {
+    static final String INGEST_TIMESTAMP_HEADER = "ingest-timestamp";
 
     private final AnalyzerProcessor analyzerProcessor;
+    private final SampledEventLog snapshotLog;
+
+    public SnapshotProcessor(AnalyzerProcessor analyzerProcessor, SampledEventLogs sampledEventLogs) {
+        this.analyzerProcessor = analyzerProcessor;
+        this.snapshotLog = sampledEventLogs.create(log, "snapshots");
+    }
 
     @Override
     public void run() {
@@ -30,8 +40,20 @@ public class SnapshotProcessor implements Runnable {
     @KafkaListener(topics = "telemetry.snapshots.v1", groupId = "telemetry-snapshots")
     public void onMessage(ConsumerRecord<String, SensorsSnapshotAvro> record) {
         SensorsSnapshotAvro snapshot = record.value();
-        log.info("Received snapshot: {}", snapshot);
+        snapshotLog.log("Received snapshot: {}", () -> snapshot);
 
-        analyzerProcessor.processSnapshot(snapshot);
+        analyzerProcessor.processSnapshot(snapshot, ingestTimestamp(record));
+    }
+
+    private static long ingestTimestamp(ConsumerRecord<String, SensorsSnapshotAvro> record) {
+        Header header = record.headers().lastHeader(INGEST_TIMESTAMP_HEADER);
+        if (header == null) {
+            return 0L;
+        }
+        try {
+            return Long.parseLong(new String(header.value(), StandardCharsets.UTF_8));
+        } catch (NumberFormatException e) {
+            return 0L;
+        }
     }
 }
\ No newline at end of file
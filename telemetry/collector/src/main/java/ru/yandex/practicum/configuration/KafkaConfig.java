@@ -1,5 +1,6 @@
 package ru.yandex.practicum.configuration;
 
+import io.micrometer.core.instrument.binder.kafka.KafkaClientMetrics;
 import jakarta.annotation.PreDestroy;
 import lombok.*;
 import org.apache.avro.specific.SpecificRecordBase;
@@ -11,6 +12,7 @@ import org.springframework.context.annotation.Configuration;
 import org.springframework.stereotype.Component;
 import ru.yandex.practicum.exception.TopicException;
 
+import java.nio.charset.StandardCharsets;
 import java.time.Duration;
 import java.util.*;
 
@@ -58,6 +60,11 @@ public class KafkaConfig {
         return new KafkaProducer<>(producer.properties);
     }
 
+    @Bean
+    public KafkaClientMetrics kafkaProducerMetrics(KafkaProducer<String, SpecificRecordBase> kafkaProducer) {
+        return new KafkaClientMetrics(kafkaProducer);
+    }
+
     @Bean
     public EnumMap<TopicType, String> topics() {
         return producer.topics;
@@ -66,12 +73,19 @@ public class KafkaConfig {
     @Component
     @RequiredArgsConstructor
     public static class KafkaEventProducer {
+        /**
+         * Время приёма события коллектором (epoch millis строкой) для замера задержки до срабатывания сценария.
+         */
+        public static final String INGEST_TIMESTAMP_HEADER = "ingest-timestamp";
+
         private final KafkaProducer<String, SpecificRecordBase> kafkaProducer;
         private final EnumMap<TopicType, String> topics;
 
         public <T extends SpecificRecordBase> void send(String topic, String key, T event) {
             ProducerRecord<String, SpecificRecordBase> record =
                     new ProducerRecord<>(topic, key, event);
+            record.headers().add(INGEST_TIMESTAMP_HEADER,
+                    Long.toString(System.currentTimeMillis()).getBytes(StandardCharsets.UTF_8));
             kafkaProducer.send(record);
         }
 
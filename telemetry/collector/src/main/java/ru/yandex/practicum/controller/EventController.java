@@ -4,6 +4,8 @@ import com.google.protobuf.Empty;
 import io.grpc.Status;
 import io.grpc.StatusRuntimeException;
 import io.grpc.stub.StreamObserver;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
 import net.devh.boot.grpc.server.service.GrpcService;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
@@ -12,8 +14,11 @@ import ru.yandex.practicum.grpc.telemetry.event.HubEventProto;
 import ru.yandex.practicum.grpc.telemetry.event.SensorEventProto;
 import ru.yandex.practicum.handler.HubEventHandler;
 import ru.yandex.practicum.handler.SensorEventHandler;
+import ru.yandex.practicum.logging.SampledEventLog;
+import ru.yandex.practicum.logging.SampledEventLogs;
 
 
+import java.util.EnumMap;
 import java.util.Map;
 import java.util.Set;
 import java.util.function.Function;
@@ -25,23 +30,49 @@ public class EventController extends CollectorControllerGrpc.CollectorController
     private static final Logger log = LoggerFactory.getLogger(EventController.class);
     private final Map<HubEventProto.PayloadCase, HubEventHandler> hubEventHandlerMap;
     private final Map<SensorEventProto.PayloadCase, SensorEventHandler> sensorEventHandlerMap;
+    private final Map<HubEventProto.PayloadCase, Counter> hubEventCounters = new EnumMap<>(HubEventProto.PayloadCase.class);
+    private final Map<SensorEventProto.PayloadCase, Counter> sensorEventCounters = new EnumMap<>(SensorEventProto.PayloadCase.class);
+    private final Counter hubEventErrors;
+    private final Counter sensorEventErrors;
+    private final SampledEventLog hubEventLog;
+    private final SampledEventLog sensorEventLog;
 
     public EventController(Set<HubEventHandler> hubEventHandlerSet,
-                           Set<SensorEventHandler> sensorEventHandlerSet) {
+                           Set<SensorEventHandler> sensorEventHandlerSet,
+                           MeterRegistry meterRegistry,
+                           SampledEventLogs sampledEventLogs) {
         this.hubEventHandlerMap = hubEventHandlerSet.stream()
                 .collect(Collectors.toMap(HubEventHandler::getMessageType, Function.identity()));
         this.sensorEventHandlerMap = sensorEventHandlerSet.stream()
                 .collect(Collectors.toMap(SensorEventHandler::getMessageType, Function.identity()));
+
+        hubEventHandlerMap.keySet().forEach(type -> hubEventCounters.put(type,
+                eventCounter(meterRegistry, "hub", type.name())));
+        sensorEventHandlerMap.keySet().forEach(type -> sensorEventCounters.put(type,
+                eventCounter(meterRegistry, "sensor", type.name())));
+        this.hubEventErrors = Counter.builder("collector.events.failed").tag("kind", "hub").register(meterRegistry);
+        this.sensorEventErrors = Counter.builder("collector.events.failed").tag("kind", "sensor").register(meterRegistry);
+        this.hubEventLog = sampledEventLogs.create(log, "hub events");
+        this.sensorEventLog = sampledEventLogs.create(log, "sensor events");
+    }
+
+    private static Counter eventCounter(MeterRegistry meterRegistry, String kind, String type) {
+        return Counter.builder("collector.events")
+                .tag("kind", kind)
+                .tag("type", type)
+                .register(meterRegistry);
     }
 
     @Override
     public void collectHubEvent (HubEventProto request, StreamObserver<Empty> responseObserver) {
         try {
-            log.info("-> Hub event: {}", request);
+            hubEventLog.log("-> Hub event: {}", () -> request);
             hubEventHandlerMap.get(request.getPayloadCase()).handle(request);
+            hubEventCounters.get(request.getPayloadCase()).increment();
             responseObserver.onNext(Empty.getDefaultInstance());
             responseObserver.onCompleted();
         } catch (Exception e) {
+            hubEventErrors.increment();
             responseObserver.onError(new StatusRuntimeException(
                     Status.INTERNAL
                             .withDescription(e.getLocalizedMessage())
@@ -53,11 +84,13 @@ public class EventController extends CollectorControllerGrpc.CollectorController
     @Override
     public void collectSensorEvent (SensorEventProto request, StreamObserver<Empty> responseObserver) {
         try {
-            log.info("-> Sensor event: {}", request);
+            sensorEventLog.log("-> Sensor event: {}", () -> request);
             sensorEventHandlerMap.get(request.getPayloadCase()).handle(request);
+            sensorEventCounters.get(request.getPayloadCase()).increment();
             responseObserver.onNext(Empty.getDefaultInstance());
             responseObserver.onCompleted();
         } catch (Exception e) {
+            sensorEventErrors.increment();
             responseObserver.onError(new StatusRuntimeException(
                     Status.INTERNAL
                             .withDescription(e.getLocalizedMessage())
@@ -19,7 +19,7 @@ public abstract class BaseHubEventHandler <T extends SpecificRecordBase> impleme
     public void handle(HubEventProto event) {
         T protoEvent = mapToAvro(event);
         String topic = topics.producer.getTopics().get(KafkaConfig.TopicType.HUBS_EVENTS);
-        log.info("Send event {} -> topic {}", getMessageType(), topic);
+        log.debug("Send event {} -> topic {}", getMessageType(), topic);
         producer.send(topic, event.getHubId(), protoEvent);
     }
 }
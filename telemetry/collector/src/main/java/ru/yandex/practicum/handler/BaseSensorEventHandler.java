@@ -21,7 +21,7 @@ public abstract class BaseSensorEventHandler<T extends SpecificRecordBase> imple
         T protoEvent = mapToAvro(event);
         String topic = topics.producer.getTopics().get(KafkaConfig.TopicType.SENSORS_EVENTS);
 
-        log.info("Send event {} -> topic {}", getMessageType(), topic);
+        log.debug("Send event {} -> topic {}", getMessageType(), topic);
         producer.send(topic, event.getId(), protoEvent);
     }
 }
\ No newline at end of file
@@ -0,0 +1,22 @@
+package ru.yandex.practicum.logging;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.context.annotation.Configuration;
+
+import java.time.Duration;
+
+@Data
+@Configuration
+@ConfigurationProperties("telemetry.logging")
+public class HotPathLoggingConfig {
+    /**
+     * Вместо строки на каждое событие писать не больше {@link #maxEventsPerInterval} строк
+     * и сводку за {@link #summaryInterval}.
+     */
+    private boolean sampled = false;
+
+    private int maxEventsPerInterval = 5;
+
+    private Duration summaryInterval = Duration.ofSeconds(1);
+}
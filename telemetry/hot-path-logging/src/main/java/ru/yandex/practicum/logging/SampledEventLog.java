@@ -0,0 +1,69 @@
+package ru.yandex.practicum.logging;
+
+import org.slf4j.Logger;
+import org.slf4j.spi.LoggingEventBuilder;
+
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Supplier;
+
+/**
+ * Лог событий горячего пути. В режиме {@code telemetry.logging.sampled} подробно пишутся только первые
+ * несколько событий интервала, остальные считаются и сводятся в одну строку за интервал.
+ * Аргументы передаются поставщиками и рендерятся, только если строка действительно пишется.
+ * Сводку пишет по таймеру {@link SampledEventLogs}, поэтому она появляется и после того, как поток событий стих.
+ */
+public class SampledEventLog {
+    private final Logger log;
+    private final String name;
+    private final boolean sampled;
+    private final int maxEventsPerInterval;
+
+    private final AtomicLong windowStart = new AtomicLong(System.nanoTime());
+    private final LongAdder events = new LongAdder();
+    private final AtomicInteger logged = new AtomicInteger();
+
+    SampledEventLog(Logger log, String name, HotPathLoggingConfig config) {
+        this.log = log;
+        this.name = name;
+        this.sampled = config.isSampled();
+        this.maxEventsPerInterval = config.getMaxEventsPerInterval();
+    }
+
+    public void log(String message, Supplier<?>... args) {
+        if (!log.isInfoEnabled()) {
+            return;
+        }
+        if (!sampled) {
+            write(message, args);
+            return;
+        }
+
+        events.increment();
+        if (logged.incrementAndGet() <= maxEventsPerInterval) {
+            write(message, args);
+        }
+    }
+
+    /**
+     * Закрывает интервал и пишет сводку, если за него были события.
+     */
+    void rollWindow() {
+        long now = System.nanoTime();
+        long start = windowStart.getAndSet(now);
+        long count = events.sumThenReset();
+        int written = Math.min(logged.getAndSet(0), maxEventsPerInterval);
+        if (count > 0 && log.isInfoEnabled()) {
+            log.info("{}: {} событий за {} мс, подробно записано {}", name, count, (now - start) / 1_000_000, written);
+        }
+    }
+
+    private void write(String message, Supplier<?>[] args) {
+        LoggingEventBuilder event = log.atInfo().setMessage(message);
+        for (Supplier<?> arg : args) {
+            event = event.addArgument(arg);
+        }
+        event.log();
+    }
+}
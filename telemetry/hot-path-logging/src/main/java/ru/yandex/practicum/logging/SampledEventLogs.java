@@ -0,0 +1,53 @@
+package ru.yandex.practicum.logging;
+
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.springframework.stereotype.Component;
+
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Создаёт {@link SampledEventLog} и раз в {@code telemetry.logging.summary-interval} закрывает их интервалы.
+ * В режиме без выборки сводки не пишутся и таймер не запускается.
+ */
+@Component
+public class SampledEventLogs {
+    private final HotPathLoggingConfig config;
+    private final List<SampledEventLog> logs = new CopyOnWriteArrayList<>();
+    private final ScheduledExecutorService ticker;
+
+    public SampledEventLogs(HotPathLoggingConfig config) {
+        this.config = config;
+        if (!config.isSampled()) {
+            this.ticker = null;
+            return;
+        }
+
+        this.ticker = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "sampled-event-log");
+            thread.setDaemon(true);
+            return thread;
+        });
+        long intervalMs = config.getSummaryInterval().toMillis();
+        ticker.scheduleAtFixedRate(() -> logs.forEach(SampledEventLog::rollWindow),
+                intervalMs, intervalMs, TimeUnit.MILLISECONDS);
+    }
+
+    public SampledEventLog create(Logger log, String name) {
+        SampledEventLog eventLog = new SampledEventLog(log, name, config);
+        logs.add(eventLog);
+        return eventLog;
+    }
+
+    @PreDestroy
+    public void close() {
+        if (ticker != null) {
+            ticker.shutdown();
+            logs.forEach(SampledEventLog::rollWindow);
+        }
+    }
+}